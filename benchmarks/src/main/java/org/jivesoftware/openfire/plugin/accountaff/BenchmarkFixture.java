@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.SessionManager;
+import org.jivesoftware.openfire.XMPPServer;
+import org.jivesoftware.openfire.XMPPServerInfo;
+import org.jivesoftware.openfire.disco.IQDiscoInfoHandler;
+import org.jivesoftware.openfire.roster.Roster;
+import org.jivesoftware.openfire.roster.RosterItem;
+import org.jivesoftware.openfire.roster.RosterManager;
+import org.jivesoftware.openfire.session.ClientSession;
+import org.jivesoftware.openfire.session.LocalClientSession;
+import org.jivesoftware.openfire.user.User;
+import org.jivesoftware.openfire.user.UserManager;
+import org.jivesoftware.openfire.user.UserNotFoundException;
+import org.jivesoftware.util.JiveGlobals;
+import org.jivesoftware.util.cache.CacheFactory;
+import org.xmpp.packet.JID;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Replaces the Openfire components that the plugin depends on with in-memory stubs, and populates them with a
+ * deterministic set of accounts.
+ *
+ * The population consists of {@link #USERS} registered users named <tt>user0</tt>, <tt>user1</tt>, etc. Of these, the
+ * first {@link #ADMINS} are administrators and every fourth user is a member. Each user has a roster of
+ * {@link #CONTACTS} contacts (the users that follow it), to which it is subscribed. Additionally, there are
+ * {@link #ANONYMOUS_USERS} anonymous users named <tt>anon0</tt>, <tt>anon1</tt>, etc.
+ *
+ * The amount of users can be changed with the system properties <tt>raa.benchmark.users</tt> and
+ * <tt>raa.benchmark.anonymous-users</tt>, which need to be set before this class is first used.
+ *
+ * The stubs do not record their invocations, so that memory usage does not grow while a benchmark or load test runs.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+final class BenchmarkFixture
+{
+    static final String DOMAIN = "example.org";
+
+    static final String REMOTE_DOMAIN = "example.com";
+
+    static final int USERS = Integer.getInteger("raa.benchmark.users", 10_000);
+
+    static final int ADMINS = 10;
+
+    static final int CONTACTS = 20;
+
+    static final int ANONYMOUS_USERS = Integer.getInteger("raa.benchmark.anonymous-users", 100);
+
+    private static final Map<String, User> users = new HashMap<>();
+
+    private static final List<ClientSession> anonymousSessions = new ArrayList<>();
+
+    private static boolean initialized;
+
+    private BenchmarkFixture()
+    {}
+
+    /**
+     * Sets up the stubbed server. Invoking this method more than once has no effect.
+     */
+    static synchronized void setUp() throws Exception
+    {
+        if (initialized) {
+            return;
+        }
+
+        // Without a database, properties are kept in memory.
+        final Path home = Files.createTempDirectory("raa-benchmarks");
+        Files.createDirectories(home.resolve("conf"));
+        Files.writeString(home.resolve("conf").resolve("openfire.xml"), "<jive><setup>true</setup></jive>");
+        Files.writeString(home.resolve("conf").resolve("security.xml"), "<security/>");
+        JiveGlobals.setHomeDirectory(home.toString());
+        CacheFactory.initialize();
+
+        final Date created = Date.from(Instant.now().minus(Duration.ofDays(400)));
+        for (int i = 0; i < USERS; i++) {
+            final String username = username(i);
+            users.put(username, new User(username, username, null, created, created));
+        }
+        for (int i = 0; i < ANONYMOUS_USERS; i++) {
+            final LocalClientSession session = mock(LocalClientSession.class, withSettings().stubOnly());
+            when(session.getAddress()).thenReturn(address(anonymousUsername(i), "resource"));
+            when(session.isAnonymousUser()).thenReturn(true);
+            when(session.getCreationDate()).thenReturn(created);
+            anonymousSessions.add(session);
+        }
+
+        final XMPPServer server = mock(XMPPServer.class, withSettings().stubOnly());
+        final XMPPServerInfo serverInfo = mock(XMPPServerInfo.class, withSettings().stubOnly());
+        when(serverInfo.getXMPPDomain()).thenReturn(DOMAIN);
+        when(server.getServerInfo()).thenReturn(serverInfo);
+        when(server.isLocal(any(JID.class))).thenAnswer(invocation -> DOMAIN.equals(invocation.<JID>getArgument(0).getDomain()));
+        when(server.getIQDiscoInfoHandler()).thenReturn(mock(IQDiscoInfoHandler.class));
+        when(server.getRosterManager()).thenReturn(mock(RosterManager.class));
+
+        final SessionManager sessionManager = mock(SessionManager.class, withSettings().stubOnly());
+        when(sessionManager.getSessions()).thenReturn(anonymousSessions);
+        when(sessionManager.getActiveSessionCount(anyString())).thenReturn(1);
+        when(server.getSessionManager()).thenReturn(sessionManager);
+
+        final UserManager userManager = mock(UserManager.class, withSettings().stubOnly());
+        when(userManager.getUser(anyString())).thenAnswer(invocation -> {
+            final User user = users.get(invocation.<String>getArgument(0));
+            if (user == null) {
+                throw new UserNotFoundException();
+            }
+            return user;
+        });
+        when(userManager.getUserCount()).thenReturn(USERS);
+        when(server.getUserManager()).thenReturn(userManager);
+
+        XMPPServer.setInstance(server);
+
+        JiveGlobals.setProperty("provider.admin.className", StubAdminProvider.class.getName());
+        InfoDAO.AFFILIATION_PROVIDER.setValue(StubAffiliationProvider.class.getName());
+
+        AnonymousSessionIndex.getInstance().start();
+        InfoCache.getInstance().start();
+        AdminSet.getInstance().start();
+        // The fixture has no roster cache from which the index could be seeded again: keep all rosters indexed.
+        SubscriptionIndex.MAX_USERS.setValue(Math.max(USERS, SubscriptionIndex.MAX_USERS.getDefaultValue()));
+        SubscriptionIndex.MAX_AGE.setValue(Duration.ZERO);
+        SubscriptionIndex.getInstance().start();
+        for (int i = 0; i < USERS; i++) {
+            SubscriptionIndex.getInstance().rosterLoaded(roster(i));
+        }
+
+        initialized = true;
+    }
+
+    static String username(final int index)
+    {
+        return "user" + index;
+    }
+
+    static String anonymousUsername(final int index)
+    {
+        return "anon" + index;
+    }
+
+    static JID address(final String username, @Nullable final String resource)
+    {
+        return new JID(username, DOMAIN, resource);
+    }
+
+    /**
+     * Returns the index of a user that is a contact of the user with the provided index.
+     */
+    static int contact(final int index, final int contactNumber)
+    {
+        return (index + 1 + (contactNumber % CONTACTS)) % USERS;
+    }
+
+    /**
+     * Returns a stub for a session of a local user.
+     */
+    @Nonnull
+    static LocalClientSession session(@Nonnull final JID address, final boolean anonymous)
+    {
+        final LocalClientSession session = mock(LocalClientSession.class, withSettings().stubOnly());
+        when(session.getAddress()).thenReturn(address);
+        when(session.isAnonymousUser()).thenReturn(anonymous);
+        return session;
+    }
+
+    @Nonnull
+    private static Roster roster(final int index)
+    {
+        final List<RosterItem> items = new ArrayList<>(CONTACTS);
+        for (int c = 0; c < CONTACTS; c++) {
+            items.add(new RosterItem(address(username(contact(index, c)), null), RosterItem.SUB_BOTH, RosterItem.ASK_NONE, RosterItem.RECV_NONE, null, null));
+        }
+        final Roster roster = mock(Roster.class, withSettings().stubOnly());
+        when(roster.getUsername()).thenReturn(username(index));
+        when(roster.getRosterItems()).thenReturn(items);
+        return roster;
+    }
+
+    /**
+     * Reports the first {@link #ADMINS} users as administrators.
+     */
+    public static class StubAdminProvider implements org.jivesoftware.openfire.admin.AdminProvider
+    {
+        @Override
+        public List<JID> getAdmins()
+        {
+            final List<JID> result = new ArrayList<>();
+            for (int i = 0; i < ADMINS; i++) {
+                result.add(address(username(i), null));
+            }
+            return result;
+        }
+
+        @Override
+        public void setAdmins(final List<JID> admins)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isReadOnly()
+        {
+            return true;
+        }
+    }
+
+    /**
+     * Reports every fourth user as a member.
+     */
+    public static class StubAffiliationProvider implements AffiliationProvider
+    {
+        @Nullable
+        @Override
+        public Affiliation getAffiliation(@Nonnull final String username)
+        {
+            return username.startsWith("user") && Integer.parseInt(username.substring(4)) % 4 == 0 ? Affiliation.member : null;
+        }
+
+        @Nonnull
+        @Override
+        public Map<String, Affiliation> getAffiliations(@Nonnull final Collection<String> usernames)
+        {
+            final Map<String, Affiliation> result = new HashMap<>();
+            for (final String username : usernames) {
+                final Affiliation affiliation = getAffiliation(username);
+                if (affiliation != null) {
+                    result.put(username, affiliation);
+                }
+            }
+            return result;
+        }
+    }
+}
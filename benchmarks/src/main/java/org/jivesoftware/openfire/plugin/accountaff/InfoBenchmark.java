@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.dom4j.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the creation of the XML representation of account info.
+ *
+ * {@link #asElement()} uses a canonical instance, of which the XML representation is computed once and copied for every
+ * invocation. {@link #asElementUncached()} uses a new instance for every invocation, which reflects the cost of computing
+ * the XML representation itself.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InfoBenchmark
+{
+    @Param({"false", "true"})
+    public boolean withTrust;
+
+    private final Instant since = Instant.now().minus(Duration.ofDays(400));
+
+    @Benchmark
+    public Element asElement()
+    {
+        return Info.of(Affiliation.member, since, withTrust ? 80 : null).asElement();
+    }
+
+    @Benchmark
+    public Element asElementUncached()
+    {
+        return new Info(Affiliation.member, since, withTrust ? 80 : null).asElement();
+    }
+}
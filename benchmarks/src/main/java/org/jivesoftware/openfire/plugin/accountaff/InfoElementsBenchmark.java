@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.dom4j.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmpp.packet.JID;
+import org.xmpp.packet.Presence;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the removal of client-supplied info elements by {@link InfoElements#strip(Element)} with the approach that
+ * it replaces ({@link org.xmpp.packet.Packet#deleteExtension(String, String)}), on presence stanzas that carry the
+ * extensions that clients typically add (entity capabilities, avatar hash, idle time, nickname).
+ *
+ * Every invocation operates on a copy of a pre-generated stanza, as the stanza is modified. The cost of that copy is
+ * measured separately, by {@link #copyOnly()}, and should be subtracted from the other results. Run with
+ * <tt>-prof gc</tt> to compare the allocation per operation.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InfoElementsBenchmark
+{
+    /**
+     * The amount of (spoofed) info elements that the stanza contains.
+     */
+    @Param({"0", "1", "2"})
+    public int spoofed;
+
+    private final Info info = Info.of(Affiliation.member, Instant.now().minus(Duration.ofDays(400)), 80);
+
+    private Presence stanza;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        stanza = new Presence();
+        stanza.setFrom(new JID("user", BenchmarkFixture.DOMAIN, "resource"));
+        stanza.setTo(new JID("stranger", BenchmarkFixture.REMOTE_DOMAIN, null));
+        stanza.setShow(Presence.Show.away);
+        stanza.setStatus("Out for lunch");
+        stanza.setPriority(5);
+        final Element element = stanza.getElement();
+        element.addElement("c", "http://jabber.org/protocol/caps")
+            .addAttribute("hash", "sha-1")
+            .addAttribute("node", "https://example.org/client")
+            .addAttribute("ver", "QgayPKawpkPSDYmwT/WM94uAlu0=");
+        element.addElement("x", "vcard-temp:x:update")
+            .addElement("photo").setText("01b87fcd030b72895ff8e88db57ec525450f000d");
+        element.addElement("idle", "urn:xmpp:idle:1")
+            .addAttribute("since", "2026-01-01T12:00:00Z");
+        element.addElement("nick", "http://jabber.org/protocol/nick")
+            .setText("User");
+        for (int i = 0; i < spoofed; i++) {
+            element.add(Info.of(Affiliation.admin, Instant.EPOCH, null).asElement());
+        }
+    }
+
+    @Benchmark
+    public Presence copyOnly()
+    {
+        return stanza.createCopy();
+    }
+
+    @Benchmark
+    public Presence deleteExtension()
+    {
+        final Presence copy = stanza.createCopy();
+        copy.deleteExtension("info", Info.NAMESPACE);
+        return copy;
+    }
+
+    @Benchmark
+    public Presence strip()
+    {
+        final Presence copy = stanza.createCopy();
+        InfoElements.strip(copy.getElement());
+        return copy;
+    }
+
+    @Benchmark
+    public Presence deleteExtensionAndAdd()
+    {
+        final Presence copy = stanza.createCopy();
+        copy.deleteExtension("info", Info.NAMESPACE);
+        copy.getElement().add(info.asElement());
+        return copy;
+    }
+
+    @Benchmark
+    public Presence stripAndAdd()
+    {
+        final Presence copy = stanza.createCopy();
+        InfoElements.strip(copy.getElement());
+        copy.getElement().add(info.asElement());
+        return copy;
+    }
+}
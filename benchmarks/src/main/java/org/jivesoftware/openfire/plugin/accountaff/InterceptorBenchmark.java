@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.interceptor.PacketRejectedException;
+import org.jivesoftware.openfire.session.LocalClientSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmpp.packet.JID;
+import org.xmpp.packet.Message;
+import org.xmpp.packet.Packet;
+import org.xmpp.packet.Presence;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost that {@link EmbedInfoPacketInterceptor} adds to the routing of a stanza.
+ *
+ * The interceptor modifies the stanzas that it processes. Every invocation therefore operates on a copy of a
+ * pre-generated stanza. The cost of that copy is measured separately, by {@link #copyOnly()}, and should be subtracted
+ * from the other results.
+ *
+ * The 'realistic' mix of stanzas consists of chat messages (of which most are sent to contacts), presence updates
+ * (broadcast and directed) and occasional subscription requests, sent by registered as well as anonymous users. The
+ * other mixes each consist of one type of stanza, sent to non-contacts, which causes info to be added to every stanza.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterceptorBenchmark
+{
+    private static final int STANZAS = 4096; // a power of two.
+
+    @Param({"realistic", "message", "presence-directed", "presence-sub"})
+    public String mix;
+
+    private final EmbedInfoPacketInterceptor interceptor = new EmbedInfoPacketInterceptor();
+
+    private Packet[] stanzas;
+
+    private LocalClientSession[] sessions;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        BenchmarkFixture.setUp();
+        interceptor.start();
+
+        final Random random = new Random(42);
+        stanzas = new Packet[STANZAS];
+        sessions = new LocalClientSession[STANZAS];
+        for (int i = 0; i < STANZAS; i++) {
+            final boolean anonymous = "realistic".equals(mix) && random.nextInt(100) < 5;
+            final int index = random.nextInt(anonymous ? BenchmarkFixture.ANONYMOUS_USERS : BenchmarkFixture.USERS);
+            final JID from = BenchmarkFixture.address(anonymous ? BenchmarkFixture.anonymousUsername(index) : BenchmarkFixture.username(index), "resource");
+            final JID contact = BenchmarkFixture.address(BenchmarkFixture.username(BenchmarkFixture.contact(index, random.nextInt(BenchmarkFixture.CONTACTS))), null);
+            final JID stranger = new JID("stranger" + random.nextInt(1000), BenchmarkFixture.REMOTE_DOMAIN, null);
+
+            final String type;
+            if ("realistic".equals(mix)) {
+                final int roll = random.nextInt(100);
+                type = roll < 70 ? "message" : roll < 97 ? "presence-directed" : "presence-sub";
+            } else {
+                type = mix;
+            }
+
+            final Packet stanza;
+            switch (type) {
+                case "message":
+                    final Message message = new Message();
+                    message.setType(Message.Type.chat);
+                    message.setBody("Hello, this is a message of a typical length.");
+                    message.setTo(!"realistic".equals(mix) || random.nextInt(100) < 20 ? stranger : contact);
+                    stanza = message;
+                    break;
+                case "presence-directed":
+                    final Presence presence = new Presence();
+                    if (!"realistic".equals(mix) || random.nextInt(100) < 10) {
+                        presence.setTo(stranger);
+                    } // else: a broadcast presence update.
+                    stanza = presence;
+                    break;
+                case "presence-sub":
+                    final Presence subscribe = new Presence(Presence.Type.subscribe);
+                    subscribe.setTo(stranger);
+                    stanza = subscribe;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown mix: " + mix);
+            }
+            stanza.setFrom(from);
+            stanzas[i] = stanza;
+            sessions[i] = BenchmarkFixture.session(from, anonymous);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        interceptor.stop();
+    }
+
+    @Benchmark
+    public Packet copyOnly()
+    {
+        final int i = next++ & (STANZAS - 1);
+        return stanzas[i].createCopy();
+    }
+
+    @Benchmark
+    public Packet intercept() throws PacketRejectedException
+    {
+        final int i = next++ & (STANZAS - 1);
+        final Packet stanza = stanzas[i].createCopy();
+        interceptor.interceptPacket(stanza, sessions[i], true, false);
+        return stanza;
+    }
+}
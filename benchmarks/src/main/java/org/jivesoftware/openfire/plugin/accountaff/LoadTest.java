@@ -0,0 +1,731 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.IQRouter;
+import org.jivesoftware.openfire.XMPPServer;
+import org.jivesoftware.openfire.event.SessionEventDispatcher;
+import org.jivesoftware.openfire.session.LocalClientSession;
+import org.xmpp.packet.IQ;
+import org.xmpp.packet.JID;
+import org.xmpp.packet.Message;
+import org.xmpp.packet.Packet;
+import org.xmpp.packet.PacketError;
+import org.xmpp.packet.Presence;
+
+import javax.annotation.Nonnull;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Replays a mix of stanzas, queries and reconnects against the plugin, from many threads concurrently, and reports the
+ * throughput, latency and lock contention that results.
+ *
+ * Unlike the JMH benchmarks, which measure one code path at a time, this load test simulates a server with many
+ * connected sessions: every session is owned by one of the worker threads, which repeatedly picks one of its sessions
+ * and one of the operations of the mix. Stanzas are processed by {@link EmbedInfoPacketInterceptor}, queries by
+ * {@link IQInfoQueryHandler} and reconnects are simulated by dispatching session events. Openfire's managers are
+ * replaced by the in-memory stubs of {@link BenchmarkFixture}, so no database, network or XMPP server is used.
+ *
+ * Options are provided as <tt>--name=value</tt> arguments:
+ * <ul>
+ *     <li><tt>users</tt>: the amount of registered users, each of which has one session (default: 190000)</li>
+ *     <li><tt>anonymous</tt>: the amount of anonymous sessions (default: 10000)</li>
+ *     <li><tt>mix</tt>: one of {@link #MIXES}, or a list of weighted operations, such as <tt>message=80,query=20</tt> (default: realistic)</li>
+ *     <li><tt>strangers</tt>: the percentage of messages and presence stanzas that is addressed to non-contacts (default: 20)</li>
+ *     <li><tt>remote-queries</tt>: the percentage of queries that is sent by remote entities, rather than by local sessions (default: 50)</li>
+ *     <li><tt>remote-domains</tt>: the amount of domains across which the remote entities that send queries are spread (default: 100)</li>
+ *     <li><tt>ratelimit</tt>: <tt>off</tt> to disable the rate limiter, <tt>on</tt> to apply its default limits, or a factor by which its default rates and bursts are multiplied (default: off)</li>
+ *     <li><tt>threads</tt>: the amount of worker threads (default: twice the amount of processors)</li>
+ *     <li><tt>virtual-threads</tt>: use virtual threads as workers, if the JVM supports them (default: false)</li>
+ *     <li><tt>rate</tt>: the total amount of operations per second, or 0 to run as fast as possible (default: 0)</li>
+ *     <li><tt>warmup</tt>: the duration, in seconds, of the warm-up, which is not measured (default: 10)</li>
+ *     <li><tt>duration</tt>: the duration, in seconds, of the measurement (default: 60)</li>
+ * </ul>
+ *
+ * The rate limiter is disabled by default, so that the latency of queries reflects the cost of answering them, rather
+ * than that of rejecting them. Rejected queries are counted separately.
+ *
+ * When a rate is configured, latency is measured from the moment at which an operation was scheduled to start, rather
+ * than from the moment it actually started, so that delays caused by earlier, slow operations are included.
+ *
+ * Contention is reported for platform threads only: the thread management of the JVM does not cover virtual threads.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public final class LoadTest
+{
+    enum Operation
+    {
+        /**
+         * A chat message, sent to a contact or to a stranger.
+         */
+        message,
+
+        /**
+         * A presence update, broadcast or sent to a contact or to a stranger.
+         */
+        presence,
+
+        /**
+         * A subscription request, sent to a stranger.
+         */
+        subscribe,
+
+        /**
+         * A query for the info of a local account.
+         */
+        query,
+
+        /**
+         * A session that disconnects and immediately connects again.
+         */
+        reconnect
+    }
+
+    static final Map<String, String> MIXES = new LinkedHashMap<>();
+    static {
+        MIXES.put("realistic", "message=60,presence=30,subscribe=2,query=7,reconnect=1");
+        MIXES.put("presence-storm", "presence=90,query=5,reconnect=5");
+        MIXES.put("reconnect-storm", "reconnect=50,presence=45,query=5");
+        MIXES.put("subscribe-burst", "subscribe=80,presence=10,message=10");
+    }
+
+    /**
+     * The amount of stack frames that is inspected to attribute contention to a location.
+     */
+    private static final int STACK_DEPTH = 16;
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 10;
+
+    private final Map<String, String> options;
+
+    private final Operation[] operations;
+
+    private final int strangers;
+
+    private final int remoteQueries;
+
+    private final int remoteDomains;
+
+    private final EmbedInfoPacketInterceptor interceptor = new EmbedInfoPacketInterceptor();
+
+    private final IQInfoQueryHandler queryHandler = new IQInfoQueryHandler();
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+
+    /**
+     * Latency of queries that could not be answered from cache, measured until their response is routed.
+     */
+    private final LatencyHistogram deferredLatency = new LatencyHistogram();
+
+    private final Map<String, Long> deferred = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> queryOutcomes = new ConcurrentHashMap<>();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    private final Set<Long> workerThreadIds = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, LongAdder> hotspots = new ConcurrentHashMap<>();
+
+    private final Map<Thread.State, LongAdder> states = new ConcurrentHashMap<>();
+
+    private Connection[] connections;
+
+    private volatile boolean running;
+
+    private volatile boolean sampling;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final Map<String, String> options = new HashMap<>();
+        for (final String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Unrecognized argument '" + arg + "'. Provide options as --name=value.");
+                System.exit(1);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        // Needs to be set before the fixture is first used.
+        System.setProperty("raa.benchmark.users", options.getOrDefault("users", "190000"));
+        System.setProperty("raa.benchmark.anonymous-users", options.getOrDefault("anonymous", "10000"));
+
+        // Openfire's task engine uses threads that would otherwise keep the JVM running: exit explicitly.
+        try {
+            new LoadTest(options).run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    LoadTest(@Nonnull final Map<String, String> options)
+    {
+        this.options = options;
+        this.operations = parseMix(MIXES.getOrDefault(option("mix", "realistic"), option("mix", "realistic")));
+        this.strangers = Integer.parseInt(option("strangers", "20"));
+        this.remoteQueries = Integer.parseInt(option("remote-queries", "50"));
+        this.remoteDomains = Integer.parseInt(option("remote-domains", "100"));
+        if (remoteQueries > 0 && remoteDomains < 1) {
+            throw new IllegalArgumentException("Option 'remote-domains' must be at least 1 when remote queries are sent.");
+        }
+        for (final Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    @Nonnull
+    private String option(@Nonnull final String name, @Nonnull final String defaultValue)
+    {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Parses a mix such as <tt>message=80,query=20</tt> into a table, in which each operation occurs as often as its weight.
+     */
+    @Nonnull
+    static Operation[] parseMix(@Nonnull final String mix)
+    {
+        final List<Operation> result = new ArrayList<>();
+        for (final String entry : mix.split(",")) {
+            final String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Unable to parse '" + entry + "' in mix '" + mix + "'. Expected: operation=weight. Predefined mixes: " + MIXES.keySet());
+            }
+            final Operation operation = Operation.valueOf(parts[0].trim());
+            for (int i = 0; i < Integer.parseInt(parts[1].trim()); i++) {
+                result.add(operation);
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("Mix '" + mix + "' does not contain any operation.");
+        }
+        return result.toArray(new Operation[0]);
+    }
+
+    void run() throws Exception
+    {
+        System.out.printf("Setting up %d users and %d anonymous sessions...%n", BenchmarkFixture.USERS, BenchmarkFixture.ANONYMOUS_USERS);
+        BenchmarkFixture.setUp();
+        setUpRateLimiter(option("ratelimit", "off"));
+        setUpRouter();
+        interceptor.start();
+        LookupExecutor.getInstance().start();
+        QueryRateLimiter.getInstance().start();
+        connections = createConnections();
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads.isThreadContentionMonitoringSupported()) {
+            threads.setThreadContentionMonitoringEnabled(true);
+        }
+
+        final int workers = Math.min(connections.length, Integer.parseInt(option("threads", String.valueOf(2 * Runtime.getRuntime().availableProcessors()))));
+        final ExecutorService executor = createExecutor(workers, Boolean.parseBoolean(option("virtual-threads", "false")));
+        final long rate = Long.parseLong(option("rate", "0"));
+        final long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) * workers / rate : 0;
+
+        running = true;
+        for (int w = 0; w < workers; w++) {
+            final int first = (int) ((long) connections.length * w / workers);
+            final int last = (int) ((long) connections.length * (w + 1) / workers);
+            final String name = "w" + w;
+            executor.submit(() -> work(name, first, last, intervalNanos));
+        }
+        // Platform threads are registered when they are created, which is when the workers are submitted.
+        final boolean usesVirtualThreads = workerThreadIds.isEmpty();
+
+        final Duration warmup = Duration.ofSeconds(Long.parseLong(option("warmup", "10")));
+        final Duration duration = Duration.ofSeconds(Long.parseLong(option("duration", "60")));
+        System.out.printf("Warming up for %d s, using %d %s threads...%n", warmup.getSeconds(), workers, usesVirtualThreads ? "virtual" : "platform");
+        Thread.sleep(warmup.toMillis());
+
+        reset();
+        final Map<Long, ThreadInfo> before = threadInfo(threads);
+        final Thread sampler = new Thread(() -> sample(threads), "raa-load-sampler");
+        sampling = true;
+        sampler.setDaemon(true);
+        sampler.start();
+        System.out.printf("Measuring for %d s...%n", duration.getSeconds());
+        final long start = System.nanoTime();
+        Thread.sleep(duration.toMillis());
+        final long elapsed = System.nanoTime() - start;
+        final Map<Long, ThreadInfo> after = threadInfo(threads);
+        sampling = false;
+        running = false;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        sampler.join();
+
+        report(workers, usesVirtualThreads, elapsed, before, after);
+
+        QueryRateLimiter.getInstance().stop();
+        LookupExecutor.getInstance().stop();
+        interceptor.stop();
+    }
+
+    /**
+     * Disables the rate limiter, applies its default limits, or multiplies its default rates and bursts by a factor.
+     */
+    private static void setUpRateLimiter(@Nonnull final String mode)
+    {
+        switch (mode) {
+            case "off":
+                QueryRateLimiter.ENABLED.setValue(false);
+                break;
+            case "on":
+                QueryRateLimiter.ENABLED.setValue(true);
+                break;
+            default:
+                final int factor;
+                try {
+                    factor = Integer.parseInt(mode);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Unable to parse ratelimit '" + mode + "'. Expected: off, on, or a factor.", e);
+                }
+                if (factor < 1) {
+                    throw new IllegalArgumentException("Unable to parse ratelimit '" + mode + "'. A factor must be at least 1.");
+                }
+                QueryRateLimiter.ENABLED.setValue(true);
+                QueryRateLimiter.REQUESTER_RATE.setValue(QueryRateLimiter.REQUESTER_RATE.getDefaultValue() * factor);
+                QueryRateLimiter.REQUESTER_BURST.setValue(QueryRateLimiter.REQUESTER_BURST.getDefaultValue() * factor);
+                QueryRateLimiter.DOMAIN_RATE.setValue(QueryRateLimiter.DOMAIN_RATE.getDefaultValue() * factor);
+                QueryRateLimiter.DOMAIN_BURST.setValue(QueryRateLimiter.DOMAIN_BURST.getDefaultValue() * factor);
+                break;
+        }
+    }
+
+    /**
+     * Replaces the IQ router by a stub that records the latency of responses to queries that were answered asynchronously.
+     */
+    private void setUpRouter()
+    {
+        final IQRouter router = mock(IQRouter.class, withSettings().stubOnly().defaultAnswer(invocation -> {
+            if ("route".equals(invocation.getMethod().getName()) && invocation.getArgument(0) instanceof IQ) {
+                final IQ reply = invocation.getArgument(0);
+                final Long start = deferred.remove(reply.getID());
+                if (start != null) {
+                    deferredLatency.record(System.nanoTime() - start);
+                    countQueryOutcome(reply);
+                }
+                return null;
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        }));
+        when(XMPPServer.getInstance().getIQRouter()).thenReturn(router);
+    }
+
+    @Nonnull
+    private static Connection[] createConnections()
+    {
+        final Date created = new Date();
+        final Connection[] result = new Connection[BenchmarkFixture.USERS + BenchmarkFixture.ANONYMOUS_USERS];
+        for (int i = 0; i < BenchmarkFixture.USERS; i++) {
+            result[i] = new Connection(i, BenchmarkFixture.address(BenchmarkFixture.username(i), "resource"), false, created);
+        }
+        for (int i = 0; i < BenchmarkFixture.ANONYMOUS_USERS; i++) {
+            final Connection connection = new Connection(i, BenchmarkFixture.address(BenchmarkFixture.anonymousUsername(i), "resource"), true, created);
+            result[BenchmarkFixture.USERS + i] = connection;
+            SessionEventDispatcher.dispatchEvent(connection.session, SessionEventDispatcher.EventType.anonymous_session_created);
+        }
+
+        // Interleave anonymous and registered sessions, so that every worker owns some of each.
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = result.length - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final Connection swap = result[i];
+            result[i] = result[j];
+            result[j] = swap;
+        }
+        return result;
+    }
+
+    @Nonnull
+    private ExecutorService createExecutor(final int workers, final boolean virtual)
+    {
+        if (virtual) {
+            try {
+                final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) method.invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                System.out.println("Virtual threads are not available in this JVM. Using platform threads instead.");
+            }
+        }
+        final AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(workers, runnable -> {
+            final Thread thread = new Thread(runnable, "raa-load-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            workerThreadIds.add(thread.getId());
+            return thread;
+        });
+    }
+
+    /**
+     * Repeatedly performs a random operation for a random session out of a range of sessions.
+     */
+    private void work(@Nonnull final String name, final int first, final int last, final long intervalNanos)
+    {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        long sequence = 0;
+        long next = System.nanoTime();
+        while (running) {
+            final long start;
+            if (intervalNanos > 0) {
+                final long delay = next - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                start = next;
+                next += intervalNanos;
+            } else {
+                start = -1;
+            }
+
+            final Connection connection = connections[random.nextInt(first, last)];
+            final Operation operation = operations[random.nextInt(operations.length)];
+            try {
+                perform(operation, connection, name + "-" + sequence++, start, random);
+            } catch (Throwable t) {
+                failures.increment();
+                firstFailure.compareAndSet(null, t);
+            }
+        }
+    }
+
+    private void perform(@Nonnull final Operation operation, @Nonnull final Connection connection, @Nonnull final String id, final long scheduled, @Nonnull final ThreadLocalRandom random) throws Exception
+    {
+        final Packet stanza;
+        switch (operation) {
+            case message:
+                final Message message = new Message();
+                message.setType(Message.Type.chat);
+                message.setBody("Hello, this is a message of a typical length.");
+                message.setTo(random.nextInt(100) < strangers ? stranger(random) : contact(connection, random));
+                stanza = message;
+                break;
+            case presence:
+                final Presence presence = new Presence();
+                final int roll = random.nextInt(100);
+                if (roll < strangers) {
+                    presence.setTo(stranger(random));
+                } else if (roll % 2 == 0) {
+                    presence.setTo(contact(connection, random));
+                } // else: a broadcast presence update.
+                stanza = presence;
+                break;
+            case subscribe:
+                final Presence subscribe = new Presence(Presence.Type.subscribe);
+                subscribe.setTo(stranger(random));
+                stanza = subscribe;
+                break;
+            case query:
+                final IQ query = new IQ(IQ.Type.get, id);
+                query.setTo(target(random));
+                query.setChildElement("query", Info.NAMESPACE);
+                stanza = query;
+                break;
+            case reconnect:
+                stanza = null;
+                break;
+            default:
+                throw new IllegalStateException("Unknown operation: " + operation);
+        }
+        if (operation == Operation.query && random.nextInt(100) < remoteQueries) {
+            stanza.setFrom(requester(random));
+        } else if (stanza != null) {
+            stanza.setFrom(connection.address);
+        }
+
+        final long start = scheduled < 0 ? System.nanoTime() : scheduled;
+        switch (operation) {
+            case query:
+                deferred.put(id, start);
+                final IQ reply = queryHandler.handleIQ((IQ) stanza);
+                if (reply != null) {
+                    deferred.remove(id);
+                    countQueryOutcome(reply);
+                }
+                break;
+            case reconnect:
+                connection.reconnect();
+                break;
+            default:
+                interceptor.interceptPacket(stanza, connection.session, true, false);
+                break;
+        }
+        latencies.get(operation).record(System.nanoTime() - start);
+    }
+
+    @Nonnull
+    private static JID stranger(@Nonnull final ThreadLocalRandom random)
+    {
+        return new JID("stranger" + random.nextInt(1000), BenchmarkFixture.REMOTE_DOMAIN, null);
+    }
+
+    /**
+     * Returns a remote entity that sends a query, from one of the remote domains.
+     */
+    @Nonnull
+    private JID requester(@Nonnull final ThreadLocalRandom random)
+    {
+        return new JID("requester" + random.nextInt(1000), "domain" + random.nextInt(remoteDomains) + "." + BenchmarkFixture.REMOTE_DOMAIN, "resource");
+    }
+
+    /**
+     * Returns a contact of the user of a session. Anonymous users have no contacts: for them, a random local user is returned.
+     */
+    @Nonnull
+    private static JID contact(@Nonnull final Connection connection, @Nonnull final ThreadLocalRandom random)
+    {
+        final int index = connection.anonymous ? random.nextInt(BenchmarkFixture.USERS) : BenchmarkFixture.contact(connection.index, random.nextInt(BenchmarkFixture.CONTACTS));
+        return BenchmarkFixture.address(BenchmarkFixture.username(index), null);
+    }
+
+    /**
+     * Returns the address of a random local account, which is anonymous in proportion to the amount of anonymous sessions.
+     */
+    @Nonnull
+    private static JID target(@Nonnull final ThreadLocalRandom random)
+    {
+        final int index = random.nextInt(BenchmarkFixture.USERS + BenchmarkFixture.ANONYMOUS_USERS);
+        return index < BenchmarkFixture.USERS
+            ? BenchmarkFixture.address(BenchmarkFixture.username(index), null)
+            : BenchmarkFixture.address(BenchmarkFixture.anonymousUsername(index - BenchmarkFixture.USERS), null);
+    }
+
+    private void countQueryOutcome(@Nonnull final IQ reply)
+    {
+        final PacketError error = reply.getError();
+        final String outcome = error == null ? "result" : error.getCondition().toXMPP();
+        queryOutcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Discards everything that was recorded during the warm-up.
+     */
+    private void reset()
+    {
+        latencies.values().forEach(LatencyHistogram::reset);
+        deferredLatency.reset();
+        queryOutcomes.clear();
+        failures.reset();
+        QueryRateLimiter.getInstance().resetCounts();
+    }
+
+    @Nonnull
+    private Map<Long, ThreadInfo> threadInfo(@Nonnull final ThreadMXBean threads)
+    {
+        final Map<Long, ThreadInfo> result = new HashMap<>();
+        for (final ThreadInfo info : threads.getThreadInfo(workerThreadIds.stream().mapToLong(Long::longValue).toArray())) {
+            if (info != null) {
+                result.put(info.getThreadId(), info);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Periodically inspects all threads, counting the locations at which threads are blocked, or at which worker threads
+     * wait for a lock.
+     */
+    private void sample(@Nonnull final ThreadMXBean threads)
+    {
+        final long self = Thread.currentThread().getId();
+        while (sampling) {
+            for (final ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds(), STACK_DEPTH)) {
+                if (info == null || info.getThreadId() == self) {
+                    continue;
+                }
+                final boolean worker = workerThreadIds.contains(info.getThreadId());
+                if (worker) {
+                    states.computeIfAbsent(info.getThreadState(), k -> new LongAdder()).increment();
+                }
+                // Idle threads of pools wait for work: only waiting worker threads indicate contention.
+                final boolean contended = info.getThreadState() == Thread.State.BLOCKED || (worker && info.getLockName() != null && info.getThreadState() != Thread.State.RUNNABLE);
+                if (contended) {
+                    hotspots.computeIfAbsent(describe(info), k -> new LongAdder()).increment();
+                }
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(SAMPLE_INTERVAL_MILLIS));
+        }
+    }
+
+    /**
+     * Describes the lock that a thread waits for, and the location in the code of the plugin (if any) that caused it.
+     */
+    @Nonnull
+    private static String describe(@Nonnull final ThreadInfo info)
+    {
+        final String lock = info.getLockName() == null ? "?" : info.getLockName().replaceAll("@[0-9a-f]+$", "");
+        final StackTraceElement[] stack = info.getStackTrace();
+        StackTraceElement location = stack.length > 0 ? stack[0] : null;
+        for (final StackTraceElement frame : stack) {
+            final String className = frame.getClassName();
+            if (className.startsWith(LoadTest.class.getPackage().getName() + ".") && !className.startsWith(LoadTest.class.getName()) && !className.startsWith(BenchmarkFixture.class.getName())) {
+                location = frame;
+                break;
+            }
+        }
+        return (info.getThreadState() == Thread.State.BLOCKED ? "blocked on " : "waiting for ") + lock + " at " + location;
+    }
+
+    private void report(final int workers, final boolean virtual, final long elapsedNanos, @Nonnull final Map<Long, ThreadInfo> before, @Nonnull final Map<Long, ThreadInfo> after)
+    {
+        final double seconds = elapsedNanos / 1e9;
+        System.out.println();
+        System.out.printf("Mix: %s, %d sessions (%d anonymous), %d workers (%s threads), %.1f s%n",
+            option("mix", "realistic"), connections.length, BenchmarkFixture.ANONYMOUS_USERS, workers, virtual ? "virtual" : "platform", seconds);
+        System.out.println();
+        System.out.printf("%-18s %12s %12s %10s %10s %10s %10s %10s %10s%n", "Operation", "Count", "Ops/s", "Mean us", "p50 us", "p90 us", "p99 us", "p99.9 us", "Max us");
+        long total = 0;
+        for (final Map.Entry<Operation, LatencyHistogram> entry : latencies.entrySet()) {
+            total += printLatency(entry.getKey().name(), entry.getValue(), seconds);
+        }
+        printLatency("query (deferred)", deferredLatency, seconds);
+        System.out.printf("%-18s %12d %12.0f%n", "total", total, total / seconds);
+        System.out.println();
+
+        final Map<String, Long> outcomes = new HashMap<>();
+        queryOutcomes.forEach((outcome, count) -> outcomes.put(outcome, count.sum()));
+        System.out.printf("Query responses: %s (%d still pending)%n", outcomes, deferred.size());
+        System.out.printf("Queries rejected by the rate limiter (%s): %s%n", option("ratelimit", "off"), QueryRateLimiter.getInstance().getRejectedCounts());
+        System.out.printf("Info cache: %d entries, hit ratio %.3f%n", InfoCache.getInstance().getSize(), InfoCache.getInstance().getHitRatio());
+        System.out.printf("Lookup executor: %d completed, %d rejected, %d timed out%n", LookupExecutor.getInstance().getCompletedCount(), LookupExecutor.getInstance().getRejectedCount(), LookupExecutor.getInstance().getTimedOutCount());
+        if (failures.sum() > 0) {
+            System.out.printf("Failed operations: %d. First failure:%n", failures.sum());
+            firstFailure.get().printStackTrace(System.out);
+        }
+        System.out.println();
+
+        if (virtual) {
+            System.out.println("Contention of virtual threads is not reported. Record a flight recording (jdk.JavaMonitorEnter, jdk.VirtualThreadPinned) instead.");
+            return;
+        }
+
+        long blockedCount = 0;
+        long blockedTime = 0;
+        long waitedCount = 0;
+        long waitedTime = 0;
+        for (final Map.Entry<Long, ThreadInfo> entry : after.entrySet()) {
+            final ThreadInfo start = before.get(entry.getKey());
+            blockedCount += entry.getValue().getBlockedCount() - (start == null ? 0 : start.getBlockedCount());
+            blockedTime += entry.getValue().getBlockedTime() - (start == null ? 0 : start.getBlockedTime());
+            waitedCount += entry.getValue().getWaitedCount() - (start == null ? 0 : start.getWaitedCount());
+            waitedTime += entry.getValue().getWaitedTime() - (start == null ? 0 : start.getWaitedTime());
+        }
+        System.out.printf("Worker threads were blocked %d times (%d ms) and waited %d times (%d ms).%n", blockedCount, blockedTime, waitedCount, waitedTime);
+
+        final long samples = states.values().stream().mapToLong(LongAdder::sum).sum();
+        final StringBuilder distribution = new StringBuilder();
+        states.forEach((state, count) -> distribution.append(String.format(" %s %.1f%%", state, 100.0 * count.sum() / Math.max(1, samples))));
+        System.out.printf("States of worker threads in %d samples:%s%n", samples, distribution);
+
+        System.out.println("Contention hotspots (samples in which a thread was blocked on, or waiting for, a lock):");
+        if (hotspots.isEmpty()) {
+            System.out.println("  (none)");
+        }
+        hotspots.entrySet().stream()
+            .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+            .limit(10)
+            .forEach(entry -> System.out.printf("  %8d  %s%n", entry.getValue().sum(), entry.getKey()));
+    }
+
+    private static long printLatency(@Nonnull final String name, @Nonnull final LatencyHistogram histogram, final double seconds)
+    {
+        final LatencyHistogram.Summary summary = histogram.getSummary();
+        if (summary.getCount() > 0) {
+            System.out.printf("%-18s %12d %12.0f %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", name, summary.getCount(), summary.getCount() / seconds,
+                summary.getMean(), summary.getP50(), summary.getP90(), summary.getP99(), summary.getP999(), summary.getMax());
+        }
+        return summary.getCount();
+    }
+
+    /**
+     * A simulated client connection, which is owned by exactly one worker.
+     */
+    private static final class Connection
+    {
+        private final int index;
+
+        private final JID address;
+
+        private final boolean anonymous;
+
+        private volatile Date created;
+
+        private final LocalClientSession session;
+
+        Connection(final int index, @Nonnull final JID address, final boolean anonymous, @Nonnull final Date created)
+        {
+            this.index = index;
+            this.address = address;
+            this.anonymous = anonymous;
+            this.created = created;
+            // Answers without stubbing, which keeps these stand-ins small enough to create hundreds of thousands of them.
+            this.session = mock(LocalClientSession.class, withSettings().stubOnly().defaultAnswer(invocation -> {
+                switch (invocation.getMethod().getName()) {
+                    case "getAddress":
+                        return this.address;
+                    case "isAnonymousUser":
+                        return this.anonymous;
+                    case "getCreationDate":
+                        return this.created;
+                    default:
+                        return RETURNS_DEFAULTS.answer(invocation);
+                }
+            }));
+        }
+
+        /**
+         * Dispatches the events of the session being closed, and of a new session of the same user being created.
+         */
+        void reconnect()
+        {
+            SessionEventDispatcher.dispatchEvent(session, anonymous ? SessionEventDispatcher.EventType.anonymous_session_destroyed : SessionEventDispatcher.EventType.session_destroyed);
+            created = new Date();
+            SessionEventDispatcher.dispatchEvent(session, anonymous ? SessionEventDispatcher.EventType.anonymous_session_created : SessionEventDispatcher.EventType.session_created);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xmpp.packet.JID;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookup of account info, per type of account.
+ *
+ * {@link #lookup()} measures {@link InfoDAO#lookup(JID)}, which is served from the (warmed up) cache. {@link #compute()}
+ * measures the computation that takes place when info is not cached.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark
+{
+    private static final int ACCOUNTS = 64; // a power of two.
+
+    @Param({"registered", "member", "admin", "anonymous", "not-found", "non-local"})
+    public String account;
+
+    private JID[] addresses;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        BenchmarkFixture.setUp();
+
+        addresses = new JID[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            switch (account) {
+                case "registered":
+                    addresses[i] = BenchmarkFixture.address(BenchmarkFixture.username(4 * (BenchmarkFixture.ADMINS + i) + 1), null);
+                    break;
+                case "member":
+                    addresses[i] = BenchmarkFixture.address(BenchmarkFixture.username(4 * (BenchmarkFixture.ADMINS + i)), null);
+                    break;
+                case "admin":
+                    addresses[i] = BenchmarkFixture.address(BenchmarkFixture.username(i % BenchmarkFixture.ADMINS), null);
+                    break;
+                case "anonymous":
+                    addresses[i] = BenchmarkFixture.address(BenchmarkFixture.anonymousUsername(i % BenchmarkFixture.ANONYMOUS_USERS), null);
+                    break;
+                case "not-found":
+                    addresses[i] = BenchmarkFixture.address("unknown" + i, null);
+                    break;
+                case "non-local":
+                    addresses[i] = new JID("user" + i, BenchmarkFixture.REMOTE_DOMAIN, null);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown type of account: " + account);
+            }
+            InfoDAO.lookup(addresses[i]);
+        }
+    }
+
+    @Benchmark
+    public Info lookup()
+    {
+        return InfoDAO.lookup(addresses[next++ & (ACCOUNTS - 1)]);
+    }
+
+    @Benchmark
+    public Info compute()
+    {
+        return InfoDAO.compute(addresses[next++ & (ACCOUNTS - 1)]);
+    }
+}
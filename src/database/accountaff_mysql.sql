@@ -0,0 +1,18 @@
+CREATE TABLE ofRaaAffiliation (
+  username              VARCHAR(64)     NOT NULL,
+  affiliation           VARCHAR(16),
+  CONSTRAINT ofRaaAffiliation_pk PRIMARY KEY (username)
+);
+CREATE INDEX ofRaaAffiliation_aff_idx ON ofRaaAffiliation (affiliation);
+
+CREATE TABLE ofRaaTrust (
+  username              VARCHAR(64)     NOT NULL,
+  rosterSize            INTEGER         NOT NULL,
+  accepted              INTEGER         NOT NULL,
+  pending               INTEGER         NOT NULL,
+  messages              BIGINT          NOT NULL,
+  score                 INTEGER         NOT NULL,
+  CONSTRAINT ofRaaTrust_pk PRIMARY KEY (username)
+);
+
+INSERT INTO ofVersion (name, version) VALUES ('accountaff', 1);
@@ -0,0 +1,20 @@
+CREATE TABLE ofRaaAffiliation (
+  username              VARCHAR2(64)    NOT NULL,
+  affiliation           VARCHAR2(16),
+  CONSTRAINT ofRaaAffiliation_pk PRIMARY KEY (username)
+);
+CREATE INDEX ofRaaAffiliation_aff_idx ON ofRaaAffiliation (affiliation);
+
+CREATE TABLE ofRaaTrust (
+  username              VARCHAR2(64)    NOT NULL,
+  rosterSize            INTEGER         NOT NULL,
+  accepted              INTEGER         NOT NULL,
+  pending               INTEGER         NOT NULL,
+  messages              NUMBER(19)      NOT NULL,
+  score                 INTEGER         NOT NULL,
+  CONSTRAINT ofRaaTrust_pk PRIMARY KEY (username)
+);
+
+INSERT INTO ofVersion (name, version) VALUES ('accountaff', 1);
+
+commit;
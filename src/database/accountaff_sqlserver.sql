@@ -0,0 +1,18 @@
+CREATE TABLE ofRaaAffiliation (
+  username              NVARCHAR(64)    NOT NULL,
+  affiliation           NVARCHAR(16),
+  CONSTRAINT ofRaaAffiliation_pk PRIMARY KEY (username)
+);
+CREATE INDEX ofRaaAffiliation_aff_idx ON ofRaaAffiliation (affiliation);
+
+CREATE TABLE ofRaaTrust (
+  username              NVARCHAR(64)    NOT NULL,
+  rosterSize            INT             NOT NULL,
+  accepted              INT             NOT NULL,
+  pending               INT             NOT NULL,
+  messages              BIGINT          NOT NULL,
+  score                 INT             NOT NULL,
+  CONSTRAINT ofRaaTrust_pk PRIMARY KEY (username)
+);
+
+INSERT INTO ofVersion (name, version) VALUES ('accountaff', 1);
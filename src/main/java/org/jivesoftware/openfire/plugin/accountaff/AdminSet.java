@@ -0,0 +1,362 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.XMPPServer;
+import org.jivesoftware.openfire.admin.AdminManager;
+import org.jivesoftware.openfire.event.GroupEventDispatcher;
+import org.jivesoftware.openfire.event.GroupEventListener;
+import org.jivesoftware.openfire.group.Group;
+import org.jivesoftware.util.JiveGlobals;
+import org.jivesoftware.util.PropertyEventDispatcher;
+import org.jivesoftware.util.PropertyEventListener;
+import org.jivesoftware.util.SystemProperty;
+import org.jivesoftware.util.TaskEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.JID;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A snapshot of the usernames of local server administrators.
+ *
+ * Checking if a user is an administrator is a lookup in an immutable set, without locking. The set is replaced as a whole
+ * when it is refreshed. Changes to the properties that configure administrators, and changes to the group that is used
+ * by the group-based admin provider, cause Openfire to reload its administrators from the admin provider, after which
+ * the set is refreshed. As not all admin providers cause such events to be fired (e.g. when administrators are defined
+ * in an external directory), the set is also refreshed periodically. A periodic refresh causes Openfire to reload its
+ * administrators from the admin provider first, as the administrators that Openfire has loaded would otherwise not
+ * reflect such changes.
+ *
+ * After every refresh, the cached info of users that became, or stopped being, an administrator is invalidated.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class AdminSet implements PropertyEventListener, GroupEventListener
+{
+    private static final Logger Log = LoggerFactory.getLogger(AdminSet.class);
+
+    public static final SystemProperty<Duration> REFRESH_INTERVAL = SystemProperty.Builder.ofType(Duration.class)
+        .setKey("plugin.raa.admins.refresh-interval")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(Duration.ofMinutes(5))
+        .setChronoUnit(ChronoUnit.SECONDS)
+        .setDynamic(false)
+        .build();
+
+    /**
+     * The class name of the Openfire admin provider that defines administrators as the members of a group.
+     */
+    private static final String GROUP_BASED_ADMIN_PROVIDER = "org.jivesoftware.openfire.admin.GroupBasedAdminProvider";
+
+    /**
+     * The property that defines the name of the group used by the group-based admin provider, and its default value.
+     */
+    private static final String GROUP_BASED_ADMIN_GROUP_PROPERTY = "provider.group.groupBasedAdminProvider.groupName";
+    private static final String GROUP_BASED_ADMIN_GROUP_DEFAULT = "openfire-administrators";
+
+    private static final AdminSet INSTANCE = new AdminSet();
+
+    public static AdminSet getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * The usernames of local administrators, or null when no snapshot is available.
+     */
+    private volatile Set<String> admins;
+
+    /**
+     * Used to coalesce refreshes that are requested while one is pending.
+     */
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+    private final AtomicLong refreshCount = new AtomicLong();
+
+    private volatile Instant lastRefresh;
+
+    private volatile Duration lastRefreshDuration = Duration.ZERO;
+
+    private TimerTask refreshTask;
+
+    private AdminSet()
+    {}
+
+    public synchronized void start()
+    {
+        refresh();
+
+        PropertyEventDispatcher.addListener(this);
+        GroupEventDispatcher.addListener(this);
+
+        final Duration interval = REFRESH_INTERVAL.getValue();
+        if (interval.isZero() || interval.isNegative()) {
+            Log.debug("Periodic refresh of the set of administrators is disabled.");
+        } else {
+            refreshTask = new TimerTask() {
+                @Override
+                public void run() {
+                    refresh(true);
+                }
+            };
+            TaskEngine.getInstance().scheduleAtFixedRate(refreshTask, interval.toMillis(), interval.toMillis());
+        }
+    }
+
+    public synchronized void stop()
+    {
+        if (refreshTask != null) {
+            TaskEngine.getInstance().cancelScheduledTask(refreshTask);
+            refreshTask = null;
+        }
+        GroupEventDispatcher.removeListener(this);
+        PropertyEventDispatcher.removeListener(this);
+        admins = null;
+    }
+
+    /**
+     * Checks if a local user is a server administrator.
+     *
+     * @param username the name of the user.
+     * @return true if the user is an administrator, otherwise false.
+     */
+    public boolean contains(@Nonnull final String username)
+    {
+        final Set<String> admins = this.admins;
+        if (admins == null) {
+            // Not started (yet).
+            return AdminManager.getInstance().isUserAdmin(username, true);
+        }
+        return admins.contains(username);
+    }
+
+    /**
+     * Returns the usernames of all local administrators.
+     *
+     * @return an unmodifiable set of usernames.
+     */
+    @Nonnull
+    public Set<String> getUsernames()
+    {
+        final Set<String> admins = this.admins;
+        return admins != null ? admins : load();
+    }
+
+    /**
+     * Schedules Openfire to reload its administrators from the admin provider, after which the set is refreshed, unless
+     * this is pending already.
+     */
+    public void requestRefresh()
+    {
+        if (refreshPending.compareAndSet(false, true)) {
+            TaskEngine.getInstance().submit(() -> {
+                refreshPending.set(false);
+                refresh(true);
+            });
+        }
+    }
+
+    /**
+     * Replaces the set with the administrators that Openfire has loaded, invalidating the cached info of users for which
+     * administrator status changed.
+     */
+    public void refresh()
+    {
+        refresh(false);
+    }
+
+    private synchronized void refresh(final boolean reloadProvider)
+    {
+        final long start = System.nanoTime();
+        final Set<String> previous = admins;
+        final Set<String> current;
+        try {
+            if (reloadProvider) {
+                AdminManager.getInstance().refreshAdminAccounts();
+            }
+            current = load();
+        } catch (RuntimeException e) {
+            Log.warn("Unable to refresh the set of administrators. Continuing to use the previous set.", e);
+            return;
+        }
+        admins = current;
+
+        if (previous != null && !previous.equals(current)) {
+            for (final String username : previous) {
+                if (!current.contains(username)) {
+                    InfoCache.getInstance().invalidate(username);
+                }
+            }
+            for (final String username : current) {
+                if (!previous.contains(username)) {
+                    InfoCache.getInstance().invalidate(username);
+                }
+            }
+        }
+
+        lastRefreshDuration = Duration.ofNanos(System.nanoTime() - start);
+        lastRefresh = Instant.now();
+        refreshCount.incrementAndGet();
+        Log.trace("Refreshed the set of administrators ({} users) in {}.", current.size(), lastRefreshDuration);
+    }
+
+    @Nonnull
+    private static Set<String> load()
+    {
+        final Set<String> result = new HashSet<>();
+        for (final JID admin : AdminManager.getInstance().getAdminAccounts()) {
+            if (admin.getNode() != null && XMPPServer.getInstance().isLocal(admin)) {
+                result.add(admin.getNode());
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    public int getSize()
+    {
+        final Set<String> admins = this.admins;
+        return admins == null ? 0 : admins.size();
+    }
+
+    public long getRefreshCount()
+    {
+        return refreshCount.get();
+    }
+
+    @Nullable
+    public Instant getLastRefresh()
+    {
+        return lastRefresh;
+    }
+
+    @Nonnull
+    public Duration getLastRefreshDuration()
+    {
+        return lastRefreshDuration;
+    }
+
+    /**
+     * Checks if a property is used by Openfire to configure server administrators.
+     */
+    static boolean isAdminProperty(@Nullable final String property)
+    {
+        return property != null && (property.startsWith("admin.authorized") || property.startsWith("provider.admin."));
+    }
+
+    /**
+     * Checks if a group is used by Openfire to define server administrators.
+     */
+    static boolean isAdminGroup(@Nullable final Group group)
+    {
+        if (group == null || !GROUP_BASED_ADMIN_PROVIDER.equals(JiveGlobals.getProperty("provider.admin.className"))) {
+            return false;
+        }
+        return group.getName().equals(JiveGlobals.getProperty(GROUP_BASED_ADMIN_GROUP_PROPERTY, GROUP_BASED_ADMIN_GROUP_DEFAULT));
+    }
+
+    @Override
+    public void propertySet(final String property, final Map<String, Object> params)
+    {
+        if (isAdminProperty(property)) {
+            requestRefresh();
+        }
+    }
+
+    @Override
+    public void propertyDeleted(final String property, final Map<String, Object> params)
+    {
+        if (isAdminProperty(property)) {
+            requestRefresh();
+        }
+    }
+
+    @Override
+    public void xmlPropertySet(final String property, final Map<String, Object> params)
+    {
+        if (isAdminProperty(property)) {
+            requestRefresh();
+        }
+    }
+
+    @Override
+    public void xmlPropertyDeleted(final String property, final Map<String, Object> params)
+    {
+        if (isAdminProperty(property)) {
+            requestRefresh();
+        }
+    }
+
+    @Override
+    public void groupCreated(final Group group, final Map params)
+    {}
+
+    @Override
+    public void groupDeleting(final Group group, final Map params)
+    {
+        if (isAdminGroup(group)) {
+            requestRefresh();
+        }
+    }
+
+    @Override
+    public void groupModified(final Group group, final Map params)
+    {}
+
+    @Override
+    public void memberAdded(final Group group, final Map params)
+    {
+        if (isAdminGroup(group)) {
+            requestRefresh();
+        }
+    }
+
+    @Override
+    public void memberRemoved(final Group group, final Map params)
+    {
+        if (isAdminGroup(group)) {
+            requestRefresh();
+        }
+    }
+
+    @Override
+    public void adminAdded(final Group group, final Map params)
+    {
+        if (isAdminGroup(group)) {
+            requestRefresh();
+        }
+    }
+
+    @Override
+    public void adminRemoved(final Group group, final Map params)
+    {
+        if (isAdminGroup(group)) {
+            requestRefresh();
+        }
+    }
+}
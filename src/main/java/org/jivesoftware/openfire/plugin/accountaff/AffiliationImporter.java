@@ -0,0 +1,390 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.database.DbConnectionManager;
+import org.jivesoftware.openfire.user.DefaultUserProvider;
+import org.jivesoftware.openfire.user.UserManager;
+import org.jivesoftware.openfire.user.UserNotFoundException;
+import org.jivesoftware.util.JiveGlobals;
+import org.jivesoftware.util.TaskEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.JID;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configures the affiliations of many users at once, from CSV data.
+ *
+ * Every line of the data contains a username and an affiliation, separated by a comma. An empty affiliation (or the
+ * value <tt>none</tt>) removes the affiliation that is configured for the user. Empty lines, lines starting with
+ * <tt>#</tt> and a header line are ignored. Affiliations are validated with the same rules that are applied when they
+ * are read (see {@link InfoDAO#isConfigurable(Affiliation)}). When a username occurs more than once, the last occurrence
+ * is used.
+ *
+ * All lines are validated before any change is made. Valid lines are then applied in the background, in batches. Before
+ * a batch is applied, the existence of its users is checked in bulk (with one query per batch, when Openfire's default
+ * user provider is in use). Lines for users that do not exist are counted as invalid lines, and are not applied. Every
+ * batch is written by the {@link AffiliationProvider} in one transaction, after which the cached info of the users in
+ * that batch is invalidated (with one message to other cluster nodes per batch). Progress can be observed through the
+ * getters of this class. Only one import can be in progress at a time.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class AffiliationImporter implements Runnable
+{
+    private static final Logger Log = LoggerFactory.getLogger(AffiliationImporter.class);
+
+    /**
+     * The amount of users of which the affiliations are configured in one transaction.
+     */
+    static final int BATCH_SIZE = 1000;
+
+    /**
+     * The maximum amount of validation errors that are retained for display.
+     */
+    private static final int MAX_ERRORS = 100;
+
+    private static final String LOAD_USERNAMES = "SELECT username FROM ofUser WHERE username IN ";
+
+    private static final AffiliationImporter INSTANCE = new AffiliationImporter();
+
+    public static AffiliationImporter getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private Map<String, Affiliation> pending;
+
+    private volatile boolean running;
+
+    private volatile int total;
+
+    private final AtomicInteger processed = new AtomicInteger();
+
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private volatile int invalid;
+
+    private volatile List<String> errors = Collections.emptyList();
+
+    private volatile Instant started;
+
+    private volatile Instant finished;
+
+    private AffiliationImporter()
+    {}
+
+    /**
+     * Validates CSV data, and starts applying the valid lines in the background.
+     *
+     * @param csv the data to import.
+     * @return false if the import was not started, as another import is in progress, otherwise true.
+     * @throws IOException when the data cannot be read.
+     * @throws UnsupportedOperationException when the affiliation provider that is in use is read-only.
+     */
+    public synchronized boolean start(@Nonnull final Reader csv) throws IOException
+    {
+        if (running) {
+            return false;
+        }
+        if (InfoDAO.getAffiliationProvider().isReadOnly()) {
+            throw new UnsupportedOperationException("The affiliation provider that is in use (" + InfoDAO.getAffiliationProvider().getClass().getName() + ") is read-only.");
+        }
+
+        final Map<String, Affiliation> changes = new LinkedHashMap<>();
+        final List<String> validationErrors = new ArrayList<>();
+        int invalidLines = 0;
+        try (final BufferedReader reader = new BufferedReader(csv)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                final String error = parse(line, lineNumber, changes);
+                if (error != null) {
+                    invalidLines++;
+                    if (validationErrors.size() < MAX_ERRORS) {
+                        validationErrors.add(error);
+                    }
+                }
+            }
+        }
+
+        pending = changes;
+        total = changes.size();
+        processed.set(0);
+        failed.set(0);
+        invalid = invalidLines;
+        errors = Collections.unmodifiableList(validationErrors);
+        started = Instant.now();
+        finished = null;
+        running = true;
+        Log.info("Starting import of the affiliations of {} users ({} invalid lines ignored).", total, invalidLines);
+        TaskEngine.getInstance().submit(this);
+        return true;
+    }
+
+    /**
+     * Parses one line of CSV data, adding the change that it describes to the provided map.
+     *
+     * @return a description of the problem, or null if the line is valid (or ignored).
+     */
+    @Nullable
+    static String parse(@Nonnull final String line, final int lineNumber, @Nonnull final Map<String, Affiliation> changes)
+    {
+        final String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return null;
+        }
+        final int separator = trimmed.indexOf(',');
+        final String username = unquote(separator < 0 ? trimmed : trimmed.substring(0, separator));
+        final String value = separator < 0 ? "" : unquote(trimmed.substring(separator + 1));
+        if (lineNumber == 1 && username.equalsIgnoreCase("username")) {
+            return null;
+        }
+
+        final String node;
+        try {
+            node = JID.nodeprep(username);
+        } catch (IllegalArgumentException e) {
+            return "Line " + lineNumber + ": '" + username + "' is not a valid username.";
+        }
+        if (node == null || node.isEmpty()) {
+            return "Line " + lineNumber + ": no username.";
+        }
+
+        if (value.isEmpty() || value.equalsIgnoreCase("none")) {
+            changes.put(node, null);
+            return null;
+        }
+        final Affiliation affiliation;
+        try {
+            affiliation = Affiliation.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return "Line " + lineNumber + ": '" + value + "' is not a recognized affiliation.";
+        }
+        if (!InfoDAO.isConfigurable(affiliation)) {
+            return "Line " + lineNumber + ": the affiliation '" + value + "' cannot be configured.";
+        }
+        changes.put(node, affiliation);
+        return null;
+    }
+
+    @Nonnull
+    private static String unquote(@Nonnull final String value)
+    {
+        final String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    @Override
+    public void run()
+    {
+        final Map<String, Affiliation> changes;
+        synchronized (this) {
+            changes = pending;
+            pending = null;
+        }
+        try {
+            final AffiliationProvider provider = InfoDAO.getAffiliationProvider();
+            final Map<String, Affiliation> batch = new LinkedHashMap<>();
+            for (final Map.Entry<String, Affiliation> entry : changes.entrySet()) {
+                batch.put(entry.getKey(), entry.getValue());
+                if (batch.size() == BATCH_SIZE) {
+                    apply(provider, batch);
+                    batch.clear();
+                }
+            }
+            apply(provider, batch);
+            Log.info("Finished import of the affiliations of {} users ({} failed).", processed.get(), failed.get());
+        } catch (RuntimeException e) {
+            Log.warn("Import of affiliations failed after processing {} of {} users.", processed.get(), total, e);
+        } finally {
+            finished = Instant.now();
+            running = false;
+        }
+    }
+
+    private void apply(@Nonnull final AffiliationProvider provider, @Nonnull final Map<String, Affiliation> batch)
+    {
+        if (batch.isEmpty()) {
+            return;
+        }
+        final Set<String> unknown = findUnknownUsers(batch.keySet());
+        if (!unknown.isEmpty()) {
+            // Configuring an affiliation for a user that does not exist would create an orphaned record.
+            final List<String> validationErrors = new ArrayList<>(errors);
+            for (final String username : unknown) {
+                batch.remove(username);
+                if (validationErrors.size() < MAX_ERRORS) {
+                    validationErrors.add("User '" + username + "' does not exist.");
+                }
+            }
+            errors = Collections.unmodifiableList(validationErrors);
+            invalid += unknown.size();
+            processed.addAndGet(unknown.size());
+            if (batch.isEmpty()) {
+                return;
+            }
+        }
+        if (provider.setAffiliations(batch)) {
+            AffiliationStatistics.getInstance().update(batch);
+        } else {
+            failed.addAndGet(batch.size());
+        }
+        // Even when the batch failed, part of it may have been applied (by providers that do not use a transaction).
+        InfoCache.getInstance().invalidateClusterWide(batch.keySet());
+        processed.addAndGet(batch.size());
+        Log.debug("Import of affiliations progress: {} of {} users processed.", processed.get(), total);
+    }
+
+    /**
+     * Returns the usernames of a collection that do not belong to an existing user.
+     */
+    @Nonnull
+    private static Set<String> findUnknownUsers(@Nonnull final Collection<String> usernames)
+    {
+        final Set<String> result = new HashSet<>(usernames);
+        if (usesDefaultUserProvider()) {
+            final StringBuilder sql = new StringBuilder(LOAD_USERNAMES).append('(');
+            for (int i = 0; i < usernames.size(); i++) {
+                sql.append(i == 0 ? "?" : ",?");
+            }
+            sql.append(')');
+
+            Connection con = null;
+            PreparedStatement pstmt = null;
+            ResultSet rs = null;
+            try {
+                con = DbConnectionManager.getConnection();
+                pstmt = con.prepareStatement(sql.toString());
+                int index = 1;
+                for (final String username : usernames) {
+                    pstmt.setString(index++, username);
+                }
+                rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    result.remove(rs.getString(1));
+                }
+                return result;
+            } catch (SQLException e) {
+                Log.warn("Unable to check the existence of users in bulk. Falling back to checking them individually.", e);
+                result.addAll(usernames);
+            } finally {
+                DbConnectionManager.closeConnection(rs, pstmt, con);
+            }
+        }
+
+        // Another user provider is in use (or the bulk check failed): check user by user.
+        result.removeIf(username -> {
+            try {
+                UserManager.getInstance().getUser(username);
+                return true;
+            } catch (UserNotFoundException e) {
+                return false;
+            }
+        });
+        return result;
+    }
+
+    private static boolean usesDefaultUserProvider()
+    {
+        final String providerClassName = JiveGlobals.getProperty("provider.user.className", DefaultUserProvider.class.getName());
+        return DefaultUserProvider.class.getName().equals(providerClassName);
+    }
+
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    public int getTotal()
+    {
+        return total;
+    }
+
+    public int getProcessed()
+    {
+        return processed.get();
+    }
+
+    /**
+     * Returns the amount of users of which the affiliation could not be configured, as writing the batch that contained
+     * them failed.
+     *
+     * @return an amount of users.
+     */
+    public int getFailed()
+    {
+        return failed.get();
+    }
+
+    /**
+     * Returns the amount of lines that were ignored as they could not be validated, including lines for users that do
+     * not exist (which are counted as the import progresses).
+     *
+     * @return an amount of lines.
+     */
+    public int getInvalid()
+    {
+        return invalid;
+    }
+
+    /**
+     * Returns descriptions of the lines that were ignored as they could not be validated (limited to the first 100).
+     *
+     * @return descriptions of problems.
+     */
+    @Nonnull
+    public List<String> getErrors()
+    {
+        return errors;
+    }
+
+    @Nullable
+    public Instant getStarted()
+    {
+        return started;
+    }
+
+    @Nullable
+    public Instant getFinished()
+    {
+        return finished;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Provides the affiliations that are explicitly configured for registered users.
+ *
+ * Openfire cannot determine whether an account belongs to a trusted member of the server by itself. An implementation of
+ * this interface provides that information. Users for which no affiliation is provided are reported to have the
+ * 'registered' affiliation (unless they are server administrators, which is determined independently).
+ *
+ * Implementations must have a public no-argument constructor. The implementation that is used is configured through the
+ * <tt>plugin.raa.affiliation.provider.className</tt> property. Implementations must not provide the 'anonymous' or
+ * 'admin' affiliations, which cannot be configured (see {@link InfoDAO#parseConfiguredAffiliation(String, String)}).
+ *
+ * Providers that are not read-only can be used to configure affiliations in bulk (see {@link AffiliationImporter}).
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public interface AffiliationProvider
+{
+    /**
+     * Returns the affiliation that is configured for a user.
+     *
+     * @param username the name of the user.
+     * @return the configured affiliation, or null if no affiliation is configured for the user.
+     */
+    @Nullable
+    Affiliation getAffiliation(@Nonnull String username);
+
+    /**
+     * Returns the affiliations that are configured for a collection of users.
+     *
+     * @param usernames the names of the users.
+     * @return the configured affiliations keyed by username. Users for which no affiliation is configured are absent.
+     */
+    @Nonnull
+    Map<String, Affiliation> getAffiliations(@Nonnull Collection<String> usernames);
+
+    /**
+     * Checks if this provider can only be used to obtain affiliations.
+     *
+     * @return true if affiliations cannot be configured through this provider, otherwise false.
+     */
+    default boolean isReadOnly()
+    {
+        return true;
+    }
+
+    /**
+     * Configures the affiliations of many users at once.
+     *
+     * Implementations should apply all changes with as few writes as possible, and atomically. Callers are responsible
+     * for invalidating data that depends on the affiliations (this method does not cause user events to be dispatched).
+     *
+     * @param affiliations the affiliations to configure, keyed by username. A null value removes the configured affiliation of the user.
+     * @return true if the changes were applied, false if they could not be applied.
+     * @throws UnsupportedOperationException when this provider is read-only.
+     */
+    default boolean setAffiliations(@Nonnull Map<String, Affiliation> affiliations)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Releases the resources that are held by this provider. Invoked when this provider is replaced by another, and when
+     * the plugin is unloaded. The provider is not used afterwards.
+     */
+    default void close()
+    {}
+}
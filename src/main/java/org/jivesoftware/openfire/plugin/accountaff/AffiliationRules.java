@@ -0,0 +1,582 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.XMPPServer;
+import org.jivesoftware.openfire.auth.AuthFactory;
+import org.jivesoftware.openfire.event.GroupEventDispatcher;
+import org.jivesoftware.openfire.event.GroupEventListener;
+import org.jivesoftware.openfire.group.Group;
+import org.jivesoftware.openfire.group.GroupManager;
+import org.jivesoftware.openfire.group.GroupNotFoundException;
+import org.jivesoftware.openfire.user.User;
+import org.jivesoftware.openfire.user.UserManager;
+import org.jivesoftware.util.SystemProperty;
+import org.jivesoftware.util.TaskEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.JID;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Derives the affiliation of registered users from declarative rules.
+ *
+ * Rules are configured in the <tt>plugin.raa.rules</tt> property, separated by semicolons or line breaks. Each rule
+ * consists of an affiliation and one or more conditions, all of which need to be met for the rule to apply. The first
+ * rule that applies to a user determines its affiliation. For example:
+ *
+ * <pre>
+ * member if group=staff
+ * member if email=*&#64;example.org and age&gt;=30
+ * </pre>
+ *
+ * The following conditions are supported (values can contain <tt>*</tt> as a wildcard):
+ * <ul>
+ *     <li><tt>group=name</tt>, <tt>group!=name</tt>: the user is (not) a member or administrator of a group.</li>
+ *     <li><tt>email=value</tt>, <tt>email!=value</tt>: the email address of the user (matched case-insensitively).</li>
+ *     <li><tt>property.name=value</tt>, <tt>property.name!=value</tt>: the value of a user property.</li>
+ *     <li><tt>age&gt;=days</tt>, <tt>age&gt;days</tt>, <tt>age&lt;=days</tt>, <tt>age&lt;days</tt>: the age of the account, in days.</li>
+ *     <li><tt>user-provider=name</tt>, <tt>auth-provider=name</tt>: the (simple or fully qualified) class name of the user or auth provider.</li>
+ * </ul>
+ *
+ * The configuration is compiled once, whenever it changes, into an array of rules. Conditions that do not depend on the
+ * user (such as the provider type) are resolved during compilation. The other conditions of a rule are ordered so that
+ * the cheapest are evaluated first. The members of the groups that are referenced by rules are obtained once per group
+ * (rather than once per user), and kept in memory. They are updated when a group changes, and periodically, as not
+ * all group providers fire events (e.g. when groups are defined in an external directory). When a cluster is in use,
+ * group changes are picked up by other cluster nodes on their next periodic refresh.
+ *
+ * Rules are evaluated only for registered users that are not administrators, and that do not have an affiliation that
+ * is provided by the {@link AffiliationProvider}. Rules can only derive affiliations that can be configured (see
+ * {@link InfoDAO#isConfigurable(Affiliation)}).
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class AffiliationRules implements GroupEventListener
+{
+    private static final Logger Log = LoggerFactory.getLogger(AffiliationRules.class);
+
+    public static final SystemProperty<String> RULES = SystemProperty.Builder.ofType(String.class)
+        .setKey("plugin.raa.rules")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue("")
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Duration> REFRESH_INTERVAL = SystemProperty.Builder.ofType(Duration.class)
+        .setKey("plugin.raa.rules.refresh-interval")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(Duration.ofMinutes(15))
+        .setChronoUnit(ChronoUnit.SECONDS)
+        .setDynamic(false)
+        .build();
+
+    private static final Pattern RULE = Pattern.compile("^(\\w+)\\s+if\\s+(.+)$", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern CONDITION = Pattern.compile("^([\\w-]+(?:\\.[^!=<>]+)?)\\s*(!=|>=|<=|=|>|<)\\s*(.*)$");
+
+    private static final Pattern AND = Pattern.compile("\\s+and\\s+", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * The relative cost of evaluating a condition, used to evaluate cheap conditions first.
+     */
+    private static final int COST_ATTRIBUTE = 0;
+    private static final int COST_GROUP = 1;
+    private static final int COST_PROPERTY = 2;
+
+    private static final AffiliationRules INSTANCE = new AffiliationRules();
+
+    public static AffiliationRules getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private volatile Rule[] rules = new Rule[0];
+
+    /**
+     * The usernames of local members of each group that is referenced by the rules, keyed by group name.
+     */
+    private volatile Map<String, GroupMembers> groups = Collections.emptyMap();
+
+    private final Consumer<String> rulesListener = value -> compile();
+
+    private TimerTask refreshTask;
+
+    private AffiliationRules()
+    {}
+
+    public synchronized void start()
+    {
+        compile();
+        RULES.addListener(rulesListener);
+        GroupEventDispatcher.addListener(this);
+
+        final Duration interval = REFRESH_INTERVAL.getValue();
+        if (interval.isZero() || interval.isNegative()) {
+            Log.debug("Periodic refresh of the members of groups that are referenced by affiliation rules is disabled.");
+        } else {
+            refreshTask = new TimerTask() {
+                @Override
+                public void run() {
+                    groups.values().forEach(AffiliationRules::reload);
+                }
+            };
+            TaskEngine.getInstance().scheduleAtFixedRate(refreshTask, interval.toMillis(), interval.toMillis());
+        }
+    }
+
+    public synchronized void stop()
+    {
+        if (refreshTask != null) {
+            TaskEngine.getInstance().cancelScheduledTask(refreshTask);
+            refreshTask = null;
+        }
+        GroupEventDispatcher.removeListener(this);
+        RULES.removeListener(rulesListener);
+        rules = new Rule[0];
+        groups = Collections.emptyMap();
+    }
+
+    /**
+     * Returns the affiliation that the rules derive for a registered user.
+     *
+     * @param user the user for which to evaluate the rules.
+     * @return the affiliation of the first rule that applies to the user, or null if no rule applies.
+     */
+    @Nullable
+    public Affiliation evaluate(@Nonnull final User user)
+    {
+        final Rule[] rules = this.rules;
+        for (final Rule rule : rules) {
+            try {
+                if (rule.condition.test(user)) {
+                    return rule.affiliation;
+                }
+            } catch (RuntimeException e) {
+                Log.warn("Unable to evaluate affiliation rule '{}' for user '{}'. Skipping this rule.", rule.definition, user.getUsername(), e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the amount of rules that are in effect.
+     *
+     * @return an amount of rules.
+     */
+    public int getRuleCount()
+    {
+        return rules.length;
+    }
+
+    /**
+     * Compiles the configured rules, replacing the rules that are in effect, after which all cached info is invalidated.
+     */
+    synchronized void compile()
+    {
+        final String configuration = RULES.getValue();
+        final List<Rule> result = new ArrayList<>();
+        final Map<String, GroupMembers> referenced = new HashMap<>();
+        if (configuration != null) {
+            for (final String definition : configuration.split("[;\\r\\n]+")) {
+                if (!definition.trim().isEmpty()) {
+                    final Rule rule = compileRule(definition.trim(), referenced);
+                    if (rule != null) {
+                        result.add(rule);
+                    }
+                }
+            }
+        }
+
+        // Only the groups that are not already known need to be loaded.
+        final Map<String, GroupMembers> previous = groups;
+        for (final GroupMembers members : referenced.values()) {
+            final GroupMembers known = previous.get(members.name);
+            members.usernames = known == null ? load(members.name) : known.usernames;
+        }
+
+        groups = referenced;
+        rules = result.toArray(new Rule[0]);
+        Log.info("Compiled {} affiliation rules, referencing {} groups.", rules.length, referenced.size());
+        InfoCache.getInstance().invalidateAll();
+    }
+
+    /**
+     * Compiles one rule.
+     *
+     * @param definition the rule, for example: <tt>member if group=staff</tt>
+     * @param groups the groups that are referenced by rules, to which groups referenced by this rule are added.
+     * @return the rule, or null if the rule is invalid, or can never apply.
+     */
+    @Nullable
+    static Rule compileRule(@Nonnull final String definition, @Nonnull final Map<String, GroupMembers> groups)
+    {
+        final Matcher matcher = RULE.matcher(definition);
+        if (!matcher.matches()) {
+            Log.warn("Ignoring affiliation rule '{}', as it is not of the form '<affiliation> if <condition> [and <condition>]'.", definition);
+            return null;
+        }
+
+        final Affiliation affiliation;
+        try {
+            affiliation = Affiliation.valueOf(matcher.group(1).toLowerCase());
+        } catch (IllegalArgumentException e) {
+            Log.warn("Ignoring affiliation rule '{}', as '{}' is not an affiliation.", definition, matcher.group(1));
+            return null;
+        }
+        if (!InfoDAO.isConfigurable(affiliation)) {
+            Log.warn("Ignoring affiliation rule '{}', as the affiliation '{}' cannot be derived by rules.", definition, affiliation);
+            return null;
+        }
+
+        final List<Condition> conditions = new ArrayList<>();
+        for (final String expression : AND.split(matcher.group(2).trim())) {
+            final Condition condition;
+            try {
+                condition = compileCondition(expression.trim(), groups);
+            } catch (IllegalArgumentException e) {
+                Log.warn("Ignoring affiliation rule '{}', as its condition '{}' is invalid: {}", definition, expression, e.getMessage());
+                return null;
+            }
+            if (condition.constant != null) {
+                if (!condition.constant) {
+                    Log.debug("Ignoring affiliation rule '{}', as its condition '{}' is never met.", definition, expression);
+                    return null;
+                }
+                // Always met: no need to evaluate it.
+                continue;
+            }
+            conditions.add(condition);
+        }
+
+        conditions.sort(Comparator.comparingInt(condition -> condition.cost));
+        Predicate<User> predicate = user -> true;
+        if (!conditions.isEmpty()) {
+            predicate = conditions.get(0).predicate;
+            for (int i = 1; i < conditions.size(); i++) {
+                predicate = predicate.and(conditions.get(i).predicate);
+            }
+        }
+        return new Rule(definition, affiliation, predicate);
+    }
+
+    @Nonnull
+    private static Condition compileCondition(@Nonnull final String expression, @Nonnull final Map<String, GroupMembers> groups)
+    {
+        final Matcher matcher = CONDITION.matcher(expression);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("expected <name><operator><value>");
+        }
+        final String name = matcher.group(1).trim();
+        final String operator = matcher.group(2);
+        final String value = matcher.group(3).trim();
+
+        if (name.equals("age")) {
+            final long thresholdMillis;
+            try {
+                thresholdMillis = TimeUnit.DAYS.toMillis(Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("the age of an account must be expressed as a number of days");
+            }
+            final LongPredicate comparison;
+            switch (operator) {
+                case ">=":
+                    comparison = age -> age >= thresholdMillis;
+                    break;
+                case ">":
+                    comparison = age -> age > thresholdMillis;
+                    break;
+                case "<=":
+                    comparison = age -> age <= thresholdMillis;
+                    break;
+                case "<":
+                    comparison = age -> age < thresholdMillis;
+                    break;
+                default:
+                    throw new IllegalArgumentException("the age of an account can only be compared with >=, >, <= or <");
+            }
+            return new Condition(COST_ATTRIBUTE, user -> comparison.test(System.currentTimeMillis() - user.getCreationDate().getTime()));
+        }
+
+        final boolean negated;
+        switch (operator) {
+            case "=":
+                negated = false;
+                break;
+            case "!=":
+                negated = true;
+                break;
+            default:
+                throw new IllegalArgumentException("'" + name + "' can only be compared with = or !=");
+        }
+
+        if (name.equals("group")) {
+            final GroupMembers members = groups.computeIfAbsent(value, GroupMembers::new);
+            return new Condition(COST_GROUP, user -> members.usernames.contains(user.getUsername()) != negated);
+        }
+        if (name.equals("email")) {
+            final Predicate<String> glob = glob(value, true);
+            return new Condition(COST_ATTRIBUTE, user -> glob.test(user.getEmail()) != negated);
+        }
+        if (name.startsWith("property.")) {
+            final String property = name.substring("property.".length()).trim();
+            final Predicate<String> glob = glob(value, false);
+            return new Condition(COST_PROPERTY, user -> glob.test(user.getProperties().get(property)) != negated);
+        }
+        if (name.equals("user-provider")) {
+            return new Condition(matchesClass(UserManager.getUserProvider(), value) != negated);
+        }
+        if (name.equals("auth-provider")) {
+            return new Condition(matchesClass(AuthFactory.getAuthProvider(), value) != negated);
+        }
+        throw new IllegalArgumentException("'" + name + "' is not a recognized input");
+    }
+
+    private static boolean matchesClass(@Nullable final Object instance, @Nonnull final String pattern)
+    {
+        if (instance == null) {
+            return false;
+        }
+        final Predicate<String> glob = glob(pattern, false);
+        return glob.test(instance.getClass().getName()) || glob.test(instance.getClass().getSimpleName());
+    }
+
+    /**
+     * Creates a predicate that matches values against a pattern, in which <tt>*</tt> matches any sequence of
+     * characters. Common patterns (without a wildcard, or with only a leading or trailing wildcard) are matched
+     * without using regular expressions. Null values never match.
+     */
+    @Nonnull
+    static Predicate<String> glob(@Nonnull final String pattern, final boolean ignoreCase)
+    {
+        final int wildcards = pattern.length() - pattern.replace("*", "").length();
+        if (wildcards == 0) {
+            return value -> value != null && (ignoreCase ? value.equalsIgnoreCase(pattern) : value.equals(pattern));
+        }
+        if (pattern.equals("*")) {
+            return value -> value != null;
+        }
+        if (wildcards == 1 && pattern.startsWith("*")) {
+            final String suffix = pattern.substring(1);
+            return value -> value != null && value.length() >= suffix.length() && value.regionMatches(ignoreCase, value.length() - suffix.length(), suffix, 0, suffix.length());
+        }
+        if (wildcards == 1 && pattern.endsWith("*")) {
+            final String prefix = pattern.substring(0, pattern.length() - 1);
+            return value -> value != null && value.regionMatches(ignoreCase, 0, prefix, 0, prefix.length());
+        }
+        final StringBuilder regex = new StringBuilder();
+        for (final String part : pattern.split("\\*", -1)) {
+            if (regex.length() > 0) {
+                regex.append(".*");
+            }
+            if (!part.isEmpty()) {
+                regex.append(Pattern.quote(part));
+            }
+        }
+        final Pattern compiled = Pattern.compile(regex.toString(), ignoreCase ? Pattern.CASE_INSENSITIVE : 0);
+        return value -> value != null && compiled.matcher(value).matches();
+    }
+
+    /**
+     * Obtains the usernames of the local members and administrators of a group.
+     */
+    @Nonnull
+    private static Set<String> load(@Nonnull final String groupName)
+    {
+        final Group group;
+        try {
+            group = GroupManager.getInstance().getGroup(groupName);
+        } catch (GroupNotFoundException e) {
+            Log.warn("The group '{}' that is referenced by an affiliation rule does not exist.", groupName);
+            return Collections.emptySet();
+        }
+        final Set<String> result = new HashSet<>();
+        addLocalUsernames(group.getMembers(), result);
+        addLocalUsernames(group.getAdmins(), result);
+        Log.debug("Loaded {} local members of group '{}', which is referenced by affiliation rules.", result.size(), groupName);
+        return Collections.unmodifiableSet(result);
+    }
+
+    private static void addLocalUsernames(@Nonnull final Iterable<JID> addresses, @Nonnull final Set<String> usernames)
+    {
+        for (final JID address : addresses) {
+            if (address.getNode() != null && XMPPServer.getInstance().isLocal(address)) {
+                usernames.add(address.getNode());
+            }
+        }
+    }
+
+    /**
+     * Reloads the members of a group, after which the cached info of users that joined or left the group is invalidated.
+     */
+    private static void reload(@Nonnull final GroupMembers members)
+    {
+        final Set<String> previous = members.usernames;
+        final Set<String> current = load(members.name);
+        members.usernames = current;
+
+        final Set<String> changed = new HashSet<>(current);
+        changed.removeAll(previous);
+        for (final String username : previous) {
+            if (!current.contains(username)) {
+                changed.add(username);
+            }
+        }
+        if (!changed.isEmpty()) {
+            Log.debug("Membership of group '{}' changed for {} users. Invalidating their cached info.", members.name, changed.size());
+            InfoCache.getInstance().invalidate(changed);
+        }
+    }
+
+    private void refresh(@Nullable final String groupName)
+    {
+        final GroupMembers members = groupName == null ? null : groups.get(groupName);
+        if (members != null) {
+            reload(members);
+        }
+    }
+
+    @Override
+    public void groupCreated(final Group group, final Map params)
+    {
+        refresh(group.getName());
+    }
+
+    @Override
+    public void groupDeleting(final Group group, final Map params)
+    {
+        final GroupMembers members = groups.get(group.getName());
+        if (members != null) {
+            final Set<String> previous = members.usernames;
+            members.usernames = Collections.emptySet();
+            InfoCache.getInstance().invalidate(previous);
+        }
+    }
+
+    @Override
+    public void groupModified(final Group group, final Map params)
+    {
+        // A group that is renamed might now (or no longer) match the name that is used by a rule.
+        if ("nameModified".equals(params.get("type"))) {
+            final Object originalName = params.get("originalValue");
+            refresh(originalName == null ? null : originalName.toString());
+            refresh(group.getName());
+        }
+    }
+
+    @Override
+    public void memberAdded(final Group group, final Map params)
+    {
+        refresh(group.getName());
+    }
+
+    @Override
+    public void memberRemoved(final Group group, final Map params)
+    {
+        refresh(group.getName());
+    }
+
+    @Override
+    public void adminAdded(final Group group, final Map params)
+    {
+        refresh(group.getName());
+    }
+
+    @Override
+    public void adminRemoved(final Group group, final Map params)
+    {
+        refresh(group.getName());
+    }
+
+    /**
+     * A compiled rule.
+     */
+    static final class Rule
+    {
+        private final String definition;
+
+        final Affiliation affiliation;
+
+        final Predicate<User> condition;
+
+        Rule(@Nonnull final String definition, @Nonnull final Affiliation affiliation, @Nonnull final Predicate<User> condition)
+        {
+            this.definition = definition;
+            this.affiliation = affiliation;
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * A compiled condition, which is either constant, or a predicate with a relative cost.
+     */
+    private static final class Condition
+    {
+        private final int cost;
+
+        private final Predicate<User> predicate;
+
+        private final Boolean constant;
+
+        Condition(final int cost, @Nonnull final Predicate<User> predicate)
+        {
+            this.cost = cost;
+            this.predicate = predicate;
+            this.constant = null;
+        }
+
+        Condition(final boolean constant)
+        {
+            this.cost = COST_ATTRIBUTE;
+            this.predicate = user -> constant;
+            this.constant = constant;
+        }
+    }
+
+    /**
+     * The usernames of the local members of a group.
+     */
+    static final class GroupMembers
+    {
+        private final String name;
+
+        private volatile Set<String> usernames = Collections.emptySet();
+
+        GroupMembers(@Nonnull final String name)
+        {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.event.UserEventDispatcher;
+import org.jivesoftware.openfire.event.UserEventListener;
+import org.jivesoftware.openfire.user.User;
+import org.jivesoftware.openfire.user.UserManager;
+import org.jivesoftware.openfire.user.UserNotFoundException;
+import org.jivesoftware.util.SystemProperty;
+import org.jivesoftware.util.TaskEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maintains the amount of accounts per {@link Affiliation}, for display purposes.
+ *
+ * The amounts are computed once in the background when the plugin starts, and periodically thereafter, by iterating over
+ * all users in pages, obtaining their configured affiliations in bulk. In between, the amounts are updated incrementally
+ * by user events. Obtaining the amounts never iterates over users.
+ *
+ * Only the affiliations that are explicitly configured, or derived by {@link AffiliationRules}, are retained (which, for
+ * most servers, is a small subset of all users). The amount of administrators and anonymous users are obtained from {@link AdminSet} and
+ * {@link AnonymousSessionIndex}. All other users are counted as 'registered'.
+ *
+ * As user events are dispatched only on the cluster node on which they occur, amounts on other nodes can lag behind
+ * until the next periodic refresh. The same applies to changes that are made to affiliations without Openfire's
+ * knowledge (e.g. directly in the database table used by {@link JdbcAffiliationProvider}), and to group memberships
+ * that affect the outcome of rules.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class AffiliationStatistics implements UserEventListener
+{
+    private static final Logger Log = LoggerFactory.getLogger(AffiliationStatistics.class);
+
+    public static final SystemProperty<Duration> REFRESH_INTERVAL = SystemProperty.Builder.ofType(Duration.class)
+        .setKey("plugin.raa.statistics.refresh-interval")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(Duration.ofHours(6))
+        .setChronoUnit(ChronoUnit.MINUTES)
+        .setDynamic(false)
+        .build();
+
+    private static final int PAGE_SIZE = 500;
+
+    private static final AffiliationStatistics INSTANCE = new AffiliationStatistics();
+
+    public static AffiliationStatistics getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * The amounts, or null if they have not been computed yet.
+     */
+    private volatile Counts counts;
+
+    private volatile Instant lastRefresh;
+
+    private volatile TimerTask refreshTask;
+
+    private AffiliationStatistics()
+    {}
+
+    public synchronized void start()
+    {
+        UserEventDispatcher.addListener(this);
+
+        final Duration interval = REFRESH_INTERVAL.getValue();
+        refreshTask = new TimerTask() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        };
+        if (interval.isZero() || interval.isNegative()) {
+            Log.debug("Periodic refresh of the amount of accounts per affiliation is disabled.");
+            TaskEngine.getInstance().schedule(refreshTask, 0);
+        } else {
+            TaskEngine.getInstance().scheduleAtFixedRate(refreshTask, 0, interval.toMillis());
+        }
+    }
+
+    public synchronized void stop()
+    {
+        if (refreshTask != null) {
+            TaskEngine.getInstance().cancelScheduledTask(refreshTask);
+            refreshTask = null;
+        }
+        UserEventDispatcher.removeListener(this);
+        counts = null;
+    }
+
+    /**
+     * Recomputes the amounts, by iterating over all users.
+     */
+    public void refresh()
+    {
+        final long start = System.currentTimeMillis();
+        try {
+            final Counts result = new Counts();
+            final AffiliationProvider provider = InfoDAO.getAffiliationProvider();
+            int offset = 0;
+            while (refreshTask != null) {
+                final Collection<User> page = UserManager.getInstance().getUsers(offset, PAGE_SIZE);
+                if (page.isEmpty()) {
+                    break;
+                }
+                final List<String> usernames = new ArrayList<>(page.size());
+                for (final User user : page) {
+                    usernames.add(user.getUsername());
+                }
+                final Map<String, Affiliation> configured = provider.getAffiliations(usernames);
+                for (final User user : page) {
+                    final Affiliation affiliation = configured.get(user.getUsername());
+                    result.set(user.getUsername(), affiliation != null ? affiliation : AffiliationRules.getInstance().evaluate(user));
+                }
+                result.users.addAndGet(page.size());
+                offset += page.size();
+            }
+            counts = result;
+            lastRefresh = Instant.now();
+            Log.debug("Computed the amount of accounts per affiliation for {} users in {} ms.", result.users.get(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            Log.warn("Unable to compute the amount of accounts per affiliation.", e);
+        }
+    }
+
+    /**
+     * Returns the amount of accounts per affiliation.
+     *
+     * @return amounts of accounts, keyed by affiliation, or an empty map if these have not been computed yet.
+     */
+    @Nonnull
+    public Map<String, Integer> getCounts()
+    {
+        final Map<String, Integer> result = new LinkedHashMap<>();
+        final Counts counts = this.counts;
+        if (counts == null) {
+            return result;
+        }
+
+        // Administrators are reported as such, regardless of the affiliation that is configured for them.
+        final Map<Affiliation, Integer> configured = new EnumMap<>(Affiliation.class);
+        counts.perAffiliation.forEach((affiliation, count) -> configured.put(affiliation, count.get()));
+        int admins = 0;
+        for (final String admin : AdminSet.getInstance().getUsernames()) {
+            final Affiliation affiliation = counts.configured.get(admin);
+            if (affiliation != null) {
+                configured.merge(affiliation, -1, Integer::sum);
+            }
+            admins++;
+        }
+        final int member = configured.getOrDefault(Affiliation.member, 0);
+
+        result.put(Affiliation.anonymous.name(), AnonymousSessionIndex.getInstance().getLocalSize() + AnonymousSessionIndex.getInstance().getRemoteSize());
+        result.put(Affiliation.registered.name(), Math.max(0, counts.users.get() - admins - member));
+        result.put(Affiliation.member.name(), member);
+        result.put(Affiliation.admin.name(), admins);
+        return result;
+    }
+
+    @Nullable
+    public Instant getLastRefresh()
+    {
+        return lastRefresh;
+    }
+
+    /**
+     * Updates the amounts after affiliations have been configured in bulk.
+     *
+     * @param affiliations the configured affiliations, keyed by username. A null value denotes a removed affiliation.
+     */
+    public void update(@Nonnull final Map<String, Affiliation> affiliations)
+    {
+        final Counts counts = this.counts;
+        if (counts != null) {
+            affiliations.forEach(counts::set);
+        }
+    }
+
+    private void update(@Nonnull final String username)
+    {
+        final Counts counts = this.counts;
+        if (counts != null) {
+            Affiliation affiliation = InfoDAO.getAffiliationProvider().getAffiliation(username);
+            if (affiliation == null && AffiliationRules.getInstance().getRuleCount() > 0) {
+                try {
+                    affiliation = AffiliationRules.getInstance().evaluate(UserManager.getInstance().getUser(username));
+                } catch (UserNotFoundException e) {
+                    Log.trace("Unable to evaluate affiliation rules for user '{}', as the user does not exist.", username);
+                }
+            }
+            counts.set(username, affiliation);
+        }
+    }
+
+    @Override
+    public void userCreated(final User user, final Map<String, Object> params)
+    {
+        final Counts counts = this.counts;
+        if (counts != null) {
+            counts.users.incrementAndGet();
+            update(user.getUsername());
+        }
+    }
+
+    @Override
+    public void userDeleting(final User user, final Map<String, Object> params)
+    {
+        final Counts counts = this.counts;
+        if (counts != null) {
+            counts.users.decrementAndGet();
+            counts.set(user.getUsername(), null);
+        }
+    }
+
+    @Override
+    public void userModified(final User user, final Map<String, Object> params)
+    {
+        // Includes changes to user properties, such as 'RAA Affiliation'.
+        update(user.getUsername());
+    }
+
+    /**
+     * The configured affiliations of all users, and the amount of users per configured affiliation.
+     */
+    private static class Counts
+    {
+        final AtomicInteger users = new AtomicInteger();
+
+        final Map<String, Affiliation> configured = new ConcurrentHashMap<>();
+
+        final Map<Affiliation, AtomicInteger> perAffiliation = new EnumMap<>(Affiliation.class);
+
+        Counts()
+        {
+            for (final Affiliation affiliation : Affiliation.values()) {
+                perAffiliation.put(affiliation, new AtomicInteger());
+            }
+        }
+
+        void set(@Nonnull final String username, @Nullable final Affiliation affiliation)
+        {
+            configured.compute(username, (key, previous) -> {
+                if (previous != null) {
+                    perAffiliation.get(previous).decrementAndGet();
+                }
+                if (affiliation != null) {
+                    perAffiliation.get(affiliation).incrementAndGet();
+                }
+                return affiliation;
+            });
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.SessionManager;
+import org.jivesoftware.openfire.XMPPServer;
+import org.jivesoftware.openfire.cluster.ClusterEventListener;
+import org.jivesoftware.openfire.cluster.ClusterManager;
+import org.jivesoftware.openfire.cluster.NodeID;
+import org.jivesoftware.openfire.event.SessionEventDispatcher;
+import org.jivesoftware.openfire.event.SessionEventListener;
+import org.jivesoftware.openfire.session.ClientSession;
+import org.jivesoftware.openfire.session.LocalClientSession;
+import org.jivesoftware.openfire.session.Session;
+import org.jivesoftware.util.cache.CacheFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.JID;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the usernames of anonymous users that are currently connected, and the creation date of their session.
+ *
+ * Sessions that are local to this cluster node are indexed in a map that is private to this node. When a cluster is in
+ * use, each node replicates its sessions to all other nodes by means of cluster tasks (see {@link AnonymousSessionTask}).
+ * Each node keeps the replicated sessions in memory, grouped by the node that owns them. As a result, a check for an
+ * anonymous user never needs to leave the node on which it is performed.
+ *
+ * The index is kept current by session events and cluster events. When the plugin starts, and when this node joins a
+ * cluster, the sessions of this node are sent to all other nodes, which respond with their own sessions. When a node
+ * leaves the cluster, the sessions that it owned are removed from the index. Whenever a replicated session changes,
+ * the cached info of its user is invalidated on this node.
+ *
+ * Cluster tasks can be executed in a different order than the one in which they were sent. Changes are therefore
+ * numbered per node, and the changes of each node are applied in order. Changes that arrive early are held back until
+ * the changes that precede them have been applied. When too many changes are held back (e.g. because a task was lost),
+ * a snapshot of the sessions of the node is requested, which supersedes all changes that precede it.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class AnonymousSessionIndex implements SessionEventListener, ClusterEventListener
+{
+    private static final Logger Log = LoggerFactory.getLogger(AnonymousSessionIndex.class);
+
+    private static final AnonymousSessionIndex INSTANCE = new AnonymousSessionIndex();
+
+    public static AnonymousSessionIndex getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Session creation dates (in milliseconds since the epoch) of anonymous users that are connected to this node, keyed by username.
+     */
+    private final Map<String, Long> local = new ConcurrentHashMap<>();
+
+    /**
+     * The sequence number of the last change to {@link #local}. Guarded by {@link #local}, so that a snapshot reflects
+     * exactly the changes up to its sequence number.
+     */
+    private long sequence;
+
+    /**
+     * The anonymous users that are connected to other nodes, grouped by the node that owns the session.
+     */
+    private final Map<NodeID, RemoteSessions> remote = new ConcurrentHashMap<>();
+
+    /**
+     * The maximum amount of changes of a node that are held back while waiting for a change that precedes them, after
+     * which a snapshot is requested from that node.
+     */
+    private static final int MAX_HELD_BACK = 64;
+
+    private AnonymousSessionIndex()
+    {}
+
+    public synchronized void start()
+    {
+        // Sequence numbers keep increasing when the plugin is restarted, so that other nodes do not mistake new changes for old ones.
+        synchronized (local) {
+            sequence = System.currentTimeMillis() * 1000;
+        }
+        SessionEventDispatcher.addListener(this);
+        ClusterManager.addListener(this);
+
+        for (final ClientSession session : SessionManager.getInstance().getSessions()) {
+            if (session.isAnonymousUser() && session instanceof LocalClientSession) {
+                add(session);
+            }
+        }
+        Log.debug("Indexed {} anonymous sessions.", local.size());
+
+        if (ClusterManager.isClusteringStarted()) {
+            broadcast(snapshot(true));
+        }
+    }
+
+    public synchronized void stop()
+    {
+        ClusterManager.removeListener(this);
+        SessionEventDispatcher.removeListener(this);
+
+        if (ClusterManager.isClusteringStarted()) {
+            // Other nodes should no longer report the users of this node as anonymous users.
+            final AnonymousSessionTask task;
+            synchronized (local) {
+                local.clear();
+                task = AnonymousSessionTask.snapshot(Collections.emptyMap(), ++sequence, false);
+            }
+            broadcast(task);
+        }
+        local.clear();
+        remote.clear();
+    }
+
+    /**
+     * Returns the creation date of the session of an anonymous user.
+     *
+     * @param username the username to check.
+     * @return the creation date of the session, or null if the username does not belong to a connected anonymous user.
+     */
+    @Nullable
+    public Instant getCreationDate(@Nullable final String username)
+    {
+        if (username == null) {
+            return null;
+        }
+        Long created = local.get(username);
+        if (created == null && !remote.isEmpty()) {
+            for (final RemoteSessions sessions : remote.values()) {
+                created = sessions.sessions.get(username);
+                if (created != null) {
+                    break;
+                }
+            }
+        }
+        return created == null ? null : Instant.ofEpochMilli(created);
+    }
+
+    /**
+     * Returns the amount of anonymous sessions that are connected to this node.
+     *
+     * @return an amount of sessions.
+     */
+    public int getLocalSize()
+    {
+        return local.size();
+    }
+
+    /**
+     * Returns the amount of anonymous sessions that are connected to other nodes of the cluster.
+     *
+     * @return an amount of sessions.
+     */
+    public int getRemoteSize()
+    {
+        int result = 0;
+        for (final RemoteSessions sessions : remote.values()) {
+            result += sessions.sessions.size();
+        }
+        return result;
+    }
+
+    private void add(@Nonnull final Session session)
+    {
+        final JID address = session.getAddress();
+        if (address == null || address.getNode() == null) {
+            return;
+        }
+        final long created = session.getCreationDate().getTime();
+        final AnonymousSessionTask task;
+        synchronized (local) {
+            local.put(address.getNode(), created);
+            task = AnonymousSessionTask.added(address.getNode(), created, ++sequence);
+        }
+        broadcast(task);
+    }
+
+    private void remove(@Nonnull final Session session)
+    {
+        final JID address = session.getAddress();
+        if (address == null || address.getNode() == null) {
+            return;
+        }
+        final AnonymousSessionTask task;
+        synchronized (local) {
+            local.remove(address.getNode());
+            task = AnonymousSessionTask.removed(address.getNode(), ++sequence);
+        }
+        broadcast(task);
+    }
+
+    private static void broadcast(@Nonnull final AnonymousSessionTask task)
+    {
+        if (ClusterManager.isClusteringStarted()) {
+            CacheFactory.doClusterTask(task);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the sessions that are owned by this node.
+     */
+    @Nonnull
+    private AnonymousSessionTask snapshot(final boolean replyRequested)
+    {
+        synchronized (local) {
+            return AnonymousSessionTask.snapshot(new HashMap<>(local), sequence, replyRequested);
+        }
+    }
+
+    /**
+     * Applies a change to the sessions that are owned by another node, in the order in which that node made the changes.
+     */
+    void receive(@Nonnull final AnonymousSessionTask task)
+    {
+        final NodeID owner = task.getOwner();
+        final RemoteSessions node = remote.computeIfAbsent(owner, k -> new RemoteSessions());
+        final Set<String> changed = new HashSet<>();
+        boolean requestSnapshot = false;
+        synchronized (node) {
+            if (task.getSequence() <= node.sequence) {
+                Log.trace("Ignoring change {} of the anonymous sessions of node {}, as it precedes the last applied change.", task.getSequence(), owner);
+            } else if (task.getType() == AnonymousSessionTask.Type.snapshot) {
+                changed.addAll(node.sessions.keySet());
+                changed.addAll(task.getSessions().keySet());
+                node.sessions.clear();
+                node.sessions.putAll(task.getSessions());
+                node.sequence = task.getSequence();
+                node.heldBack.headMap(node.sequence, true).clear();
+                node.snapshotRequested = false;
+                Log.debug("Replaced the anonymous sessions of node {}: it now owns {} sessions.", owner, node.sessions.size());
+            } else {
+                node.heldBack.put(task.getSequence(), task);
+            }
+
+            // Apply the changes that are next in line.
+            while (!node.heldBack.isEmpty() && node.sequence >= 0 && node.heldBack.firstKey() == node.sequence + 1) {
+                final AnonymousSessionTask next = node.heldBack.pollFirstEntry().getValue();
+                if (next.getType() == AnonymousSessionTask.Type.added) {
+                    node.sessions.putAll(next.getSessions());
+                } else {
+                    next.getSessions().keySet().forEach(node.sessions::remove);
+                }
+                changed.addAll(next.getSessions().keySet());
+                node.sequence = next.getSequence();
+            }
+
+            if (node.heldBack.size() > MAX_HELD_BACK && !node.snapshotRequested) {
+                node.snapshotRequested = true;
+                requestSnapshot = true;
+            }
+        }
+
+        invalidate(changed);
+        if (requestSnapshot) {
+            Log.debug("Changes to the anonymous sessions of node {} are missing. Requesting a snapshot.", owner);
+            sendSnapshot(owner, true);
+        } else if (task.getType() == AnonymousSessionTask.Type.snapshot && task.isReplyRequested()) {
+            sendSnapshot(owner, false);
+        }
+    }
+
+    /**
+     * Sends all sessions that are owned by this node to another node, optionally requesting that node to respond with
+     * its own sessions.
+     */
+    private void sendSnapshot(@Nonnull final NodeID recipient, final boolean replyRequested)
+    {
+        try {
+            CacheFactory.doClusterTask(snapshot(replyRequested), recipient.toByteArray());
+        } catch (IllegalStateException e) {
+            Log.debug("Unable to send the anonymous sessions of this node to node {}.", recipient, e);
+        }
+    }
+
+    private static void invalidate(@Nonnull final Collection<String> usernames)
+    {
+        InfoCache.getInstance().invalidate(usernames);
+    }
+
+    @Override
+    public void sessionCreated(final Session session)
+    {}
+
+    @Override
+    public void sessionDestroyed(final Session session)
+    {}
+
+    @Override
+    public void anonymousSessionCreated(final Session session)
+    {
+        add(session);
+    }
+
+    @Override
+    public void anonymousSessionDestroyed(final Session session)
+    {
+        remove(session);
+    }
+
+    @Override
+    public void resourceBound(final Session session)
+    {}
+
+    @Override
+    public void joinedCluster()
+    {
+        // Data from a previous cluster membership can't be trusted. Request it again, as part of sending the sessions of this node.
+        remote.clear();
+        broadcast(snapshot(true));
+    }
+
+    @Override
+    public void joinedCluster(final byte[] nodeID)
+    {
+        // The node that joined sends its sessions, and requests the sessions of this node.
+    }
+
+    @Override
+    public void leftCluster()
+    {
+        remote.values().forEach(sessions -> invalidate(sessions.sessions.keySet()));
+        remote.clear();
+    }
+
+    @Override
+    public void leftCluster(final byte[] nodeID)
+    {
+        final NodeID owner = NodeID.getInstance(nodeID);
+        final RemoteSessions sessions = remote.remove(owner);
+        if (sessions != null) {
+            Log.debug("Node {} left the cluster. Removing the {} anonymous sessions that it owned.", owner, sessions.sessions.size());
+            invalidate(sessions.sessions.keySet());
+        }
+    }
+
+    @Override
+    public void markedAsSeniorClusterMember()
+    {}
+
+    /**
+     * The anonymous sessions that are owned by another node, and the state needed to apply changes to them in order.
+     */
+    private static final class RemoteSessions
+    {
+        /**
+         * Session creation dates (in milliseconds since the epoch), keyed by username.
+         */
+        final Map<String, Long> sessions = new ConcurrentHashMap<>();
+
+        /**
+         * The sequence number of the last change that was applied, or -1 if no snapshot has been applied yet. Changes
+         * can only be applied after a snapshot, as the changes that precede them are not known otherwise.
+         */
+        long sequence = -1;
+
+        /**
+         * Changes that arrived before a change that precedes them, keyed by sequence number.
+         */
+        final NavigableMap<Long, AnonymousSessionTask> heldBack = new TreeMap<>();
+
+        /**
+         * Indicates that a snapshot was requested, and has not yet been received.
+         */
+        boolean snapshotRequested;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.XMPPServer;
+import org.jivesoftware.openfire.cluster.NodeID;
+import org.jivesoftware.util.cache.ClusterTask;
+import org.jivesoftware.util.cache.ExternalizableUtil;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A cluster task that replicates changes to the anonymous sessions of one node to the {@link AnonymousSessionIndex}
+ * of the node that runs it.
+ *
+ * A task either adds or removes one session, or replaces all sessions of the node that sent it (a snapshot). A snapshot
+ * can request the recipient to respond with a snapshot of its own sessions, which allows a node that starts to obtain
+ * the sessions of all other nodes.
+ *
+ * Tasks can be executed in a different order than the one in which they were sent. Every task therefore carries a
+ * sequence number, assigned by the node that sent it, which the recipient uses to apply the tasks of that node in order
+ * (see {@link AnonymousSessionIndex#receive(AnonymousSessionTask)}). A snapshot carries the sequence number of the last
+ * change that it reflects.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class AnonymousSessionTask implements ClusterTask<Void>
+{
+    enum Type
+    {
+        added,
+        removed,
+        snapshot
+    }
+
+    private NodeID owner;
+
+    private Type type;
+
+    /**
+     * Session creation dates (in milliseconds since the epoch), keyed by username.
+     */
+    private Map<String, Long> sessions;
+
+    private long sequence;
+
+    private boolean replyRequested;
+
+    /**
+     * Constructor to be used by the serialization mechanism only.
+     */
+    public AnonymousSessionTask()
+    {}
+
+    private AnonymousSessionTask(@Nonnull final Type type, @Nonnull final Map<String, Long> sessions, final long sequence, final boolean replyRequested)
+    {
+        this.owner = XMPPServer.getInstance().getNodeID();
+        this.type = type;
+        this.sessions = sessions;
+        this.sequence = sequence;
+        this.replyRequested = replyRequested;
+    }
+
+    @Nonnull
+    static AnonymousSessionTask added(@Nonnull final String username, final long created, final long sequence)
+    {
+        return new AnonymousSessionTask(Type.added, Collections.singletonMap(username, created), sequence, false);
+    }
+
+    @Nonnull
+    static AnonymousSessionTask removed(@Nonnull final String username, final long sequence)
+    {
+        return new AnonymousSessionTask(Type.removed, Collections.singletonMap(username, 0L), sequence, false);
+    }
+
+    @Nonnull
+    static AnonymousSessionTask snapshot(@Nonnull final Map<String, Long> sessions, final long sequence, final boolean replyRequested)
+    {
+        return new AnonymousSessionTask(Type.snapshot, sessions, sequence, replyRequested);
+    }
+
+    @Nonnull
+    NodeID getOwner()
+    {
+        return owner;
+    }
+
+    @Nonnull
+    Type getType()
+    {
+        return type;
+    }
+
+    /**
+     * Session creation dates (in milliseconds since the epoch), keyed by username. For removals, only the keys are
+     * meaningful.
+     */
+    @Nonnull
+    Map<String, Long> getSessions()
+    {
+        return sessions;
+    }
+
+    long getSequence()
+    {
+        return sequence;
+    }
+
+    boolean isReplyRequested()
+    {
+        return replyRequested;
+    }
+
+    @Override
+    public Void getResult()
+    {
+        return null;
+    }
+
+    @Override
+    public void run()
+    {
+        AnonymousSessionIndex.getInstance().receive(this);
+    }
+
+    @Override
+    public void writeExternal(final ObjectOutput out) throws IOException
+    {
+        final ExternalizableUtil util = ExternalizableUtil.getInstance();
+        util.writeByteArray(out, owner.toByteArray());
+        util.writeSafeUTF(out, type.name());
+        util.writeLong(out, sequence);
+        util.writeBoolean(out, replyRequested);
+        util.writeInt(out, sessions.size());
+        for (final Map.Entry<String, Long> entry : sessions.entrySet()) {
+            util.writeSafeUTF(out, entry.getKey());
+            util.writeLong(out, entry.getValue());
+        }
+    }
+
+    @Override
+    public void readExternal(final ObjectInput in) throws IOException
+    {
+        final ExternalizableUtil util = ExternalizableUtil.getInstance();
+        owner = NodeID.getInstance(util.readByteArray(in));
+        type = Type.valueOf(util.readSafeUTF(in));
+        sequence = util.readLong(in);
+        replyRequested = util.readBoolean(in);
+        final int size = util.readInt(in);
+        sessions = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            sessions.put(util.readSafeUTF(in), util.readLong(in));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Determines if a remote domain supports the protocol described in XEP-0489: Reporting Account Affiliations.
+ *
+ * The default implementation is {@link DiscoCapabilityProbe}. Other implementations can be used to replace the network
+ * exchange, for example with a local stand-in.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ * @see RemoteDomainCapabilities#setProbe(CapabilityProbe)
+ */
+public interface CapabilityProbe
+{
+    /**
+     * Determines asynchronously if a domain supports the protocol.
+     *
+     * The returned future completes with true if the domain supports the protocol, and with false if it does not. It
+     * completes exceptionally if support could not be determined (e.g. because the domain did not respond in time).
+     *
+     * @param domain the domain to probe.
+     * @return a future that completes with the result of the probe.
+     */
+    @Nonnull
+    CompletableFuture<Boolean> probe(@Nonnull String domain);
+}
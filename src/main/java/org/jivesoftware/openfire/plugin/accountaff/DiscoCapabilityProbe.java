@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.dom4j.Element;
+import org.jivesoftware.openfire.IQResultListener;
+import org.jivesoftware.openfire.XMPPServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.IQ;
+import org.xmpp.packet.JID;
+import org.xmpp.packet.PacketError;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Determines if a remote domain supports the protocol described in XEP-0489: Reporting Account Affiliations by sending
+ * a service discovery information request to it, and checking if the response contains the {@link Info#NAMESPACE}
+ * feature.
+ *
+ * An error response is taken to mean that the domain does not support the protocol only when the error is definitive
+ * (<tt>feature-not-implemented</tt> or <tt>item-not-found</tt>). Other errors, such as those caused by a failure to
+ * connect to the domain, are treated as a failed probe, which is retried later.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class DiscoCapabilityProbe implements CapabilityProbe
+{
+    private static final Logger Log = LoggerFactory.getLogger(DiscoCapabilityProbe.class);
+
+    public static final String DISCO_INFO_NAMESPACE = "http://jabber.org/protocol/disco#info";
+
+    private final Duration timeout;
+
+    public DiscoCapabilityProbe(@Nonnull final Duration timeout)
+    {
+        this.timeout = timeout;
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Boolean> probe(@Nonnull final String domain)
+    {
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        final IQ request = new IQ(IQ.Type.get);
+        request.setFrom(XMPPServer.getInstance().getServerInfo().getXMPPDomain());
+        request.setTo(new JID(domain));
+        request.setChildElement("query", DISCO_INFO_NAMESPACE);
+
+        XMPPServer.getInstance().getIQRouter().addIQResultListener(request.getID(), new IQResultListener() {
+            @Override
+            public void receivedAnswer(final IQ packet) {
+                complete(result, domain, packet);
+            }
+
+            @Override
+            public void answerTimeout(final String packetId) {
+                result.completeExceptionally(new TimeoutException("Domain '" + domain + "' did not respond to a service discovery request in time."));
+            }
+        }, timeout.toMillis());
+
+        XMPPServer.getInstance().getIQRouter().route(request);
+        return result;
+    }
+
+    /**
+     * Completes the result of a probe, based on the response to the service discovery request.
+     *
+     * @param result the result of the probe.
+     * @param domain the domain that was probed.
+     * @param response the response to the service discovery request.
+     */
+    static void complete(@Nonnull final CompletableFuture<Boolean> result, @Nonnull final String domain, @Nonnull final IQ response)
+    {
+        if (response.getType() != IQ.Type.error) {
+            result.complete(hasFeature(response, Info.NAMESPACE));
+            return;
+        }
+        final PacketError error = response.getError();
+        final PacketError.Condition condition = error == null ? null : error.getCondition();
+        if (condition == PacketError.Condition.feature_not_implemented || condition == PacketError.Condition.item_not_found) {
+            Log.trace("Domain '{}' responded to a service discovery request with an error: {}", domain, error);
+            result.complete(false);
+        } else {
+            result.completeExceptionally(new IOException("Domain '" + domain + "' responded to a service discovery request with an error that does not indicate whether it supports account info: " + condition));
+        }
+    }
+
+    static boolean hasFeature(@Nonnull final IQ response, @Nonnull final String feature)
+    {
+        final Element query = response.getChildElement();
+        if (query == null) {
+            return false;
+        }
+        final List<Element> features = query.elements("feature");
+        for (final Element element : features) {
+            if (feature.equals(element.attributeValue("var"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
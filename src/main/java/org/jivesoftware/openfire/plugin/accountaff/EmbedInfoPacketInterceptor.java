@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.XMPPServer;
+import org.jivesoftware.openfire.interceptor.InterceptorManager;
+import org.jivesoftware.openfire.interceptor.PacketInterceptor;
+import org.jivesoftware.openfire.interceptor.PacketRejectedException;
+import org.jivesoftware.openfire.session.LocalClientSession;
+import org.jivesoftware.openfire.session.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.Message;
+import org.xmpp.packet.Packet;
+import org.xmpp.packet.Presence;
+
+import javax.annotation.Nonnull;
+import java.util.function.Consumer;
+
+/**
+ * A packet interceptor that adds account info to stanzas sent by local users, as defined in XEP-0489: Reporting Account
+ * Affiliations.
+ *
+ * This interceptor classifies each stanza once, after which it delegates to the strategy that applies to the type of
+ * stanza: {@link EmbedPresenceSubStrategy}, {@link EmbedPresenceDirectedStrategy} or {@link EmbedMessageStrategy}. Each
+ * strategy can be enabled or disabled individually. The service discovery feature that corresponds to a strategy is
+ * advertised only when that strategy is enabled.
+ *
+ * Client-originated info elements are stripped from all stanzas that are classified, irrespective of the strategy
+ * being enabled. Messages sent by registered users are counted by the {@link TrustEngine}. Before a strategy is invoked,
+ * the {@link StanzaFilter} is evaluated, which can exclude stanzas based on their type and recipient.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ * @see <a href="https://xmpp.org/extensions/xep-0489.html">XEP-0489: Reporting Account Affiliations</a>
+ */
+public class EmbedInfoPacketInterceptor implements PacketInterceptor
+{
+    private static final Logger Log = LoggerFactory.getLogger(EmbedInfoPacketInterceptor.class);
+
+    private final EmbedPresenceSubStrategy presenceSubStrategy = new EmbedPresenceSubStrategy();
+    private final EmbedPresenceDirectedStrategy presenceDirectedStrategy = new EmbedPresenceDirectedStrategy();
+    private final EmbedMessageStrategy messageStrategy = new EmbedMessageStrategy();
+
+    private volatile boolean presenceSubEnabled;
+    private volatile boolean presenceDirectedEnabled;
+    private volatile boolean messageEnabled;
+
+    private final Consumer<Boolean> presenceSubListener = enabled -> presenceSubEnabled = setFeature(EmbedPresenceSubStrategy.NAMESPACE, enabled);
+    private final Consumer<Boolean> presenceDirectedListener = enabled -> presenceDirectedEnabled = setFeature(EmbedPresenceDirectedStrategy.NAMESPACE, enabled);
+    private final Consumer<Boolean> messageListener = enabled -> messageEnabled = setFeature(EmbedMessageStrategy.NAMESPACE, enabled);
+
+    public void start()
+    {
+        StanzaFilter.getInstance().start();
+        messageStrategy.start();
+
+        presenceSubListener.accept(EmbedPresenceSubStrategy.ENABLED.getValue());
+        presenceDirectedListener.accept(EmbedPresenceDirectedStrategy.ENABLED.getValue());
+        messageListener.accept(EmbedMessageStrategy.ENABLED.getValue());
+
+        EmbedPresenceSubStrategy.ENABLED.addListener(presenceSubListener);
+        EmbedPresenceDirectedStrategy.ENABLED.addListener(presenceDirectedListener);
+        EmbedMessageStrategy.ENABLED.addListener(messageListener);
+
+        InterceptorManager.getInstance().addInterceptor(this);
+    }
+
+    public void stop()
+    {
+        InterceptorManager.getInstance().removeInterceptor(this);
+
+        EmbedMessageStrategy.ENABLED.removeListener(messageListener);
+        EmbedPresenceDirectedStrategy.ENABLED.removeListener(presenceDirectedListener);
+        EmbedPresenceSubStrategy.ENABLED.removeListener(presenceSubListener);
+
+        messageEnabled = setFeature(EmbedMessageStrategy.NAMESPACE, false);
+        presenceDirectedEnabled = setFeature(EmbedPresenceDirectedStrategy.NAMESPACE, false);
+        presenceSubEnabled = setFeature(EmbedPresenceSubStrategy.NAMESPACE, false);
+
+        messageStrategy.stop();
+        StanzaFilter.getInstance().stop();
+    }
+
+    private static boolean setFeature(@Nonnull final String feature, final Boolean enabled)
+    {
+        final boolean result = enabled != null && enabled;
+        if (result) {
+            XMPPServer.getInstance().getIQDiscoInfoHandler().addServerFeature(feature);
+        } else {
+            XMPPServer.getInstance().getIQDiscoInfoHandler().removeServerFeature(feature);
+        }
+        return result;
+    }
+
+    @Override
+    public void interceptPacket(Packet packet, Session session, boolean incoming, boolean processed) throws PacketRejectedException
+    {
+        if (processed) {
+            // Stanzas cannot be modified after they've been processed.
+            return;
+        }
+
+        if (!incoming || !(session instanceof LocalClientSession)) {
+            // This functionality only applies to local users. Do not process any other stanzas.
+            return;
+        }
+
+        final long start = Metrics.getInstance().startTimer();
+        // Set when the stanza is processed, and recorded even when processing fails.
+        Metrics.StanzaType measured = null;
+        try {
+            if (packet instanceof Message) {
+                measured = Metrics.StanzaType.message;
+                stripSpoofedInfo(packet);
+                if (((Message) packet).getBody() != null && !((LocalClientSession) session).isAnonymousUser() && session.getAddress().getNode() != null) {
+                    TrustEngine.getInstance().recordMessage(session.getAddress().getNode());
+                }
+                if (messageEnabled && StanzaFilter.getInstance().evaluate(packet) == null) {
+                    messageStrategy.process((Message) packet, (LocalClientSession) session);
+                }
+            } else if (packet instanceof Presence) {
+                final Presence.Type type = ((Presence) packet).getType();
+                if (type == null) {
+                    measured = Metrics.StanzaType.presence_directed;
+                    stripSpoofedInfo(packet);
+                    if (presenceDirectedEnabled && StanzaFilter.getInstance().evaluate(packet) == null) {
+                        presenceDirectedStrategy.process((Presence) packet);
+                    }
+                } else if (type == Presence.Type.subscribe) {
+                    measured = Metrics.StanzaType.presence_sub;
+                    stripSpoofedInfo(packet);
+                    if (presenceSubEnabled && StanzaFilter.getInstance().evaluate(packet) == null) {
+                        presenceSubStrategy.process((Presence) packet);
+                    }
+                }
+            }
+        } finally {
+            if (measured != null) {
+                Metrics.getInstance().recordIntercept(measured, start);
+            }
+        }
+    }
+
+    /**
+     * Protect against our own clients trying to spoof. The XEP dictates that the server MUST strip client-originating
+     * info elements.
+     */
+    private static void stripSpoofedInfo(@Nonnull final Packet packet)
+    {
+        final boolean didRemoveSomething = InfoElements.strip(packet.getElement()) > 0;
+        if (didRemoveSomething) {
+            Metrics.getInstance().recordSpoofedInfoStripped();
+            Log.info("Prevented RAA spoofing: Removed RAA 'info' extension from {} stanza sent by {} addressed to: {}", packet.getElement().getName(), packet.getFrom(), packet.getTo());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.session.LocalClientSession;
+import org.jivesoftware.util.SystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.JID;
+import org.xmpp.packet.Message;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Consumer;
+
+/**
+ * Adds account info to message stanzas sent by local users to entities that they are not subscribed to.
+ *
+ * Invoked by {@link EmbedInfoPacketInterceptor} for message stanzas that originate from a local client session.
+ */
+public class EmbedMessageStrategy
+{
+    private static final Logger Log = LoggerFactory.getLogger(EmbedMessageStrategy.class);
+
+    public static final String NAMESPACE = "urn:xmpp:raa:0#embed-message";
+
+    public static final SystemProperty<Boolean> ENABLED = SystemProperty.Builder.ofType(Boolean.class)
+        .setKey("plugin.raa.embed.message.enabled")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(true)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Boolean> DEDUPLICATION_ENABLED = SystemProperty.Builder.ofType(Boolean.class)
+        .setKey("plugin.raa.embed.message.dedup.enabled")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(false)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Duration> DEDUPLICATION_INTERVAL = SystemProperty.Builder.ofType(Duration.class)
+        .setKey("plugin.raa.embed.message.dedup.interval")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(Duration.ofHours(1))
+        .setChronoUnit(ChronoUnit.MINUTES)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> DEDUPLICATION_MAX_RECIPIENTS = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.embed.message.dedup.max-recipients")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(100)
+        .setMinValue(1)
+        .setDynamic(true)
+        .build();
+
+    private volatile boolean deduplicationEnabled;
+    private volatile int deduplicationMaxRecipients;
+    private volatile long deduplicationIntervalNanos;
+
+    private final Consumer<Boolean> deduplicationEnabledListener = enabled -> deduplicationEnabled = enabled != null && enabled;
+    private final Consumer<Integer> deduplicationMaxRecipientsListener = maxRecipients -> deduplicationMaxRecipients = maxRecipients == null ? DEDUPLICATION_MAX_RECIPIENTS.getDefaultValue() : maxRecipients;
+    private final Consumer<Duration> deduplicationIntervalListener = interval -> deduplicationIntervalNanos = (interval == null ? DEDUPLICATION_INTERVAL.getDefaultValue() : interval).toNanos();
+
+    public void start()
+    {
+        deduplicationEnabledListener.accept(DEDUPLICATION_ENABLED.getValue());
+        deduplicationMaxRecipientsListener.accept(DEDUPLICATION_MAX_RECIPIENTS.getValue());
+        deduplicationIntervalListener.accept(DEDUPLICATION_INTERVAL.getValue());
+
+        DEDUPLICATION_ENABLED.addListener(deduplicationEnabledListener);
+        DEDUPLICATION_MAX_RECIPIENTS.addListener(deduplicationMaxRecipientsListener);
+        DEDUPLICATION_INTERVAL.addListener(deduplicationIntervalListener);
+    }
+
+    public void stop()
+    {
+        DEDUPLICATION_INTERVAL.removeListener(deduplicationIntervalListener);
+        DEDUPLICATION_MAX_RECIPIENTS.removeListener(deduplicationMaxRecipientsListener);
+        DEDUPLICATION_ENABLED.removeListener(deduplicationEnabledListener);
+    }
+
+    public void process(@Nonnull final Message message, @Nonnull final LocalClientSession session)
+    {
+        final JID originator = message.getFrom();
+        final JID recipient = message.getTo();
+
+        if (originator == null) {
+            // This should not be possible, right? Be verbose if the unexpected does occur!
+            Log.warn("Unable to process message stanza, as the stanza has no 'from' attribute: {}", message);
+        } else if (recipient == null) {
+            // A message addressed to the account of the sender itself. Safe to ignore.
+            Log.trace("Not processing a message without a 'to' address sent by '{}'.", originator);
+        } else {
+            final boolean isSubscribedToRecipient = SubscriptionIndex.getInstance().isSubscribedTo(originator.getNode(), recipient);
+            if (isSubscribedToRecipient) {
+                Log.trace("Skip adding info to message stanza from user '{}' to user '{}' as the originator is subscribed to the presence of the recipient.", originator, recipient);
+            } else {
+                Log.trace("Attempting to add info to message stanza from user '{}' to user '{}'", originator, recipient);
+                final Info info = InfoDAO.lookup(originator);
+                if (info != null) {
+                    if (isAlreadyInformed(session, recipient, info)) {
+                        Log.trace("Skip adding info to message stanza from user '{}' to user '{}' as the recipient has recently been sent the same info.", originator, recipient);
+                    } else {
+                        message.getElement().add(info.asElement());
+                        Metrics.getInstance().recordDecorated(Metrics.StanzaType.message);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a recipient has already been sent the provided info by the session, when deduplication is enabled.
+     */
+    private boolean isAlreadyInformed(@Nonnull final LocalClientSession session, @Nonnull final JID recipient, @Nonnull final Info info)
+    {
+        if (!deduplicationEnabled) {
+            return false;
+        }
+        final InformedRecipients informedRecipients = InformedRecipients.of(session, deduplicationMaxRecipients);
+        return !informedRecipients.shouldInform(recipient.toBareJID(), info, deduplicationIntervalNanos);
+    }
+}
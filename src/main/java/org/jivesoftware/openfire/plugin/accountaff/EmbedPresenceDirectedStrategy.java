@@ -0,0 +1,53 @@
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.util.SystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.JID;
+import org.xmpp.packet.Presence;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Adds account info to directed presence stanzas sent by local users to entities that they are not subscribed to.
+ *
+ * Invoked by {@link EmbedInfoPacketInterceptor} for available presence stanzas that originate from a local client session.
+ */
+public class EmbedPresenceDirectedStrategy
+{
+    private static final Logger Log = LoggerFactory.getLogger(EmbedPresenceDirectedStrategy.class);
+
+    public static final String NAMESPACE = "urn:xmpp:raa:0#embed-presence-directed";
+
+    public static final SystemProperty<Boolean> ENABLED = SystemProperty.Builder.ofType(Boolean.class)
+        .setKey("plugin.raa.embed.presence-directed.enabled")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(true)
+        .setDynamic(true)
+        .build();
+
+    public void process(@Nonnull final Presence presence)
+    {
+        final JID originator = presence.getFrom();
+        final JID recipient = presence.getTo();
+        if (originator == null) {
+            // This should not be possible, right? Be verbose if the unexpected does occur!
+            Log.warn("Unable to process directed presence stanza, as the stanza has no 'from' attribute: {}", presence);
+        } else if (recipient == null) {
+            // This is a regular presence update. This will be pushed by the server to subscribed entities only. Safe to ignore.
+            Log.trace("Not processing a regular presence update sent by '{}'.", originator);
+        } else {
+            final boolean isSubscribedToRecipient = SubscriptionIndex.getInstance().isSubscribedTo(originator.getNode(), recipient);
+            if (isSubscribedToRecipient) {
+                Log.trace("Skip adding info to directed presence stanza from user '{}' to user '{}' as the originator is subscribed to the presence of the recipient.", originator, recipient);
+            } else {
+                Log.trace("Attempting to add info to directed presence stanza from user '{}' to user '{}'", originator, recipient);
+                final Info info = InfoDAO.lookup(originator);
+                if (info != null) {
+                    presence.getElement().add(info.asElement());
+                    Metrics.getInstance().recordDecorated(Metrics.StanzaType.presence_directed);
+                }
+            }
+        }
+    }
+}
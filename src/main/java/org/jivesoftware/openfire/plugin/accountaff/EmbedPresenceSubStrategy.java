@@ -0,0 +1,45 @@
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.util.SystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.JID;
+import org.xmpp.packet.Presence;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Adds account info to presence subscription requests sent by local users.
+ *
+ * Invoked by {@link EmbedInfoPacketInterceptor} for presence stanzas of type 'subscribe' that originate from a local
+ * client session.
+ */
+public class EmbedPresenceSubStrategy
+{
+    private static final Logger Log = LoggerFactory.getLogger(EmbedPresenceSubStrategy.class);
+
+    public static final String NAMESPACE = "urn:xmpp:raa:0#embed-presence-sub";
+
+    public static final SystemProperty<Boolean> ENABLED = SystemProperty.Builder.ofType(Boolean.class)
+        .setKey("plugin.raa.embed.presence-sub.enabled")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(true)
+        .setDynamic(true)
+        .build();
+
+    public void process(@Nonnull final Presence presence)
+    {
+        final JID originator = presence.getFrom();
+        if (originator == null) {
+            // This should not be possible, right? Be verbose if the unexpected does occur!
+            Log.warn("Unable to process presence subscription stanza, as the stanza has no 'from' attribute: {}", presence);
+        } else {
+            Log.trace("Attempting to add info to presence subscription stanza for user '{}'", originator);
+            final Info info = InfoDAO.lookup(originator);
+            if (info != null) {
+                presence.getElement().add(info.asElement());
+                Metrics.getInstance().recordDecorated(Metrics.StanzaType.presence_sub);
+            }
+        }
+    }
+}
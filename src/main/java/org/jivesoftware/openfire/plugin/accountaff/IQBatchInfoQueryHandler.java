@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.dom4j.Element;
+import org.jivesoftware.openfire.IQHandlerInfo;
+import org.jivesoftware.openfire.XMPPServer;
+import org.jivesoftware.openfire.auth.UnauthorizedException;
+import org.jivesoftware.openfire.handler.IQHandler;
+import org.jivesoftware.util.SystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.IQ;
+import org.xmpp.packet.JID;
+import org.xmpp.packet.PacketError;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An IQ Handler that processes requests for the account info of many accounts at once.
+ *
+ * This is an extension to the protocol described in XEP-0489: Reporting Account Affiliations, that is specific to this
+ * plugin. It therefore uses a namespace under a domain of Ignite Realtime, rather than one in the <tt>urn:xmpp:</tt>
+ * namespace, which is registered by the XSF. A request contains an item for each account for which info is requested.
+ * The response contains an item for each distinct (bare) address that was requested. Each item contains the info of the
+ * corresponding account, unless no info is available for it.
+ *
+ * <pre>{@code
+ * <iq type='get' to='example.org' id='q1'>
+ *   <query xmlns='http://igniterealtime.org/protocol/raa-batch#0'>
+ *     <item jid='alice@example.org'/>
+ *     <item jid='bob@example.org'/>
+ *   </query>
+ * </iq>
+ *
+ * <iq type='result' from='example.org' id='q1'>
+ *   <query xmlns='http://igniterealtime.org/protocol/raa-batch#0'>
+ *     <item jid='alice@example.org'><info xmlns='urn:xmpp:raa:0' affiliation='member' since='2023-11-21T00:00:00Z'/></item>
+ *     <item jid='bob@example.org'/>
+ *   </query>
+ * </iq>
+ * }</pre>
+ *
+ * The lookups for the requested accounts are performed asynchronously and concurrently by the {@link LookupExecutor},
+ * after which the response is sent through the IQ router.
+ *
+ * The rate at which entities can query is limited by the {@link QueryRateLimiter}. A batch request costs as much as a
+ * query for each of the accounts that it contains.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ * @see <a href="https://xmpp.org/extensions/xep-0489.html">XEP-0489: Reporting Account Affiliations</a>
+ */
+public class IQBatchInfoQueryHandler extends IQHandler
+{
+    private static final Logger Log = LoggerFactory.getLogger(IQBatchInfoQueryHandler.class);
+
+    public static final String NAMESPACE = "http://igniterealtime.org/protocol/raa-batch#0";
+
+    public static final SystemProperty<Integer> MAX_BATCH_SIZE = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.batch.max-size")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(1000)
+        .setMinValue(1)
+        .setDynamic(true)
+        .build();
+
+    private final IQHandlerInfo info;
+
+    public IQBatchInfoQueryHandler()
+    {
+        super("Reporting Account Affiliations batch handler");
+        this.info = new IQHandlerInfo("query", NAMESPACE);
+    }
+
+    @Override
+    public IQ handleIQ(IQ packet) throws UnauthorizedException
+    {
+        Log.trace("Processing RAA batch IQ stanza from {}", packet.getFrom());
+        if (packet.isResponse()) {
+            Log.debug("Silently ignoring IQ response stanza from {}", packet.getFrom());
+            return null;
+        }
+
+        final IQ reply = IQ.createResultIQ(packet);
+        if (IQ.Type.set == packet.getType()) {
+            Log.debug("Returning error to {}: request is of incorrect IQ type.", packet.getFrom());
+            reply.setChildElement(packet.getChildElement().createCopy());
+            reply.setError(PacketError.Condition.feature_not_implemented);
+            return reply;
+        }
+
+        final List<Element> items = packet.getChildElement().elements("item");
+        final int maxBatchSize = MAX_BATCH_SIZE.getValue();
+        if (items.size() > maxBatchSize) {
+            Log.debug("Returning error to {}: request contains {} items, while at most {} are allowed.", packet.getFrom(), items.size(), maxBatchSize);
+            reply.setChildElement(packet.getChildElement().createCopy());
+            reply.setError(new PacketError(PacketError.Condition.not_acceptable, PacketError.Type.modify, "A request can contain at most " + maxBatchSize + " items."));
+            return reply;
+        }
+
+        // Counts as one query, while every requested account is charged to the batch budget of the requester.
+        reply.setChildElement(packet.getChildElement().createCopy());
+        if (!IQInfoQueryHandler.checkRateLimit(packet, reply, QueryRateLimiter.getInstance().tryAcquireBatch(packet.getFrom(), items.size()))) {
+            return reply;
+        }
+
+        final Set<JID> accounts = new LinkedHashSet<>();
+        final List<String> invalid = new ArrayList<>();
+        for (final Element item : items) {
+            final String value = item.attributeValue("jid");
+            try {
+                accounts.add(new JID(value).asBareJID());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                Log.debug("Ignoring invalid address '{}' in batch request from {}.", value, packet.getFrom());
+                invalid.add(value);
+            }
+        }
+
+        if (!invalid.isEmpty()) {
+            reply.setChildElement(packet.getChildElement().createCopy());
+            reply.setError(new PacketError(PacketError.Condition.jid_malformed, PacketError.Type.modify, "Request contains one or more invalid addresses: " + invalid));
+            return reply;
+        }
+
+        Log.trace("Processing RAA batch query request from {} for {} accounts", packet.getFrom(), accounts.size());
+        final long start = Metrics.getInstance().startTimer();
+        try {
+            LookupExecutor.getInstance().lookupAll(accounts).whenComplete((infos, throwable) -> {
+                if (throwable != null) {
+                    Log.debug("Unable to look up info for batch query request from {}. Returning an error.", packet.getFrom(), throwable);
+                    reply.setChildElement(packet.getChildElement().createCopy());
+                    reply.setError(new PacketError(PacketError.Condition.internal_server_error, PacketError.Type.wait, "Unable to look up account info."));
+                } else {
+                    final Element query = reply.setChildElement("query", NAMESPACE);
+                    for (final Map.Entry<JID, Info> entry : infos.entrySet()) {
+                        final Element item = query.addElement("item").addAttribute("jid", entry.getKey().toString());
+                        if (entry.getValue() != null) {
+                            item.add(entry.getValue().asElement());
+                        }
+                    }
+                }
+                XMPPServer.getInstance().getIQRouter().route(reply);
+                Metrics.getInstance().recordBatchQuery(start);
+            });
+        } catch (RejectedExecutionException e) {
+            Log.debug("Unable to process batch query request from {} as the server is too busy. Returning resource-constraint.", packet.getFrom());
+            reply.setChildElement(packet.getChildElement().createCopy());
+            reply.setError(PacketError.Condition.resource_constraint);
+            Metrics.getInstance().recordBatchQuery(start);
+            return reply;
+        }
+        return null;
+    }
+
+    @Override
+    public IQHandlerInfo getInfo()
+    {
+        return info;
+    }
+}
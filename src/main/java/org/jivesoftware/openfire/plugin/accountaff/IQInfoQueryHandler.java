@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2023-2025 Ignite Realtime Foundation. All rights reserved.
+ * Copyright (C) 2023-2026 Ignite Realtime Foundation. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,13 +32,21 @@ import org.xmpp.packet.JID;
 import org.xmpp.packet.PacketError;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * An IQ Handler that processes IQ requests sent to the server that contain queries related to the protocol described
  * in XEP-0489: Reporting Account Affiliations.
  *
+ * Account info is looked up asynchronously by the {@link LookupExecutor}, after which the response is sent through the
+ * IQ router. This prevents slow user or admin providers from delaying the processing of other IQ requests. Info that is
+ * cached is returned immediately.
+ *
+ * The rate at which entities can query is limited by the {@link QueryRateLimiter}.
+ *
  * @author Guus der Kinderen, guus@goodbytes.nl
  * @see <a href="https://xmpp.org/extensions/xep-0489.html">XEP-0489: Reporting Account Affiliations</a>
  */
@@ -72,18 +80,88 @@ public class IQInfoQueryHandler extends IQHandler
             return reply;
         }
 
+        if (!checkRateLimit(packet, reply)) {
+            return reply;
+        }
+
         final JID target = packet.getTo();
 
         Log.trace("Processing RAA query request from {} for {}", packet.getFrom(), target);
-        final Info info = InfoDAO.lookup(target);
+        final long start = Metrics.getInstance().startTimer();
+        final Info cached = InfoDAO.lookupIfCached(target);
+        if (cached != null) {
+            addInfo(reply, target, cached);
+            Metrics.getInstance().recordQuery(start);
+            return reply;
+        }
+        try {
+            // The lookup is performed asynchronously, as it can be slow (depending on the user and admin providers that are in use).
+            LookupExecutor.getInstance().lookup(target).whenComplete((info, throwable) -> {
+                if (throwable != null) {
+                    Log.debug("Unable to look up info for account {}. Returning an error to {}.", target, packet.getFrom(), throwable);
+                    reply.setError(new PacketError(PacketError.Condition.internal_server_error, PacketError.Type.wait, "Unable to look up account info."));
+                } else {
+                    addInfo(reply, target, info);
+                }
+                XMPPServer.getInstance().getIQRouter().route(reply);
+                Metrics.getInstance().recordQuery(start);
+            });
+        } catch (RejectedExecutionException e) {
+            Log.debug("Unable to look up info for account {} as the server is too busy. Returning resource-constraint to {}.", target, packet.getFrom());
+            reply.setError(PacketError.Condition.resource_constraint);
+            Metrics.getInstance().recordQuery(start);
+            return reply;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a request is within the limits that are enforced by the {@link QueryRateLimiter}, setting an error on
+     * the response if it is not.
+     *
+     * @param request the request to check.
+     * @param reply the response to the request.
+     * @return true if the request can be processed, false if the response has been turned into an error.
+     */
+    static boolean checkRateLimit(@Nonnull final IQ request, @Nonnull final IQ reply)
+    {
+        return checkRateLimit(request, reply, QueryRateLimiter.getInstance().tryAcquire(request.getFrom()));
+    }
+
+    /**
+     * Processes the outcome of checking a request against the limits that are enforced by the {@link QueryRateLimiter},
+     * setting an error on the response if the request is not within these limits.
+     *
+     * @param request the request that was checked.
+     * @param reply the response to the request.
+     * @param outcome the outcome of the check.
+     * @return true if the request can be processed, false if the response has been turned into an error.
+     */
+    static boolean checkRateLimit(@Nonnull final IQ request, @Nonnull final IQ reply, @Nonnull final QueryRateLimiter.Outcome outcome)
+    {
+        switch (outcome) {
+            case allowed:
+                return true;
+            case capacity_exceeded:
+                Log.debug("Unable to track the rate of queries from {}. Returning resource-constraint.", request.getFrom());
+                reply.setError(new PacketError(PacketError.Condition.resource_constraint, PacketError.Type.wait, "Too many requests. Try again later."));
+                return false;
+            default:
+                Log.debug("Query from {} exceeds the rate limit ({}). Returning policy-violation.", request.getFrom(), outcome);
+                reply.setError(new PacketError(PacketError.Condition.policy_violation, PacketError.Type.wait, "Too many requests. Try again later."));
+                return false;
+        }
+    }
+
+    private static void addInfo(@Nonnull final IQ reply, @Nonnull final JID target, @Nullable final Info info)
+    {
         if (info == null) {
-            Log.trace("Unable to find info for account {}. Returning item-not-found to {}.", target, packet.getFrom());
+            Log.trace("Unable to find info for account {}. Returning item-not-found to {}.", target, reply.getTo());
             reply.setError(PacketError.Condition.item_not_found);
         } else {
-            Log.trace("Found info for account {}. Returning info to {}: {}", target, packet.getFrom(), info);
+            Log.trace("Found info for account {}. Returning info to {}: {}", target, reply.getTo(), info);
             reply.getChildElement().add(info.asElement());
         }
-        return reply;
     }
 
     @Override
@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2023-2025 Ignite Realtime Foundation. All rights reserved.
+ * Copyright (C) 2023-2026 Ignite Realtime Foundation. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,8 @@ import org.dom4j.DocumentHelper;
 import org.dom4j.Element;
 import org.dom4j.QName;
 import org.jivesoftware.util.XMPPDateTimeFormat;
+import org.jivesoftware.util.cache.CacheSizes;
+import org.jivesoftware.util.cache.Cacheable;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -26,6 +28,8 @@ import java.sql.Date;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Representation of account information, as defined in XEP-0489: Reporting Account Affiliations.
@@ -33,14 +37,66 @@ import java.util.Objects;
  * @author Guus der Kinderen, guus@goodbytes.nl
  * @see <a href="https://xmpp.org/extensions/xep-0489.html">XEP-0489: Reporting Account Affiliations</a>
  */
-public class Info
+public class Info implements Cacheable
 {
     public static final String NAMESPACE = "urn:xmpp:raa:0";
 
+    /**
+     * The maximum amount of distinct instances that are retained by {@link #of(Affiliation, Instant, Integer)}.
+     */
+    private static final int MAX_INTERNED = 10_000;
+
+    private static final ConcurrentMap<Info, Info> INTERNED = new ConcurrentHashMap<>();
+
+    private static final QName QNAME = QName.get("info", NAMESPACE);
+
     private final Affiliation affiliation;
     private final Instant since;
     private final Integer trust;
 
+    /**
+     * The XML representation of this instance, created lazily. This element is never handed out, only copies of it are.
+     */
+    private transient volatile Element prototype;
+
+    /**
+     * Returns an instance that represents the provided values.
+     *
+     * As the 'since' value is truncated to days, the amount of distinct combinations of values is small compared to the
+     * amount of accounts. This method returns a canonical instance for each distinct combination of values, which
+     * allows the XML representation of that combination to be computed only once. Instances that have a trust value are
+     * not canonicalized: the range of trust values would multiply the amount of distinct combinations by 101, which
+     * would cause the set of canonical instances to overflow and be rebuilt continuously.
+     *
+     * @param affiliation the affiliation of the account
+     * @param since the moment since which the account has had the affiliation (optional)
+     * @param trust the trust that the server has in the account (optional)
+     * @return account information.
+     */
+    @Nonnull
+    public static Info of(@Nonnull final Affiliation affiliation, @Nullable final Instant since, @Nullable final Integer trust)
+    {
+        return intern(new Info(affiliation, since, trust));
+    }
+
+    @Nonnull
+    private static Info intern(@Nonnull final Info info)
+    {
+        if (info.trust != null) {
+            return info;
+        }
+        final Info existing = INTERNED.get(info);
+        if (existing != null) {
+            return existing;
+        }
+        if (INTERNED.size() >= MAX_INTERNED) {
+            // Rather than keeping track of usage, start over. The set of combinations that are in use will quickly be repopulated.
+            INTERNED.clear();
+        }
+        final Info previous = INTERNED.putIfAbsent(info, info);
+        return previous == null ? info : previous;
+    }
+
     public Info(@Nonnull final Affiliation affiliation, @Nullable final Instant since, @Nullable final Integer trust)
     {
         this.affiliation = affiliation;
@@ -57,22 +113,65 @@ public class Info
         this.trust = trust;
     }
 
+    @Nonnull
+    public Affiliation getAffiliation()
+    {
+        return affiliation;
+    }
+
+    @Nullable
+    public Instant getSince()
+    {
+        return since;
+    }
+
+    @Nullable
+    public Integer getTrust()
+    {
+        return trust;
+    }
+
     /**
      * Returns an XML element that represents the agent.
      *
+     * The returned element is a detached copy that can be added to a stanza by the caller.
+     *
      * @return an XML element.
      */
     public Element asElement()
     {
-        final Element result = DocumentHelper.createElement(QName.get("info", NAMESPACE));
-        result.addAttribute("affiliation", affiliation.toString().toLowerCase());
-        if (since != null) {
-            result.addAttribute("since", XMPPDateTimeFormat.format(Date.from(since)));
+        Element result = prototype;
+        if (result == null) {
+            result = DocumentHelper.createElement(QNAME);
+            result.addAttribute("affiliation", affiliation.toString().toLowerCase());
+            if (since != null) {
+                result.addAttribute("since", XMPPDateTimeFormat.format(Date.from(since)));
+            }
+            if (trust != null) {
+                result.addAttribute("trust", String.valueOf(trust));
+            }
+            prototype = result;
         }
-        if (trust != null) {
-            result.addAttribute("trust", String.valueOf(trust));
-        }
-        return result;
+        return result.createCopy();
+    }
+
+    /**
+     * Replaces instances that are deserialized (eg: when obtained from a clustered cache) with their canonical instance,
+     * if any.
+     */
+    private Object readResolve()
+    {
+        return intern(this);
+    }
+
+    @Override
+    public int getCachedSize()
+    {
+        int size = CacheSizes.sizeOfObject(); // overhead of the object.
+        size += CacheSizes.sizeOfObject(); // affiliation (a reference to a shared enum value).
+        size += since == null ? CacheSizes.sizeOfObject() : CacheSizes.sizeOfLong() + CacheSizes.sizeOfInt();
+        size += trust == null ? CacheSizes.sizeOfObject() : CacheSizes.sizeOfInt();
+        return size;
     }
 
     @Override
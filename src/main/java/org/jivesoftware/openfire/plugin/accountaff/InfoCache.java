@@ -0,0 +1,523 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.cluster.ClusterEventListener;
+import org.jivesoftware.openfire.cluster.ClusterManager;
+import org.jivesoftware.openfire.event.SessionEventDispatcher;
+import org.jivesoftware.openfire.event.SessionEventListener;
+import org.jivesoftware.openfire.event.UserEventDispatcher;
+import org.jivesoftware.openfire.event.UserEventListener;
+import org.jivesoftware.openfire.session.Session;
+import org.jivesoftware.openfire.user.User;
+import org.jivesoftware.util.JiveGlobals;
+import org.jivesoftware.util.cache.Cache;
+import org.jivesoftware.util.cache.CacheFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.JID;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A cache of {@link Info} instances that have been computed for local accounts.
+ *
+ * The cache is obtained from Openfire's {@link CacheFactory}, which makes it size- and lifetime-bound. Its size and maximum
+ * lifetime can be configured through the Openfire properties that apply to all caches (<tt>cache.RAAAccountInfo.size</tt>
+ * and <tt>cache.RAAAccountInfo.maxLifetime</tt>).
+ *
+ * The cache is local to each node of an Openfire cluster, so that lookups are answered from local memory, regardless of
+ * the size of the cluster. Each node computes the info that it reports.
+ *
+ * Entries are keyed by username, which for local accounts is equivalent to keying by bare JID. Entries are invalidated
+ * whenever an event occurs that can affect the information that is reported for an account: user creation, modification
+ * (including changes to user properties) and deletion, and the creation and destruction of anonymous sessions. The
+ * sessions of registered users do not affect their info, and therefore do not cause invalidations.
+ * Changes to the set of server administrators are handled by {@link AdminSet}. As user events are dispatched only on
+ * the node on which they occur, the resulting invalidations are broadcast to the other nodes of the cluster (see
+ * {@link InvalidateInfoTask}). Changes to anonymous sessions on other nodes are handled by {@link AnonymousSessionIndex}.
+ * As invalidations may have been missed while the cluster membership of this node changed, all cached info is
+ * invalidated (and, when enabled, re-seeded by the {@link InfoCacheWarmer}) when this node joins or leaves a cluster.
+ *
+ * Lookups that do not yield info (as the account does not exist) are recorded in a second cache, of which entries are
+ * short-lived (<tt>cache.RAAUnknownAccounts.maxLifetime</tt>). This prevents repeated queries for non-existing accounts
+ * from repeatedly querying the user provider. These entries are invalidated in the same way as cached info, which
+ * includes the creation of a user.
+ *
+ * A value that is computed while the info of the same account is invalidated is not cached, as it might be stale. To
+ * detect this, a token is registered for every account of which info is being computed. An invalidation removes the
+ * token of the accounts that it affects, after which the computed value is discarded. Invalidations of other accounts
+ * do not affect it.
+ *
+ * Next to hits and misses, the amount of evictions is reported, which is the amount of entries that was removed because
+ * of the size or lifetime limits of the cache, rather than by invalidation. It is derived from the amount of entries
+ * that was added and removed.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class InfoCache implements UserEventListener, SessionEventListener, ClusterEventListener
+{
+    private static final Logger Log = LoggerFactory.getLogger(InfoCache.class);
+
+    public static final String CACHE_NAME = "RAA Account Info";
+
+    private static final long DEFAULT_MAX_SIZE = 8 * 1024 * 1024;
+
+    private static final Duration DEFAULT_MAX_LIFETIME = Duration.ofHours(1);
+
+    public static final String UNKNOWN_CACHE_NAME = "RAA Unknown Accounts";
+
+    private static final long DEFAULT_UNKNOWN_MAX_SIZE = 1024 * 1024;
+
+    private static final Duration DEFAULT_UNKNOWN_MAX_LIFETIME = Duration.ofMinutes(1);
+
+    private static final InfoCache INSTANCE = new InfoCache();
+
+    public static InfoCache getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private Cache<String, Info> cache;
+
+    /**
+     * Usernames for which no account exists. The values are not used.
+     */
+    private Cache<String, Boolean> unknown;
+
+    /**
+     * A token for each account of which info is being computed. Removed when the info of that account is invalidated,
+     * to prevent a value that was computed concurrently from being added to the cache after the invalidation.
+     */
+    private final Map<String, Object> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder unknownHits = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder added = new LongAdder();
+    private final LongAdder removed = new LongAdder();
+
+    private InfoCache()
+    {}
+
+    public synchronized void start()
+    {
+        cache = createLocalCache(CACHE_NAME, DEFAULT_MAX_SIZE, DEFAULT_MAX_LIFETIME);
+        unknown = createLocalCache(UNKNOWN_CACHE_NAME, DEFAULT_UNKNOWN_MAX_SIZE, DEFAULT_UNKNOWN_MAX_LIFETIME);
+
+        UserEventDispatcher.addListener(this);
+        SessionEventDispatcher.addListener(this);
+        ClusterManager.addListener(this);
+    }
+
+    public synchronized void stop()
+    {
+        ClusterManager.removeListener(this);
+        SessionEventDispatcher.removeListener(this);
+        UserEventDispatcher.removeListener(this);
+
+        if (cache != null) {
+            // Instances of Info that are defined by this instance of the plugin cannot be used by a reloaded plugin.
+            cache.clear();
+            cache = null;
+        }
+        if (unknown != null) {
+            unknown.clear();
+            unknown = null;
+        }
+    }
+
+    @Nonnull
+    private static <V> Cache<String, V> createLocalCache(@Nonnull final String name, final long defaultMaxSize, @Nonnull final Duration defaultMaxLifetime)
+    {
+        final String propertyPrefix = "cache." + name.replaceAll(" ", "");
+        if (JiveGlobals.getProperty(propertyPrefix + ".size") == null) {
+            CacheFactory.setMaxSizeProperty(name, defaultMaxSize);
+        }
+        if (JiveGlobals.getProperty(propertyPrefix + ".maxLifetime") == null) {
+            CacheFactory.setMaxLifetimeProperty(name, defaultMaxLifetime.toMillis());
+        }
+        return CacheFactory.createLocalCache(name);
+    }
+
+    /**
+     * Returns the info for a local account, using the provided function to compute it if it is not cached.
+     *
+     * @param account the (local) account for which to return info.
+     * @param loader the function used to compute info that is not cached.
+     * @return account info, possibly null.
+     */
+    @Nullable
+    public Info get(@Nonnull final JID account, @Nonnull final Function<JID, Info> loader)
+    {
+        final Cache<String, Info> cache = this.cache;
+        if (cache == null || account.getNode() == null) {
+            return loader.apply(account);
+        }
+
+        final String key = account.getNode();
+        final Info cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        final Cache<String, Boolean> unknown = this.unknown;
+        if (unknown != null && unknown.containsKey(key)) {
+            unknownHits.increment();
+            return null;
+        }
+
+        misses.increment();
+        final Object token = startLoading(key);
+        final Info result = loader.apply(account);
+        finishLoading(key, token, result);
+        return result;
+    }
+
+    /**
+     * Registers that the info of an account is about to be computed. The returned token is to be provided to
+     * {@link #finishLoading(String, Object, Info)} when the computation has finished.
+     *
+     * @param username the name of the account of which info is computed.
+     * @return an opaque token.
+     */
+    @Nonnull
+    public Object startLoading(@Nonnull final String username)
+    {
+        final Object token = new Object();
+        loading.put(username, token);
+        return token;
+    }
+
+    /**
+     * Caches info that was computed for an account, unless the info of that account was invalidated since
+     * {@link #startLoading(String)} was invoked.
+     *
+     * @param username the name of the account of which info was computed.
+     * @param token the token that was returned by {@link #startLoading(String)}.
+     * @param info the computed info, or null if the account does not exist.
+     * @return true if the info was cached, false if it was discarded because of an invalidation.
+     */
+    public boolean finishLoading(@Nonnull final String username, @Nonnull final Object token, @Nullable final Info info)
+    {
+        final Cache<String, Info> cache = this.cache;
+        final Cache<String, Boolean> unknown = this.unknown;
+        boolean result = false;
+        if (info != null && cache != null) {
+            if (cache.put(username, info) == null) {
+                added.increment();
+            }
+            // The token is checked after the value is added: an invalidation removes the token before it removes the value.
+            result = loading.get(username) == token;
+            if (!result) {
+                // An invalidation occurred while computing the value. It cannot be established that the value is not stale.
+                remove(cache, username);
+            }
+        } else if (info == null && unknown != null) {
+            unknown.put(username, Boolean.TRUE);
+            result = loading.get(username) == token;
+            if (!result) {
+                // The account might have been created while the lookup was performed.
+                unknown.remove(username);
+            }
+        }
+        loading.remove(username, token);
+        return result;
+    }
+
+    private void remove(@Nonnull final Cache<String, Info> cache, @Nonnull final String username)
+    {
+        if (cache.remove(username) != null) {
+            removed.increment();
+        }
+    }
+
+    /**
+     * Returns the info for a local account, if it is cached.
+     *
+     * @param account the (local) account for which to return info.
+     * @return cached account info, or null if no info is cached for the account.
+     */
+    @Nullable
+    public Info getIfPresent(@Nonnull final JID account)
+    {
+        final Cache<String, Info> cache = this.cache;
+        if (cache == null || account.getNode() == null) {
+            return null;
+        }
+        final Info cached = cache.get(account.getNode());
+        if (cached != null) {
+            hits.increment();
+        }
+        return cached;
+    }
+
+    /**
+     * Removes the cached info of one account, on this node and on all other nodes of the cluster.
+     *
+     * This is to be used for changes that are observed on one node only.
+     *
+     * @param username the name of the account for which to remove cached info.
+     */
+    public void invalidateClusterWide(@Nullable final String username)
+    {
+        if (username == null) {
+            return;
+        }
+        invalidate(username);
+        if (ClusterManager.isClusteringStarted()) {
+            CacheFactory.doClusterTask(new InvalidateInfoTask(username));
+        }
+    }
+
+    /**
+     * Removes the cached info of many accounts, on this node and on all other nodes of the cluster.
+     *
+     * This is to be used for changes that are observed on one node only. Other nodes are notified with one message.
+     *
+     * @param usernames the names of the accounts for which to remove cached info.
+     */
+    public void invalidateClusterWide(@Nonnull final Collection<String> usernames)
+    {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        invalidate(usernames);
+        if (ClusterManager.isClusteringStarted()) {
+            CacheFactory.doClusterTask(new InvalidateInfoTask(new ArrayList<>(usernames)));
+        }
+    }
+
+    /**
+     * Removes the cached info of many accounts, on this node only.
+     *
+     * @param usernames the names of the accounts for which to remove cached info.
+     */
+    public void invalidate(@Nonnull final Collection<String> usernames)
+    {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        invalidations.add(usernames.size());
+        final Cache<String, Info> cache = this.cache;
+        final Cache<String, Boolean> unknown = this.unknown;
+        Log.trace("Invalidating cached info of {} accounts.", usernames.size());
+        for (final String username : usernames) {
+            loading.remove(username);
+            if (cache != null) {
+                remove(cache, username);
+            }
+            if (unknown != null) {
+                unknown.remove(username);
+            }
+        }
+    }
+
+    /**
+     * Removes the cached info of one account, on this node only.
+     *
+     * @param username the name of the account for which to remove cached info.
+     */
+    public void invalidate(@Nullable final String username)
+    {
+        if (username == null) {
+            return;
+        }
+        invalidations.increment();
+        loading.remove(username);
+        final Cache<String, Info> cache = this.cache;
+        if (cache != null) {
+            Log.trace("Invalidating cached info of '{}'.", username);
+            remove(cache, username);
+        }
+        final Cache<String, Boolean> unknown = this.unknown;
+        if (unknown != null) {
+            unknown.remove(username);
+        }
+    }
+
+    /**
+     * Removes all cached info, on this node only.
+     */
+    public void invalidateAll()
+    {
+        invalidations.increment();
+        loading.clear();
+        final Cache<String, Info> cache = this.cache;
+        if (cache != null) {
+            Log.debug("Invalidating all cached info.");
+            removed.add(cache.size());
+            cache.clear();
+        }
+        final Cache<String, Boolean> unknown = this.unknown;
+        if (unknown != null) {
+            unknown.clear();
+        }
+    }
+
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the amount of lookups for accounts that were answered from the cache of non-existing accounts.
+     *
+     * @return an amount of lookups.
+     */
+    public long getUnknownHits()
+    {
+        return unknownHits.sum();
+    }
+
+    public int getUnknownSize()
+    {
+        final Cache<String, Boolean> unknown = this.unknown;
+        return unknown == null ? 0 : unknown.size();
+    }
+
+    /**
+     * Returns the fraction of lookups that were answered from the cache (including the cache of non-existing accounts).
+     *
+     * @return a value between 0 and 1.
+     */
+    public double getHitRatio()
+    {
+        final long answered = hits.sum() + unknownHits.sum();
+        final long total = answered + misses.sum();
+        return total == 0 ? 0 : (double) answered / total;
+    }
+
+    public long getInvalidations()
+    {
+        return invalidations.sum();
+    }
+
+    /**
+     * Returns the amount of entries that were removed from the cache because of its size or lifetime limits.
+     *
+     * As the cache does not report evictions itself, this is derived from the amount of entries that were added and
+     * removed (by invalidation), and the amount of entries that remain. The value is approximate while entries are
+     * being added or removed concurrently.
+     *
+     * @return an amount of entries.
+     */
+    public long getEvictions()
+    {
+        return Math.max(0, added.sum() - removed.sum() - getSize());
+    }
+
+    public int getSize()
+    {
+        final Cache<String, Info> cache = this.cache;
+        return cache == null ? 0 : cache.size();
+    }
+
+    @Override
+    public void userCreated(final User user, final Map<String, Object> params)
+    {
+        invalidateClusterWide(user.getUsername());
+    }
+
+    @Override
+    public void userDeleting(final User user, final Map<String, Object> params)
+    {
+        invalidateClusterWide(user.getUsername());
+    }
+
+    @Override
+    public void userModified(final User user, final Map<String, Object> params)
+    {
+        // Includes changes to user properties, such as 'RAA Affiliation'.
+        invalidateClusterWide(user.getUsername());
+    }
+
+    @Override
+    public void sessionCreated(final Session session)
+    {}
+
+    @Override
+    public void sessionDestroyed(final Session session)
+    {}
+
+    @Override
+    public void anonymousSessionCreated(final Session session)
+    {
+        invalidate(getUsername(session));
+    }
+
+    @Override
+    public void anonymousSessionDestroyed(final Session session)
+    {
+        invalidate(getUsername(session));
+    }
+
+    @Override
+    public void resourceBound(final Session session)
+    {}
+
+    @Override
+    public void joinedCluster()
+    {
+        reseed();
+    }
+
+    @Override
+    public void joinedCluster(final byte[] nodeID)
+    {}
+
+    @Override
+    public void leftCluster()
+    {
+        reseed();
+    }
+
+    @Override
+    public void leftCluster(final byte[] nodeID)
+    {}
+
+    @Override
+    public void markedAsSeniorClusterMember()
+    {}
+
+    private void reseed()
+    {
+        Log.debug("Cluster membership of this node changed. Invalidating all cached info.");
+        invalidateAll();
+        InfoCacheWarmer.getInstance().start();
+    }
+
+    @Nullable
+    private static String getUsername(@Nonnull final Session session)
+    {
+        final JID address = session.getAddress();
+        return address == null ? null : address.getNode();
+    }
+}
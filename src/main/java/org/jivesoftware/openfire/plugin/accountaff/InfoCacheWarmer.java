@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.user.User;
+import org.jivesoftware.openfire.user.UserManager;
+import org.jivesoftware.util.SystemProperty;
+import org.jivesoftware.util.TaskEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Populates the {@link InfoCache} with the info of registered users, in the background.
+ *
+ * After a restart, the cache is empty. Reconnecting clients then cause a burst of (relatively expensive) lookups. When
+ * enabled, this class precomputes info for registered users when the plugin starts, so that the cache is warm by the time
+ * those lookups occur.
+ *
+ * Users are processed in pages. For each page, the administrators and the configured affiliations are obtained in bulk
+ * (see {@link AffiliationProvider#getAffiliations(Collection)}), rather than by performing a lookup per user.
+ *
+ * The users themselves are obtained through {@link UserManager#getUsers(int, int)}, so that every user provider is
+ * supported. Note that most user providers (including the default, database-backed one) implement this by retrieving
+ * a page of usernames in one query, after which every user is loaded individually (if it is not cached). The warm-up
+ * therefore causes (roughly) one query per user. This is why it runs in the background, and why the amount of users
+ * that it processes is bounded.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class InfoCacheWarmer implements Runnable
+{
+    private static final Logger Log = LoggerFactory.getLogger(InfoCacheWarmer.class);
+
+    public static final SystemProperty<Boolean> ENABLED = SystemProperty.Builder.ofType(Boolean.class)
+        .setKey("plugin.raa.warmup.enabled")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(false)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> PAGE_SIZE = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.warmup.page-size")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(500)
+        .setMinValue(1)
+        .setMaxValue(1000)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> MAX_USERS = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.warmup.max-users")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(50_000)
+        .setMinValue(0)
+        .setDynamic(true)
+        .build();
+
+    private static final InfoCacheWarmer INSTANCE = new InfoCacheWarmer();
+
+    public static InfoCacheWarmer getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private Future<?> task;
+
+    private volatile boolean cancelled;
+
+    private volatile boolean running;
+
+    private volatile int total;
+
+    private final AtomicInteger processed = new AtomicInteger();
+
+    private InfoCacheWarmer()
+    {}
+
+    /**
+     * Starts warming up the cache in the background, if this is enabled.
+     */
+    public synchronized void start()
+    {
+        if (!ENABLED.getValue()) {
+            Log.debug("Warm-up of the cache of account info is disabled.");
+            return;
+        }
+        if (task != null && !task.isDone()) {
+            Log.debug("Warm-up of the cache of account info is already in progress.");
+            return;
+        }
+        cancelled = false;
+        task = TaskEngine.getInstance().submit(this);
+    }
+
+    /**
+     * Cancels warming up the cache, if that is in progress.
+     */
+    public synchronized void stop()
+    {
+        cancelled = true;
+        if (task != null) {
+            task.cancel(true);
+            task = null;
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        running = true;
+        processed.set(0);
+        final long start = System.currentTimeMillis();
+        try {
+            final int maxUsers = MAX_USERS.getValue();
+            total = Math.min(maxUsers, UserManager.getInstance().getUserCount());
+            Log.info("Warming up the cache of account info for {} users.", total);
+
+            final int pageSize = PAGE_SIZE.getValue();
+            while (processed.get() < total && !isCancelled()) {
+                final Collection<User> page = UserManager.getInstance().getUsers(processed.get(), Math.min(pageSize, total - processed.get()));
+                if (page.isEmpty()) {
+                    break;
+                }
+                processPage(page);
+                processed.addAndGet(page.size());
+                Log.debug("Warm-up of the cache of account info progress: {} of {} users processed.", processed.get(), total);
+            }
+
+            if (isCancelled()) {
+                Log.info("Warm-up of the cache of account info was cancelled after processing {} of {} users.", processed.get(), total);
+            } else {
+                Log.info("Warmed up the cache of account info for {} users in {} ms.", processed.get(), System.currentTimeMillis() - start);
+            }
+        } catch (RuntimeException e) {
+            Log.warn("Warm-up of the cache of account info failed after processing {} of {} users.", processed.get(), total, e);
+        } finally {
+            running = false;
+        }
+    }
+
+    private boolean isCancelled()
+    {
+        return cancelled || Thread.currentThread().isInterrupted();
+    }
+
+    private void processPage(@Nonnull final Collection<User> page)
+    {
+        final Map<String, Object> tokens = new HashMap<>();
+        for (final User user : page) {
+            tokens.put(user.getUsername(), InfoCache.getInstance().startLoading(user.getUsername()));
+        }
+
+        final Set<String> admins = AdminSet.getInstance().getUsernames();
+        final List<String> usernames = new ArrayList<>(page.size());
+        for (final User user : page) {
+            usernames.add(user.getUsername());
+        }
+        final Map<String, Affiliation> configured = InfoDAO.getAffiliationProvider().getAffiliations(usernames);
+
+        int discarded = 0;
+        for (final User user : page) {
+            final String username = user.getUsername();
+            final boolean isAdmin = admins.contains(username);
+            final Info info = InfoDAO.compute(user, isAdmin, isAdmin ? null : configured.get(username));
+            if (!InfoCache.getInstance().finishLoading(username, tokens.get(username), info)) {
+                discarded++;
+            }
+        }
+        if (discarded > 0) {
+            Log.debug("Discarded warm-up results for {} of {} users, as their cached info was invalidated while it was computed.", discarded, page.size());
+        }
+    }
+
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    public int getProcessed()
+    {
+        return processed.get();
+    }
+
+    public int getTotal()
+    {
+        return total;
+    }
+}
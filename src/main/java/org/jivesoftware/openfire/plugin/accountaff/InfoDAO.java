@@ -1,66 +1,230 @@
 package org.jivesoftware.openfire.plugin.accountaff;
 
-import org.jivesoftware.openfire.SessionManager;
 import org.jivesoftware.openfire.XMPPServer;
-import org.jivesoftware.openfire.admin.AdminManager;
-import org.jivesoftware.openfire.session.ClientSession;
 import org.jivesoftware.openfire.user.User;
 import org.jivesoftware.openfire.user.UserManager;
 import org.jivesoftware.openfire.user.UserNotFoundException;
+import org.jivesoftware.util.SystemProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xmpp.packet.JID;
 
 import javax.annotation.Nonnull;
-import java.util.Collection;
-import java.util.Optional;
+import javax.annotation.Nullable;
+import java.time.Instant;
 
 public class InfoDAO
 {
     private static final Logger Log = LoggerFactory.getLogger(InfoDAO.class);
 
+    public static final SystemProperty<String> AFFILIATION_PROVIDER = SystemProperty.Builder.ofType(String.class)
+        .setKey("plugin.raa.affiliation.provider.className")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(UserPropertyAffiliationProvider.class.getName())
+        .addListener(InfoDAO::replaceAffiliationProvider)
+        .setDynamic(true)
+        .build();
+
+    private static volatile AffiliationProvider affiliationProvider;
+
+    /**
+     * Creates the configured affiliation provider. Invoked when the plugin is initialized, before any info is looked up.
+     */
+    public static synchronized void start()
+    {
+        if (affiliationProvider == null) {
+            affiliationProvider = createAffiliationProvider(AFFILIATION_PROVIDER.getValue());
+        }
+    }
+
+    /**
+     * Closes the affiliation provider.
+     */
+    public static synchronized void stop()
+    {
+        final AffiliationProvider previous = affiliationProvider;
+        affiliationProvider = null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Returns the info of a local account, or null if no info can be provided for the account.
+     *
+     * Info is served from {@link InfoCache} where possible.
+     *
+     * @param account The account for which to return info.
+     * @return account info, possibly null.
+     */
+    @Nullable
     public static Info lookup(@Nonnull final JID account)
     {
         Log.trace("Lookup account info of {}", account);
+        final long start = Metrics.getInstance().startTimer();
         if (!XMPPServer.getInstance().isLocal(account)) {
             Log.debug("Unable to lookup account info of {} - it is not an account on this server.", account);
+            Metrics.getInstance().recordLookup(Metrics.LookupOutcome.non_local, start);
             return null;
         }
 
-        final String username = account.getNode();
-        final Collection<ClientSession> sessions = SessionManager.getInstance().getSessions(username);
-        final Optional<ClientSession> anonymousSession = sessions.stream()
-            .filter(ClientSession::isAnonymousUser)
-            .findAny();
+        final Info result = InfoCache.getInstance().get(account, InfoDAO::compute);
+        Metrics.getInstance().recordLookup(result == null ? Metrics.LookupOutcome.not_found : Metrics.LookupOutcome.of(result.getAffiliation()), start);
+        return result;
+    }
 
-        if (anonymousSession.isPresent()) {
-            return new Info(Affiliation.anonymous, anonymousSession.get().getCreationDate().toInstant(), null);
+    /**
+     * Returns the info of a local account, if it is available without having to compute it.
+     *
+     * @param account The account for which to return info.
+     * @return cached account info, or null if no info is cached for the account.
+     */
+    @Nullable
+    public static Info lookupIfCached(@Nonnull final JID account)
+    {
+        if (!XMPPServer.getInstance().isLocal(account)) {
+            return null;
+        }
+        final long start = Metrics.getInstance().startTimer();
+        final Info result = InfoCache.getInstance().getIfPresent(account);
+        if (result != null) {
+            Metrics.getInstance().recordLookup(Metrics.LookupOutcome.of(result.getAffiliation()), start);
+        }
+        return result;
+    }
+
+    @Nullable
+    static Info compute(@Nonnull final JID account)
+    {
+        Log.trace("Computing account info of {}", account);
+        final String username = account.getNode();
+        final Instant anonymousSince = AnonymousSessionIndex.getInstance().getCreationDate(username);
+        if (anonymousSince != null) {
+            return Info.of(Affiliation.anonymous, anonymousSince, null);
         }
 
         try {
             final User registeredUser = UserManager.getInstance().getUser(username);
-            final boolean isAdmin = AdminManager.getInstance().isUserAdmin(username, true);
-            if (isAdmin) {
-                return new Info(Affiliation.admin, registeredUser.getCreationDate().toInstant(), null);
-            } else {
-                final String raaAffPropertyValue = registeredUser.getProperties().get("RAA Affiliation");
-                Affiliation affiliation = Affiliation.registered;
-                if (raaAffPropertyValue != null) {
-                    try {
-                        final Affiliation affiliationProperty = Affiliation.valueOf(raaAffPropertyValue);
-                        if (affiliationProperty == Affiliation.anonymous || affiliationProperty == Affiliation.admin) {
-                            Log.warn("User '{}' has an extended property 'RAA Affiliation' set to the value of '{}' which is a value that cannot be manually configured. This property is being ignored.", username, raaAffPropertyValue);
-                        } else {
-                            affiliation = affiliationProperty;
-                        }
-                    } catch (IllegalArgumentException e) {
-                        Log.warn("User '{}' has an extended property 'RAA Affiliation' but it does not match one of the recognized affiliation values. Offending value: {}", username, raaAffPropertyValue, e);
-                    }
-                }
-                return new Info(affiliation, registeredUser.getCreationDate().toInstant(), null);
-            }
+            final boolean isAdmin = AdminSet.getInstance().contains(username);
+            return compute(registeredUser, isAdmin, isAdmin ? null : getAffiliationProvider().getAffiliation(username));
         } catch (UserNotFoundException e) {
             return null;
         }
     }
+
+    /**
+     * Computes the info of a registered user, based on data that has already been obtained.
+     *
+     * The affiliation of a user that is not an administrator, and for which no affiliation is configured, is derived by
+     * the {@link AffiliationRules}. If no rule applies, the user is 'registered'.
+     *
+     * @param registeredUser the user for which to compute info.
+     * @param isAdmin true if the user is an administrator, otherwise false.
+     * @param configured the affiliation that is configured for the user by the {@link AffiliationProvider}, if any.
+     * @return account info.
+     */
+    @Nonnull
+    static Info compute(@Nonnull final User registeredUser, final boolean isAdmin, @Nullable final Affiliation configured)
+    {
+        final Integer trust = TrustEngine.getInstance().getScore(registeredUser);
+        if (isAdmin) {
+            return Info.of(Affiliation.admin, registeredUser.getCreationDate().toInstant(), trust);
+        }
+        final Affiliation affiliation = configured != null ? configured : AffiliationRules.getInstance().evaluate(registeredUser);
+        return Info.of(affiliation == null ? Affiliation.registered : affiliation, registeredUser.getCreationDate().toInstant(), trust);
+    }
+
+    /**
+     * Parses a value that is configured as the affiliation of a user. Values that are not recognized, or that cannot be
+     * configured manually ('anonymous' and 'admin') are ignored.
+     *
+     * @param username the name of the user for which the value is configured.
+     * @param value the configured value (can be null).
+     * @return the configured affiliation, or null if no (usable) value was configured.
+     */
+    @Nullable
+    public static Affiliation parseConfiguredAffiliation(@Nonnull final String username, @Nullable final String value)
+    {
+        if (value == null) {
+            return null;
+        }
+        try {
+            final Affiliation affiliation = Affiliation.valueOf(value);
+            if (!isConfigurable(affiliation)) {
+                Log.warn("User '{}' is configured to have the affiliation '{}' which is a value that cannot be manually configured. This configuration is being ignored.", username, value);
+                return null;
+            }
+            return affiliation;
+        } catch (IllegalArgumentException e) {
+            Log.warn("User '{}' is configured to have an affiliation that does not match one of the recognized affiliation values. Offending value: {}", username, value, e);
+            return null;
+        }
+    }
+
+    /**
+     * Checks if an affiliation can be configured for a user. The 'anonymous' and 'admin' affiliations are determined by
+     * the server, and cannot be configured.
+     *
+     * @param affiliation the affiliation to check.
+     * @return true if the affiliation can be configured, otherwise false.
+     */
+    public static boolean isConfigurable(@Nonnull final Affiliation affiliation)
+    {
+        return affiliation != Affiliation.anonymous && affiliation != Affiliation.admin;
+    }
+
+    /**
+     * Returns the provider of affiliations that are configured for users.
+     *
+     * The provider is created when the plugin is initialized (see {@link #start()}). When this is used before that (for
+     * example, outside of the plugin), it is created on first use.
+     *
+     * @return an affiliation provider.
+     */
+    @Nonnull
+    public static AffiliationProvider getAffiliationProvider()
+    {
+        final AffiliationProvider result = affiliationProvider;
+        if (result != null) {
+            return result;
+        }
+        synchronized (InfoDAO.class) {
+            if (affiliationProvider == null) {
+                affiliationProvider = createAffiliationProvider(AFFILIATION_PROVIDER.getValue());
+            }
+            return affiliationProvider;
+        }
+    }
+
+    /**
+     * Replaces the affiliation provider after its configuration changed, after which all cached info is invalidated.
+     */
+    private static synchronized void replaceAffiliationProvider(@Nullable final String className)
+    {
+        final AffiliationProvider previous = affiliationProvider;
+        affiliationProvider = createAffiliationProvider(className);
+        if (previous != null) {
+            previous.close();
+        }
+        InfoCache.getInstance().invalidateAll();
+    }
+
+    @Nonnull
+    private static AffiliationProvider createAffiliationProvider(@Nullable final String className)
+    {
+        AffiliationProvider result = null;
+        if (className != null && !className.isEmpty()) {
+            try {
+                final Class<?> providerClass = Class.forName(className, true, InfoDAO.class.getClassLoader());
+                result = (AffiliationProvider) providerClass.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                Log.error("Unable to load affiliation provider '{}'. Using the default provider instead.", className, e);
+            }
+        }
+        if (result == null) {
+            result = new UserPropertyAffiliationProvider();
+        }
+        Log.debug("Using affiliation provider: {}", result.getClass().getName());
+        return result;
+    }
 }
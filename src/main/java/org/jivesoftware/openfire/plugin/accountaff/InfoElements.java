@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.dom4j.Element;
+import org.dom4j.Node;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Utility methods that operate on the info elements of a stanza.
+ *
+ * These are used for every stanza that is processed by {@link EmbedInfoPacketInterceptor}. Children of the stanza are
+ * visited by index, in one pass, without creating the intermediate lists or iterators that, for example,
+ * {@link org.xmpp.packet.Packet#deleteExtension(String, String)} and {@link Element#elements(String)} create. Names and
+ * namespaces are compared using the values held by the (shared) qualified names of the child elements.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public final class InfoElements
+{
+    private InfoElements()
+    {}
+
+    /**
+     * Removes all info elements from a stanza.
+     *
+     * Note that, unlike {@link org.xmpp.packet.Packet#deleteExtension(String, String)}, this removes every info element,
+     * not just the first one.
+     *
+     * @param stanza the element representing the stanza.
+     * @return the amount of info elements that were removed.
+     */
+    public static int strip(@Nonnull final Element stanza)
+    {
+        int removed = 0;
+        for (int i = stanza.nodeCount() - 1; i >= 0; i--) {
+            final Node node = stanza.node(i);
+            if (isInfo(node)) {
+                stanza.remove(node);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static boolean isInfo(@Nonnull final Node node)
+    {
+        if (node.getNodeType() != Node.ELEMENT_NODE) {
+            return false;
+        }
+        final Element element = (Element) node;
+        return "info".equals(element.getName()) && Info.NAMESPACE.equals(element.getNamespaceURI());
+    }
+}
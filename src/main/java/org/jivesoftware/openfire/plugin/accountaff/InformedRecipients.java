@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.session.LocalClientSession;
+
+import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of the recipients to which account info has been sent by one session, so that repeatedly sending that
+ * same info to the same recipient can be avoided.
+ *
+ * Instances are stored as session data of the session that they relate to, which causes them to be released when the
+ * session is closed. The amount of recipients that is tracked is bounded: when the bound is reached, the recipient that
+ * was least recently informed is forgotten.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class InformedRecipients
+{
+    static final String SESSION_DATA_KEY = "raa.informed-recipients";
+
+    private final int maxRecipients;
+
+    private final Map<String, Informed> recipients;
+
+    /**
+     * Returns the instance that is associated with a session, creating one if needed.
+     *
+     * @param session the session for which to return an instance.
+     * @param maxRecipients the maximum amount of recipients to track, used when creating a new instance.
+     * @return the instance associated with the session.
+     */
+    @Nonnull
+    public static InformedRecipients of(@Nonnull final LocalClientSession session, final int maxRecipients)
+    {
+        InformedRecipients result = (InformedRecipients) session.getSessionData(SESSION_DATA_KEY);
+        if (result == null || result.maxRecipients != maxRecipients) {
+            result = new InformedRecipients(maxRecipients);
+            session.setSessionData(SESSION_DATA_KEY, result);
+        }
+        return result;
+    }
+
+    InformedRecipients(final int maxRecipients)
+    {
+        this.maxRecipients = maxRecipients;
+        this.recipients = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Informed> eldest)
+            {
+                return size() > InformedRecipients.this.maxRecipients;
+            }
+        };
+    }
+
+    /**
+     * Checks if info should be sent to a recipient, recording that it will be if that's the case.
+     *
+     * Info should be sent when the recipient has not been sent info before, when the info that was last sent to it is
+     * different from the provided info, or when that info was sent longer ago than the provided interval.
+     *
+     * @param recipient the bare JID of the recipient.
+     * @param info the info that is to be sent.
+     * @param intervalNanos the interval (in nanoseconds) after which info is to be sent again.
+     * @return true if the info should be sent to the recipient, otherwise false.
+     */
+    public synchronized boolean shouldInform(@Nonnull final String recipient, @Nonnull final Info info, final long intervalNanos)
+    {
+        final long now = System.nanoTime();
+        final Informed informed = recipients.get(recipient);
+        if (informed != null && informed.info.equals(info) && now - informed.timestamp < intervalNanos) {
+            return false;
+        }
+        recipients.put(recipient, new Informed(info, now));
+        return true;
+    }
+
+    public synchronized int size()
+    {
+        return recipients.size();
+    }
+
+    private static final class Informed
+    {
+        private final Info info;
+        private final long timestamp;
+
+        private Informed(@Nonnull final Info info, final long timestamp)
+        {
+            this.info = info;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.util.cache.ClusterTask;
+import org.jivesoftware.util.cache.ExternalizableUtil;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A cluster task that removes the cached info of one or more accounts from the {@link InfoCache} of the node that runs it.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ * @see InfoCache#invalidateClusterWide(Collection)
+ */
+public class InvalidateInfoTask implements ClusterTask<Void>
+{
+    private Collection<String> usernames;
+
+    /**
+     * Constructor to be used by the serialization mechanism only.
+     */
+    public InvalidateInfoTask()
+    {}
+
+    public InvalidateInfoTask(@Nonnull final String username)
+    {
+        this(Collections.singleton(username));
+    }
+
+    public InvalidateInfoTask(@Nonnull final Collection<String> usernames)
+    {
+        this.usernames = usernames;
+    }
+
+    @Override
+    public Void getResult()
+    {
+        return null;
+    }
+
+    @Override
+    public void run()
+    {
+        InfoCache.getInstance().invalidate(usernames);
+    }
+
+    @Override
+    public void writeExternal(final ObjectOutput out) throws IOException
+    {
+        ExternalizableUtil.getInstance().writeStrings(out, usernames);
+    }
+
+    @Override
+    public void readExternal(final ObjectInput in) throws IOException
+    {
+        usernames = new ArrayList<>();
+        ExternalizableUtil.getInstance().readStrings(in, usernames);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.database.DbConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An affiliation provider that obtains affiliations from the <tt>ofRaaAffiliation</tt> database table, which is created
+ * by this plugin.
+ *
+ * The table holds one row per user that has a configured affiliation, keyed by username. Unlike user properties, reading
+ * the affiliation of a user does not require all other properties of that user to be loaded.
+ *
+ * Batch lookups are performed in chunks of a fixed size, so that the same prepared statement is reused for every chunk.
+ * The last chunk is padded by repeating its last username.
+ *
+ * Affiliations are configured in bulk in one transaction, using batched statements.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class JdbcAffiliationProvider implements AffiliationProvider
+{
+    private static final Logger Log = LoggerFactory.getLogger(JdbcAffiliationProvider.class);
+
+    /**
+     * The amount of usernames that are looked up with one execution of the batch query.
+     */
+    static final int CHUNK_SIZE = 100;
+
+    private static final String LOAD_AFFILIATION = "SELECT affiliation FROM ofRaaAffiliation WHERE username=?";
+
+    private static final String DELETE_AFFILIATION = "DELETE FROM ofRaaAffiliation WHERE username=?";
+
+    private static final String INSERT_AFFILIATION = "INSERT INTO ofRaaAffiliation (username, affiliation) VALUES (?, ?)";
+
+    private static final String LOAD_AFFILIATIONS;
+    static {
+        final StringBuilder sql = new StringBuilder("SELECT username, affiliation FROM ofRaaAffiliation WHERE username IN (");
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        LOAD_AFFILIATIONS = sql.append(')').toString();
+    }
+
+    @Nullable
+    @Override
+    public Affiliation getAffiliation(@Nonnull final String username)
+    {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            con = DbConnectionManager.getConnection();
+            pstmt = con.prepareStatement(LOAD_AFFILIATION);
+            pstmt.setString(1, username);
+            rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return InfoDAO.parseConfiguredAffiliation(username, rs.getString(1));
+            }
+            return null;
+        } catch (SQLException e) {
+            Log.error("Unable to load the affiliation of user '{}'.", username, e);
+            return null;
+        } finally {
+            DbConnectionManager.closeConnection(rs, pstmt, con);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, Affiliation> getAffiliations(@Nonnull final Collection<String> usernames)
+    {
+        final Map<String, Affiliation> result = new HashMap<>();
+        if (usernames.isEmpty()) {
+            return result;
+        }
+
+        final List<String> all = new ArrayList<>(usernames);
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        try {
+            con = DbConnectionManager.getConnection();
+            pstmt = con.prepareStatement(LOAD_AFFILIATIONS);
+            for (int offset = 0; offset < all.size(); offset += CHUNK_SIZE) {
+                final List<String> chunk = all.subList(offset, Math.min(offset + CHUNK_SIZE, all.size()));
+                for (int i = 0; i < CHUNK_SIZE; i++) {
+                    pstmt.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                }
+                try (final ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        final String username = rs.getString(1);
+                        final Affiliation affiliation = InfoDAO.parseConfiguredAffiliation(username, rs.getString(2));
+                        if (affiliation != null) {
+                            result.put(username, affiliation);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            Log.error("Unable to load the affiliations of {} users.", usernames.size(), e);
+        } finally {
+            DbConnectionManager.closeConnection(pstmt, con);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean setAffiliations(@Nonnull final Map<String, Affiliation> affiliations)
+    {
+        if (affiliations.isEmpty()) {
+            return true;
+        }
+
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        boolean abortTransaction = false;
+        try {
+            con = DbConnectionManager.getTransactionConnection();
+            pstmt = con.prepareStatement(DELETE_AFFILIATION);
+            for (final String username : affiliations.keySet()) {
+                pstmt.setString(1, username);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            DbConnectionManager.fastcloseStmt(pstmt);
+
+            pstmt = con.prepareStatement(INSERT_AFFILIATION);
+            for (final Map.Entry<String, Affiliation> entry : affiliations.entrySet()) {
+                if (entry.getValue() != null) {
+                    pstmt.setString(1, entry.getKey());
+                    pstmt.setString(2, entry.getValue().name());
+                    pstmt.addBatch();
+                }
+            }
+            pstmt.executeBatch();
+            return true;
+        } catch (SQLException e) {
+            Log.error("Unable to configure the affiliations of {} users.", affiliations.size(), e);
+            abortTransaction = true;
+            return false;
+        } finally {
+            DbConnectionManager.closeTransactionConnection(pstmt, con, abortTransaction);
+        }
+    }
+}
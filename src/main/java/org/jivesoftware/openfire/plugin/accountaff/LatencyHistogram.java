@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations, that is cheap to record to from many threads concurrently.
+ *
+ * Like an HDR histogram, values are recorded in buckets of which the width grows with their magnitude: every power of
+ * two is divided into {@link #SUB_BUCKETS} buckets of equal width. This bounds the relative error of reported values to
+ * 1/{@value #SUB_BUCKETS}, using a fixed, small amount of memory, irrespective of the range of recorded values. Bucket
+ * counts are striped ({@link LongAdder}), so that concurrent recording does not cause contention.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class LatencyHistogram
+{
+    /**
+     * The amount of buckets in which every power of two is divided. Must be a power of two itself.
+     */
+    private static final int SUB_BUCKETS = 8;
+
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder total = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram()
+    {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration, in nanoseconds. Negative values are recorded as zero.
+     */
+    public void record(final long nanos)
+    {
+        final long value = Math.max(0, nanos);
+        counts[bucketOf(value)].increment();
+        count.increment();
+        total.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    static int bucketOf(final long value)
+    {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the largest value that is recorded in a bucket.
+     */
+    static long upperBoundOf(final int bucket)
+    {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long subBucket = bucket % SUB_BUCKETS;
+        final long lowerBound = (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+        final long upperBound = lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+        return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+    }
+
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    @Nonnull
+    public Duration getMean()
+    {
+        final long count = this.count.sum();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(total.sum() / count);
+    }
+
+    @Nonnull
+    public Duration getMax()
+    {
+        return Duration.ofNanos(max.get());
+    }
+
+    /**
+     * Returns an approximation of a percentile of the recorded durations.
+     *
+     * As recording continues while this method executes, the result is an approximation of the value at the time of
+     * invocation.
+     *
+     * @param percentile a value between 0 and 100 (inclusive).
+     * @return the duration below which the provided percentage of recorded durations fall.
+     */
+    @Nonnull
+    public Duration getPercentile(final double percentile)
+    {
+        final long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Duration.ofNanos(Math.min(upperBoundOf(i), max.get()));
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the count, mean, maximum and a number of percentiles of the recorded durations.
+     *
+     * @return a summary of the recorded durations.
+     */
+    @Nonnull
+    public Summary getSummary()
+    {
+        return new Summary(getCount(), getMean(), getPercentile(50), getPercentile(90), getPercentile(99), getPercentile(99.9), getMax());
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset()
+    {
+        for (final LongAdder bucket : counts) {
+            bucket.reset();
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+
+    /**
+     * A summary of the durations recorded in a histogram. Durations are expressed in (fractional) microseconds.
+     */
+    public static class Summary
+    {
+        private final long count;
+        private final double mean;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double p999;
+        private final double max;
+
+        Summary(final long count, @Nonnull final Duration mean, @Nonnull final Duration p50, @Nonnull final Duration p90, @Nonnull final Duration p99, @Nonnull final Duration p999, @Nonnull final Duration max)
+        {
+            this.count = count;
+            this.mean = toMicros(mean);
+            this.p50 = toMicros(p50);
+            this.p90 = toMicros(p90);
+            this.p99 = toMicros(p99);
+            this.p999 = toMicros(p999);
+            this.max = toMicros(max);
+        }
+
+        private static double toMicros(@Nonnull final Duration duration)
+        {
+            return duration.toNanos() / 1000.0;
+        }
+
+        public long getCount()
+        {
+            return count;
+        }
+
+        public double getMean()
+        {
+            return mean;
+        }
+
+        public double getP50()
+        {
+            return p50;
+        }
+
+        public double getP90()
+        {
+            return p90;
+        }
+
+        public double getP99()
+        {
+            return p99;
+        }
+
+        public double getP999()
+        {
+            return p999;
+        }
+
+        public double getMax()
+        {
+            return max;
+        }
+    }
+}
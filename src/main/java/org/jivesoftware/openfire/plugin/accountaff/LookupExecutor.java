@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.util.NamedThreadFactory;
+import org.jivesoftware.util.SystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.JID;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Performs lookups of account info asynchronously, on a dedicated executor.
+ *
+ * When the JVM supports virtual threads (and their usage has not been disabled), every lookup is performed by a virtual
+ * thread. Otherwise, lookups are performed by a fixed-size pool of threads.
+ *
+ * The amount of lookups that have been accepted but not yet completed is bounded. When that bound is reached, new
+ * lookups are rejected, by throwing a {@link RejectedExecutionException}. Lookups that take longer than a configurable
+ * duration are completed exceptionally with a {@link TimeoutException}.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class LookupExecutor
+{
+    private static final Logger Log = LoggerFactory.getLogger(LookupExecutor.class);
+
+    public static final SystemProperty<Boolean> VIRTUAL_THREADS = SystemProperty.Builder.ofType(Boolean.class)
+        .setKey("plugin.raa.lookup.virtual-threads")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(true)
+        .setDynamic(false)
+        .build();
+
+    public static final SystemProperty<Integer> THREADS = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.lookup.threads")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(8)
+        .setMinValue(1)
+        .setDynamic(false)
+        .build();
+
+    public static final SystemProperty<Integer> MAX_PENDING = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.lookup.max-pending")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(2000)
+        .setMinValue(1)
+        .setDynamic(false)
+        .build();
+
+    public static final SystemProperty<Duration> TIMEOUT = SystemProperty.Builder.ofType(Duration.class)
+        .setKey("plugin.raa.lookup.timeout")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(Duration.ofSeconds(5))
+        .setChronoUnit(ChronoUnit.MILLIS)
+        .setDynamic(true)
+        .build();
+
+    private static final LookupExecutor INSTANCE = new LookupExecutor();
+
+    public static LookupExecutor getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private ExecutorService executor;
+
+    private Semaphore permits;
+
+    private int maxPending;
+
+    private boolean usesVirtualThreads;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    private LookupExecutor()
+    {}
+
+    public synchronized void start()
+    {
+        executor = null;
+        if (VIRTUAL_THREADS.getValue()) {
+            executor = createVirtualThreadPerTaskExecutor();
+        }
+        usesVirtualThreads = executor != null;
+        if (!usesVirtualThreads) {
+            executor = Executors.newFixedThreadPool(THREADS.getValue(), new NamedThreadFactory("raa-lookup-", true, null, null, null));
+        }
+        maxPending = MAX_PENDING.getValue();
+        permits = new Semaphore(maxPending);
+        Log.debug("Started lookup executor (virtual threads: {}, maximum pending lookups: {}).", usesVirtualThreads, maxPending);
+    }
+
+    /**
+     * Stops accepting lookups, and waits (at most for the duration of the lookup timeout) for lookups that were already
+     * accepted to complete, so that their requesters receive a response. Lookups that do not complete in time are
+     * abandoned: these complete exceptionally with a {@link TimeoutException}, as any other lookup that takes too long.
+     */
+    public synchronized void stop()
+    {
+        final ExecutorService executor = this.executor;
+        if (executor == null) {
+            return;
+        }
+        this.executor = null;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(TIMEOUT.getValue().toMillis(), TimeUnit.MILLISECONDS)) {
+                Log.warn("Abandoning {} lookups that did not complete while stopping the lookup executor.", getPendingCount());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Log.debug("Interrupted while waiting for pending lookups to complete. Abandoning these.");
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task, if the JVM supports this.
+     *
+     * @return an executor, or null if virtual threads are not supported.
+     */
+    @Nullable
+    private static ExecutorService createVirtualThreadPerTaskExecutor()
+    {
+        try {
+            final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            Log.debug("Virtual threads are not available in this JVM. Using a pool of platform threads instead.");
+            return null;
+        }
+    }
+
+    /**
+     * Looks up account info asynchronously.
+     *
+     * @param account the address for which to look up account info.
+     * @return a future that completes with the account info (possibly null).
+     * @throws RejectedExecutionException when the maximum amount of pending lookups has been reached.
+     */
+    @Nonnull
+    public CompletableFuture<Info> lookup(@Nonnull final JID account)
+    {
+        return submit(account).orTimeout(TIMEOUT.getValue().toMillis(), TimeUnit.MILLISECONDS).whenComplete(this::recordTimeout);
+    }
+
+    /**
+     * Looks up the account info of each of the provided addresses asynchronously and concurrently.
+     *
+     * The map that the returned future completes with contains an entry for every address, in the iteration order of
+     * the provided collection. Its value is null when no info is available for an address. When the lookup for any of
+     * the addresses fails, the returned future completes exceptionally: a failed lookup is never reported as an
+     * address for which no info is available.
+     *
+     * Capacity for all lookups is reserved at once: either all lookups are accepted, or none are.
+     *
+     * @param accounts the addresses for which to look up account info.
+     * @return a future that completes with account info, keyed by address.
+     * @throws RejectedExecutionException when the lookups would cause the maximum amount of pending lookups to be exceeded.
+     */
+    @Nonnull
+    public CompletableFuture<Map<JID, Info>> lookupAll(@Nonnull final Collection<JID> accounts)
+    {
+        final ExecutorService executor = this.executor;
+        final Semaphore permits = this.permits;
+        if (executor == null || permits == null) {
+            throw new RejectedExecutionException("The lookup executor is not running.");
+        }
+        if (!permits.tryAcquire(accounts.size())) {
+            rejected.increment();
+            throw new RejectedExecutionException("Insufficient capacity to perform " + accounts.size() + " lookups.");
+        }
+
+        final Map<JID, CompletableFuture<Info>> futures = new LinkedHashMap<>();
+        int submitted = 0;
+        try {
+            for (final JID account : accounts) {
+                futures.put(account, execute(executor, permits, account));
+                submitted++;
+            }
+        } catch (RejectedExecutionException e) {
+            // Lookups that were submitted release their own permit when they complete.
+            permits.release(accounts.size() - submitted);
+            rejected.increment();
+            throw e;
+        }
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+            .thenApply(v -> {
+                final Map<JID, Info> result = new LinkedHashMap<>();
+                futures.forEach((account, future) -> result.put(account, future.join()));
+                return result;
+            })
+            .orTimeout(TIMEOUT.getValue().toMillis(), TimeUnit.MILLISECONDS)
+            .whenComplete(this::recordTimeout);
+    }
+
+    @Nonnull
+    private CompletableFuture<Info> submit(@Nonnull final JID account)
+    {
+        final ExecutorService executor = this.executor;
+        final Semaphore permits = this.permits;
+        if (executor == null || permits == null) {
+            throw new RejectedExecutionException("The lookup executor is not running.");
+        }
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new RejectedExecutionException("The maximum amount of pending lookups (" + maxPending + ") has been reached.");
+        }
+
+        try {
+            return execute(executor, permits, account);
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a lookup, for which the caller has acquired a permit. The permit is released when the lookup completes.
+     */
+    @Nonnull
+    private CompletableFuture<Info> execute(@Nonnull final ExecutorService executor, @Nonnull final Semaphore permits, @Nonnull final JID account)
+    {
+        final long start = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return InfoDAO.lookup(account);
+            } finally {
+                // Released when the lookup completes, even if the caller stopped waiting for it, to bound the amount of work in progress.
+                permits.release();
+                recordLatency(System.nanoTime() - start);
+            }
+        }, executor);
+    }
+
+    private void recordLatency(final long nanos)
+    {
+        completed.increment();
+        totalLatencyNanos.add(nanos);
+        maxLatencyNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void recordTimeout(final Object result, final Throwable throwable)
+    {
+        if (throwable instanceof TimeoutException) {
+            timedOut.increment();
+        }
+    }
+
+    /**
+     * Returns the amount of lookups that have been accepted, but that have not yet completed.
+     *
+     * @return an amount of lookups.
+     */
+    public int getPendingCount()
+    {
+        final Semaphore permits = this.permits;
+        return permits == null ? 0 : maxPending - permits.availablePermits();
+    }
+
+    public int getMaxPending()
+    {
+        return maxPending;
+    }
+
+    public boolean isUsingVirtualThreads()
+    {
+        return usesVirtualThreads;
+    }
+
+    public long getCompletedCount()
+    {
+        return completed.sum();
+    }
+
+    public long getRejectedCount()
+    {
+        return rejected.sum();
+    }
+
+    public long getTimedOutCount()
+    {
+        return timedOut.sum();
+    }
+
+    /**
+     * Returns the average duration of completed lookups, measured from the moment they were submitted.
+     *
+     * @return an average duration.
+     */
+    @Nonnull
+    public Duration getAverageLatency()
+    {
+        final long count = completed.sum();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(totalLatencyNanos.sum() / count);
+    }
+
+    @Nonnull
+    public Duration getMaxLatency()
+    {
+        return Duration.ofNanos(maxLatencyNanos.get());
+    }
+}
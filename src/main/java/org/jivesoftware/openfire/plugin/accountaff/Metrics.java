@@ -0,0 +1,343 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.JMXManager;
+import org.jivesoftware.util.SystemProperty;
+import org.jivesoftware.util.TaskEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Collects metrics on the code paths of this plugin that are executed when stanzas are routed and when queries are
+ * processed.
+ *
+ * Recording a metric consists of incrementing striped counters ({@link LongAdder}), which makes it cheap enough to do
+ * for every stanza. Metrics are exposed through JMX (see {@link MetricsMXBean}) and on an Admin Console page.
+ *
+ * The rate at which stanzas are decorated with account info is computed periodically from the totals, so that it
+ * reflects recent throughput.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class Metrics implements MetricsMXBean
+{
+    private static final Logger Log = LoggerFactory.getLogger(Metrics.class);
+
+    public static final SystemProperty<Boolean> ENABLED = SystemProperty.Builder.ofType(Boolean.class)
+        .setKey("plugin.raa.metrics.enabled")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(true)
+        .setDynamic(true)
+        .build();
+
+    public static final String OBJECT_NAME = "org.igniterealtime.openfire.plugin.accountaff:type=Metrics";
+
+    /**
+     * The interval at which the rate of decorated stanzas is computed.
+     */
+    public static final Duration RATE_INTERVAL = Duration.ofSeconds(10);
+
+    /**
+     * The types of stanzas that are processed by the packet interceptor.
+     */
+    public enum StanzaType
+    {
+        message, presence_directed, presence_sub
+    }
+
+    /**
+     * The possible outcomes of a lookup of account info.
+     */
+    public enum LookupOutcome
+    {
+        anonymous, registered, member, admin, not_found, non_local;
+
+        @Nonnull
+        static LookupOutcome of(@Nonnull final Affiliation affiliation)
+        {
+            switch (affiliation) {
+                case anonymous: return anonymous;
+                case member: return member;
+                case admin: return admin;
+                default: return registered;
+            }
+        }
+    }
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    public static Metrics getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final Map<StanzaType, LatencyHistogram> interceptLatencies = new EnumMap<>(StanzaType.class);
+
+    private final Map<LookupOutcome, LatencyHistogram> lookupLatencies = new EnumMap<>(LookupOutcome.class);
+
+    private final LatencyHistogram queryLatency = new LatencyHistogram();
+
+    private final LatencyHistogram batchQueryLatency = new LatencyHistogram();
+
+    private final LongAdder spoofedInfoStripped = new LongAdder();
+
+    private final Map<StanzaType, LongAdder> decorated = new EnumMap<>(StanzaType.class);
+
+    /**
+     * The totals of decorated stanzas at the time the rate was last computed. Used by the sampling task only.
+     */
+    private final Map<StanzaType, Long> decoratedAtLastSample = new EnumMap<>(StanzaType.class);
+
+    private long lastSample = System.nanoTime();
+
+    private volatile Map<String, Double> decoratedRates = Collections.emptyMap();
+
+    private TimerTask sampleTask;
+
+    private volatile boolean enabled;
+
+    private final Consumer<Boolean> enabledListener = value -> enabled = value != null && value;
+
+    private ObjectName objectName;
+
+    private Metrics()
+    {
+        for (final StanzaType type : StanzaType.values()) {
+            interceptLatencies.put(type, new LatencyHistogram());
+            decorated.put(type, new LongAdder());
+        }
+        for (final LookupOutcome outcome : LookupOutcome.values()) {
+            lookupLatencies.put(outcome, new LatencyHistogram());
+        }
+    }
+
+    public synchronized void start()
+    {
+        enabledListener.accept(ENABLED.getValue());
+        ENABLED.addListener(enabledListener);
+        objectName = JMXManager.tryRegister(this, OBJECT_NAME);
+        if (objectName == null) {
+            Log.debug("Unable to register metrics with JMX.");
+        }
+        sampleTask = new TimerTask() {
+            @Override
+            public void run() {
+                sampleRates();
+            }
+        };
+        TaskEngine.getInstance().scheduleAtFixedRate(sampleTask, RATE_INTERVAL.toMillis(), RATE_INTERVAL.toMillis());
+    }
+
+    public synchronized void stop()
+    {
+        if (sampleTask != null) {
+            TaskEngine.getInstance().cancelScheduledTask(sampleTask);
+            sampleTask = null;
+        }
+        if (objectName != null) {
+            JMXManager.tryUnregister(objectName);
+            objectName = null;
+        }
+        ENABLED.removeListener(enabledListener);
+        enabled = false;
+        reset();
+    }
+
+    /**
+     * Returns the current time, for use as the start of a duration that is to be recorded, or zero if metrics are not
+     * recorded.
+     *
+     * @return a value of {@link System#nanoTime()}, or zero.
+     */
+    public long startTimer()
+    {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void recordIntercept(@Nonnull final StanzaType type, final long start)
+    {
+        if (start != 0) {
+            interceptLatencies.get(type).record(System.nanoTime() - start);
+        }
+    }
+
+    public void recordLookup(@Nonnull final LookupOutcome outcome, final long start)
+    {
+        if (start != 0) {
+            lookupLatencies.get(outcome).record(System.nanoTime() - start);
+        }
+    }
+
+    public void recordQuery(final long start)
+    {
+        if (start != 0) {
+            queryLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public void recordBatchQuery(final long start)
+    {
+        if (start != 0) {
+            batchQueryLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public void recordSpoofedInfoStripped()
+    {
+        spoofedInfoStripped.increment();
+    }
+
+    /**
+     * Records that account info was added to a stanza.
+     *
+     * @param type the type of the stanza.
+     */
+    public void recordDecorated(@Nonnull final StanzaType type)
+    {
+        decorated.get(type).increment();
+    }
+
+    private synchronized void sampleRates()
+    {
+        final long now = System.nanoTime();
+        final double seconds = (now - lastSample) / 1_000_000_000.0;
+        final Map<String, Double> rates = new LinkedHashMap<>();
+        for (final StanzaType type : StanzaType.values()) {
+            final long total = decorated.get(type).sum();
+            final long previous = decoratedAtLastSample.getOrDefault(type, 0L);
+            // The total is lower than before after a reset.
+            rates.put(type.name(), seconds <= 0 ? 0 : Math.max(0, total - previous) / seconds);
+            decoratedAtLastSample.put(type, total);
+        }
+        lastSample = now;
+        decoratedRates = Collections.unmodifiableMap(rates);
+    }
+
+    @Override
+    public Map<String, LatencyHistogram.Summary> getInterceptLatencies()
+    {
+        final Map<String, LatencyHistogram.Summary> result = new LinkedHashMap<>();
+        interceptLatencies.forEach((type, histogram) -> result.put(type.name(), histogram.getSummary()));
+        return result;
+    }
+
+    @Override
+    public Map<String, LatencyHistogram.Summary> getLookupLatencies()
+    {
+        final Map<String, LatencyHistogram.Summary> result = new LinkedHashMap<>();
+        lookupLatencies.forEach((outcome, histogram) -> result.put(outcome.name(), histogram.getSummary()));
+        return result;
+    }
+
+    @Override
+    public LatencyHistogram.Summary getQueryLatency()
+    {
+        return queryLatency.getSummary();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getBatchQueryLatency()
+    {
+        return batchQueryLatency.getSummary();
+    }
+
+    @Override
+    public long getSpoofedInfoStripped()
+    {
+        return spoofedInfoStripped.sum();
+    }
+
+    @Override
+    public Map<String, Long> getDecoratedStanzas()
+    {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        decorated.forEach((type, count) -> result.put(type.name(), count.sum()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getDecoratedStanzaRates()
+    {
+        return decoratedRates;
+    }
+
+    @Override
+    public double getCacheHitRatio()
+    {
+        return InfoCache.getInstance().getHitRatio();
+    }
+
+    @Override
+    public Map<String, Integer> getAccountsPerAffiliation()
+    {
+        return AffiliationStatistics.getInstance().getCounts();
+    }
+
+    @Override
+    public Map<String, Long> getRateLimitedQueries()
+    {
+        return QueryRateLimiter.getInstance().getRejectedCounts();
+    }
+
+    @Override
+    public Map<String, Long> getFilteredStanzas()
+    {
+        return StanzaFilter.getInstance().getExcludedCounts();
+    }
+
+    @Override
+    public int getAdminCount()
+    {
+        return AdminSet.getInstance().getSize();
+    }
+
+    @Override
+    public long getAdminRefreshCount()
+    {
+        return AdminSet.getInstance().getRefreshCount();
+    }
+
+    @Override
+    public double getAdminLastRefreshDuration()
+    {
+        return AdminSet.getInstance().getLastRefreshDuration().toNanos() / 1000.0;
+    }
+
+    @Override
+    public void reset()
+    {
+        interceptLatencies.values().forEach(LatencyHistogram::reset);
+        lookupLatencies.values().forEach(LatencyHistogram::reset);
+        queryLatency.reset();
+        batchQueryLatency.reset();
+        spoofedInfoStripped.reset();
+        decorated.values().forEach(LongAdder::reset);
+        StanzaFilter.getInstance().resetCounts();
+        QueryRateLimiter.getInstance().resetCounts();
+    }
+}
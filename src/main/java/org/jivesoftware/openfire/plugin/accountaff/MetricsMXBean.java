@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import java.util.Map;
+
+/**
+ * The management interface through which {@link Metrics} are exposed over JMX.
+ *
+ * Durations are expressed in (fractional) microseconds.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public interface MetricsMXBean
+{
+    /**
+     * Returns the time spent in the packet interceptor, keyed by type of stanza.
+     */
+    Map<String, LatencyHistogram.Summary> getInterceptLatencies();
+
+    /**
+     * Returns the time spent looking up account info, keyed by the outcome of the lookup.
+     */
+    Map<String, LatencyHistogram.Summary> getLookupLatencies();
+
+    /**
+     * Returns the time between receiving a query for the info of an account and sending the response.
+     */
+    LatencyHistogram.Summary getQueryLatency();
+
+    /**
+     * Returns the time between receiving a batch query and sending the response.
+     */
+    LatencyHistogram.Summary getBatchQueryLatency();
+
+    /**
+     * Returns the amount of info elements that were removed from stanzas sent by clients.
+     */
+    long getSpoofedInfoStripped();
+
+    /**
+     * Returns the amount of stanzas to which account info was added, keyed by type of stanza.
+     */
+    Map<String, Long> getDecoratedStanzas();
+
+    /**
+     * Returns the amount of stanzas per second to which account info was added recently, keyed by type of stanza.
+     */
+    Map<String, Double> getDecoratedStanzaRates();
+
+    /**
+     * Returns the fraction of lookups that were answered from the cache of account info.
+     */
+    double getCacheHitRatio();
+
+    /**
+     * Returns the amount of accounts per affiliation.
+     */
+    Map<String, Integer> getAccountsPerAffiliation();
+
+    /**
+     * Returns the amount of queries that were rejected by the rate limiter, keyed by the reason for the rejection.
+     */
+    Map<String, Long> getRateLimitedQueries();
+
+    /**
+     * Returns the amount of stanzas that were excluded from having account info added, keyed by the rule that excluded them.
+     */
+    Map<String, Long> getFilteredStanzas();
+
+    /**
+     * Returns the amount of local server administrators in the set that is used to look up account info.
+     */
+    int getAdminCount();
+
+    /**
+     * Returns the amount of times that the set of server administrators has been refreshed.
+     */
+    long getAdminRefreshCount();
+
+    /**
+     * Returns the time that the last refresh of the set of server administrators took.
+     */
+    double getAdminLastRefreshDuration();
+
+    /**
+     * Discards all recorded data.
+     */
+    void reset();
+}
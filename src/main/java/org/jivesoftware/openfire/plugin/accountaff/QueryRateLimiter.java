@@ -0,0 +1,394 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.XMPPServer;
+import org.jivesoftware.util.SystemProperty;
+import org.jivesoftware.util.TaskEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.JID;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the rate at which entities can query account info.
+ *
+ * Every requester (identified by its bare JID) has a token bucket. Every remote domain has an additional, larger bucket
+ * that is shared by all requesters of that domain, which prevents a domain from circumventing the limit by using many
+ * addresses. Requests from this server and its local domain are only subject to the per-requester limit.
+ *
+ * A batch request costs one token of these buckets, like any other query. The accounts that it requests info for are
+ * additionally charged to a separate bucket of the requester, that is sized for batches. This allows for batches of the
+ * maximum size, without allowing a requester to query more accounts than that bucket permits. A query is only charged
+ * when all buckets admit it: tokens taken from one bucket are returned when a subsequent bucket rejects the query.
+ *
+ * A bucket is implemented as a single atomic value (the theoretical time at which the bucket would be full again), that
+ * is updated by compare-and-set. Checking a request therefore does not involve locks.
+ *
+ * The amount of buckets is bounded. Buckets that have been refilled completely are indistinguishable from new buckets, and
+ * are removed periodically, and when the bound is reached. When, even after removal of these buckets, no bucket can be
+ * created for a requester, the request is rejected.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class QueryRateLimiter
+{
+    private static final Logger Log = LoggerFactory.getLogger(QueryRateLimiter.class);
+
+    public static final SystemProperty<Boolean> ENABLED = SystemProperty.Builder.ofType(Boolean.class)
+        .setKey("plugin.raa.ratelimit.enabled")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(true)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> REQUESTER_RATE = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.ratelimit.requester.rate")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(10)
+        .setMinValue(1)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> REQUESTER_BURST = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.ratelimit.requester.burst")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(50)
+        .setMinValue(1)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> DOMAIN_RATE = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.ratelimit.domain.rate")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(100)
+        .setMinValue(1)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> DOMAIN_BURST = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.ratelimit.domain.burst")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(500)
+        .setMinValue(1)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> BATCH_RATE = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.ratelimit.batch.rate")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(100)
+        .setMinValue(1)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> BATCH_BURST = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.ratelimit.batch.burst")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(1000)
+        .setMinValue(1)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> MAX_ENTRIES = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.ratelimit.max-entries")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(100_000)
+        .setMinValue(1)
+        .setDynamic(true)
+        .build();
+
+    /**
+     * The minimum time between two removals of buckets that are triggered by reaching the maximum amount of buckets.
+     */
+    private static final long MIN_PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(1);
+
+    /**
+     * The outcome of checking a request against the limits.
+     */
+    public enum Outcome
+    {
+        /**
+         * The request is within the limits.
+         */
+        allowed,
+
+        /**
+         * The requester exceeded its limit.
+         */
+        requester_limited,
+
+        /**
+         * The domain of the requester exceeded its limit.
+         */
+        domain_limited,
+
+        /**
+         * The requester exceeded the amount of accounts that it can request info for in batch requests.
+         */
+        batch_limited,
+
+        /**
+         * The maximum amount of buckets has been reached, and none could be removed.
+         */
+        capacity_exceeded
+    }
+
+    private static final QueryRateLimiter INSTANCE = new QueryRateLimiter();
+
+    public static QueryRateLimiter getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final Map<String, Bucket> requesters = new ConcurrentHashMap<>();
+
+    private final Map<String, Bucket> domains = new ConcurrentHashMap<>();
+
+    private final Map<String, Bucket> batches = new ConcurrentHashMap<>();
+
+    private final Map<Outcome, LongAdder> rejected = new EnumMap<>(Outcome.class);
+
+    private final AtomicLong lastPurge = new AtomicLong(System.nanoTime());
+
+    private TimerTask purgeTask;
+
+    private QueryRateLimiter()
+    {
+        for (final Outcome outcome : Outcome.values()) {
+            if (outcome != Outcome.allowed) {
+                rejected.put(outcome, new LongAdder());
+            }
+        }
+    }
+
+    public synchronized void start()
+    {
+        purgeTask = new TimerTask() {
+            @Override
+            public void run() {
+                purge(System.nanoTime());
+            }
+        };
+        TaskEngine.getInstance().scheduleAtFixedRate(purgeTask, PURGE_INTERVAL.toMillis(), PURGE_INTERVAL.toMillis());
+    }
+
+    public synchronized void stop()
+    {
+        if (purgeTask != null) {
+            TaskEngine.getInstance().cancelScheduledTask(purgeTask);
+            purgeTask = null;
+        }
+        requesters.clear();
+        domains.clear();
+        batches.clear();
+    }
+
+    /**
+     * Checks if a query from an entity is within the limits, consuming a token if it is.
+     *
+     * @param requester the entity that sent the query (can be null for queries that originate from the server itself).
+     * @return the outcome of the check.
+     */
+    @Nonnull
+    public Outcome tryAcquire(@Nullable final JID requester)
+    {
+        return tryAcquire(requester, 0);
+    }
+
+    /**
+     * Checks if a batch request from an entity is within the limits, consuming a token, and a token of the batch bucket
+     * of the requester for every account that it requests info for, if it is.
+     *
+     * A batch that requests info for more accounts than fit in the batch bucket is allowed when that bucket is full. The
+     * requester then has to wait for all of these tokens to be refilled before it can send another batch request.
+     *
+     * @param requester the entity that sent the request (can be null for requests that originate from the server itself).
+     * @param accounts the amount of accounts that the request asks info for.
+     * @return the outcome of the check.
+     */
+    @Nonnull
+    public Outcome tryAcquireBatch(@Nullable final JID requester, final int accounts)
+    {
+        return tryAcquire(requester, Math.max(1, accounts));
+    }
+
+    @Nonnull
+    private Outcome tryAcquire(@Nullable final JID requester, final int batchAccounts)
+    {
+        if (!ENABLED.getValue() || requester == null) {
+            return Outcome.allowed;
+        }
+        final XMPPServer server = XMPPServer.getInstance();
+        if (requester.getNode() == null && (server.isLocal(requester) || server.matchesComponent(requester))) {
+            // The server itself, or one of its components.
+            return Outcome.allowed;
+        }
+
+        final long now = System.nanoTime();
+        final String bareJID = requester.toBareJID();
+        final boolean remote = !server.isLocal(requester);
+        final Bucket requesterBucket = getBucket(requesters, bareJID, now);
+        final Bucket domainBucket = remote ? getBucket(domains, requester.getDomain(), now) : null;
+        final Bucket batchBucket = batchAccounts > 0 ? getBucket(batches, bareJID, now) : null;
+
+        final long requesterCost = intervalNanos(REQUESTER_RATE.getValue());
+        final long domainCost = intervalNanos(DOMAIN_RATE.getValue());
+        final long batchInterval = intervalNanos(BATCH_RATE.getValue());
+        final Outcome result;
+        if (requesterBucket == null || (remote && domainBucket == null) || (batchAccounts > 0 && batchBucket == null)) {
+            result = Outcome.capacity_exceeded;
+        } else if (!requesterBucket.tryAcquire(now, requesterCost, requesterCost * REQUESTER_BURST.getValue())) {
+            result = Outcome.requester_limited;
+        } else if (domainBucket != null && !domainBucket.tryAcquire(now, domainCost, domainCost * DOMAIN_BURST.getValue())) {
+            requesterBucket.release(requesterCost);
+            result = Outcome.domain_limited;
+        } else if (batchBucket != null && !batchBucket.tryAcquire(now, batchInterval * batchAccounts, batchInterval * BATCH_BURST.getValue())) {
+            requesterBucket.release(requesterCost);
+            if (domainBucket != null) {
+                domainBucket.release(domainCost);
+            }
+            result = Outcome.batch_limited;
+        } else {
+            result = Outcome.allowed;
+        }
+        if (result != Outcome.allowed) {
+            rejected.get(result).increment();
+        }
+        return result;
+    }
+
+    private static long intervalNanos(final int ratePerSecond)
+    {
+        return TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+    }
+
+    /**
+     * Returns the bucket for a key, creating it if needed.
+     *
+     * @return the bucket, or null if the maximum amount of buckets has been reached.
+     */
+    @Nullable
+    private Bucket getBucket(@Nonnull final Map<String, Bucket> buckets, @Nonnull final String key, final long now)
+    {
+        final Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (getSize() >= MAX_ENTRIES.getValue()) {
+            final long previous = lastPurge.get();
+            if (now - previous >= MIN_PURGE_INTERVAL_NANOS && lastPurge.compareAndSet(previous, now)) {
+                purge(now);
+            }
+            if (getSize() >= MAX_ENTRIES.getValue()) {
+                return null;
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket(now));
+    }
+
+    /**
+     * Removes buckets that have been refilled completely.
+     */
+    private void purge(final long now)
+    {
+        final int before = getSize();
+        requesters.values().removeIf(bucket -> bucket.isFull(now));
+        domains.values().removeIf(bucket -> bucket.isFull(now));
+        batches.values().removeIf(bucket -> bucket.isFull(now));
+        Log.trace("Removed {} rate limiting buckets that were full.", before - getSize());
+    }
+
+    public int getSize()
+    {
+        return requesters.size() + domains.size() + batches.size();
+    }
+
+    /**
+     * Returns the amount of queries that were rejected, keyed by the reason for the rejection.
+     *
+     * @return amounts of queries.
+     */
+    @Nonnull
+    public Map<String, Long> getRejectedCounts()
+    {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        rejected.forEach((outcome, count) -> result.put(outcome.name(), count.sum()));
+        return result;
+    }
+
+    public void resetCounts()
+    {
+        rejected.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * A token bucket, represented by the (theoretical) time at which it is full again (cf. the 'generic cell rate
+     * algorithm'). Each request advances that time by the time it takes to add the tokens that it costs. A request is
+     * allowed if this does not move that time further into the future than the time it takes to refill the bucket
+     * entirely. A request that costs more than that is allowed only when the bucket is full.
+     */
+    static class Bucket
+    {
+        private final AtomicLong fullAt;
+
+        Bucket(final long now)
+        {
+            fullAt = new AtomicLong(now);
+        }
+
+        boolean tryAcquire(final long now, final long costNanos, final long capacityNanos)
+        {
+            while (true) {
+                final long current = fullAt.get();
+                final long start = Math.max(current, now);
+                if (start + Math.min(costNanos, capacityNanos) - now > capacityNanos) {
+                    return false;
+                }
+                final long next = start + costNanos;
+                if (fullAt.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Returns tokens that were acquired for a request that was rejected by another bucket.
+         */
+        void release(final long costNanos)
+        {
+            fullAt.addAndGet(-costNanos);
+        }
+
+        boolean isFull(final long now)
+        {
+            return fullAt.get() - now <= 0;
+        }
+    }
+}
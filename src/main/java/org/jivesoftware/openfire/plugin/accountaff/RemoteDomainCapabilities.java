@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.util.JiveGlobals;
+import org.jivesoftware.util.SystemProperty;
+import org.jivesoftware.util.cache.Cache;
+import org.jivesoftware.util.cache.CacheFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps track of which remote domains support the protocol described in XEP-0489: Reporting Account Affiliations.
+ *
+ * Support is established by a {@link CapabilityProbe}, asynchronously: a check for a domain of which support is not yet
+ * known triggers a probe, but does not wait for it. Until the probe completes, the domain is assumed to support the
+ * protocol. Results are stored in a cache that is shared by all nodes of a cluster, and that expires entries after a
+ * configurable duration, after which the next check triggers a new probe.
+ *
+ * When a probe fails (e.g. because the domain did not respond), no new probe is attempted for that domain for a while.
+ * Domains for which that while has passed are periodically purged from memory.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class RemoteDomainCapabilities
+{
+    private static final Logger Log = LoggerFactory.getLogger(RemoteDomainCapabilities.class);
+
+    public static final SystemProperty<Boolean> ENABLED = SystemProperty.Builder.ofType(Boolean.class)
+        .setKey("plugin.raa.remote-capabilities.enabled")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(false)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Duration> TIMEOUT = SystemProperty.Builder.ofType(Duration.class)
+        .setKey("plugin.raa.remote-capabilities.timeout")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(Duration.ofSeconds(30))
+        .setChronoUnit(ChronoUnit.SECONDS)
+        .setDynamic(false)
+        .build();
+
+    public static final SystemProperty<Duration> RETRY_DELAY = SystemProperty.Builder.ofType(Duration.class)
+        .setKey("plugin.raa.remote-capabilities.retry-delay")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(Duration.ofMinutes(5))
+        .setChronoUnit(ChronoUnit.SECONDS)
+        .setDynamic(true)
+        .build();
+
+    public static final String CACHE_NAME = "RAA Remote Domain Capabilities";
+
+    private static final long DEFAULT_MAX_SIZE = 1024 * 1024;
+
+    private static final Duration DEFAULT_MAX_LIFETIME = Duration.ofHours(24);
+
+    private static final RemoteDomainCapabilities INSTANCE = new RemoteDomainCapabilities();
+
+    public static RemoteDomainCapabilities getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Support of the protocol, keyed by domain.
+     */
+    private Cache<String, Boolean> cache;
+
+    /**
+     * Domains for which a probe is in progress or recently failed, mapped to the time (as per {@link System#nanoTime()})
+     * after which a new probe can be started. Local to this cluster node.
+     */
+    private final Map<String, Long> probing = new ConcurrentHashMap<>();
+
+    /**
+     * The time (as per {@link #clock}) after which {@link #probing} is next purged of expired entries.
+     */
+    private volatile long nextPurge;
+
+    /**
+     * The source of time (in nanoseconds) for probe scheduling. Replaceable for testing.
+     */
+    private volatile LongSupplier clock = System::nanoTime;
+
+    private volatile CapabilityProbe probe;
+
+    private volatile boolean enabled;
+
+    private final Consumer<Boolean> enabledListener = value -> setEnabled(value != null && value);
+
+    private final LongAdder probes = new LongAdder();
+
+    private final LongAdder failedProbes = new LongAdder();
+
+    private RemoteDomainCapabilities()
+    {}
+
+    public synchronized void start()
+    {
+        final String propertyPrefix = "cache." + CACHE_NAME.replaceAll(" ", "");
+        if (JiveGlobals.getProperty(propertyPrefix + ".size") == null) {
+            CacheFactory.setMaxSizeProperty(CACHE_NAME, DEFAULT_MAX_SIZE);
+        }
+        if (JiveGlobals.getProperty(propertyPrefix + ".maxLifetime") == null) {
+            CacheFactory.setMaxLifetimeProperty(CACHE_NAME, DEFAULT_MAX_LIFETIME.toMillis());
+        }
+        cache = CacheFactory.createCache(CACHE_NAME);
+        nextPurge = clock.getAsLong();
+        if (probe == null) {
+            probe = new DiscoCapabilityProbe(TIMEOUT.getValue());
+        }
+        enabledListener.accept(ENABLED.getValue());
+        ENABLED.addListener(enabledListener);
+    }
+
+    public synchronized void stop()
+    {
+        ENABLED.removeListener(enabledListener);
+        enabled = false;
+        cache = null;
+        probing.clear();
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    void setEnabled(final boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Replaces the source of time that is used to schedule probes.
+     *
+     * @param clock a source of time, in nanoseconds (as per {@link System#nanoTime()}).
+     */
+    void setClock(@Nonnull final LongSupplier clock)
+    {
+        this.clock = clock;
+    }
+
+    /**
+     * Replaces the probe that is used to determine if a domain supports the protocol.
+     *
+     * @param probe the probe to use.
+     */
+    public void setProbe(@Nonnull final CapabilityProbe probe)
+    {
+        this.probe = probe;
+    }
+
+    /**
+     * Checks if a remote domain is known not to support the protocol. If support for the domain is not known, this
+     * triggers an asynchronous probe of the domain, but returns immediately.
+     *
+     * When this functionality is disabled, this method always returns false.
+     *
+     * @param domain a remote domain.
+     * @return true if the domain is known not to support the protocol, otherwise false.
+     */
+    public boolean isKnownUnsupported(@Nonnull final String domain)
+    {
+        final Cache<String, Boolean> cache = this.cache;
+        if (cache == null || !enabled) {
+            return false;
+        }
+        final Boolean supported = cache.get(domain);
+        if (supported == null) {
+            probeAsync(domain);
+            return false;
+        }
+        return !supported;
+    }
+
+    /**
+     * Returns what is known about support of the protocol by a domain, without triggering a probe.
+     *
+     * @param domain a remote domain.
+     * @return true or false if support is known, null if it is not.
+     */
+    @Nullable
+    public Boolean getSupport(@Nonnull final String domain)
+    {
+        final Cache<String, Boolean> cache = this.cache;
+        return cache == null ? null : cache.get(domain);
+    }
+
+    private void probeAsync(@Nonnull final String domain)
+    {
+        final long now = clock.getAsLong();
+        purgeExpired(now);
+        final Long notBefore = probing.get(domain);
+        if (notBefore != null && notBefore - now > 0) {
+            // A probe is in progress, or a recent probe failed.
+            return;
+        }
+        final long until = now + Math.max(TIMEOUT.getValue().toNanos(), RETRY_DELAY.getValue().toNanos());
+        if (notBefore == null ? probing.putIfAbsent(domain, until) != null : !probing.replace(domain, notBefore, until)) {
+            // Another thread started a probe concurrently.
+            return;
+        }
+
+        Log.debug("Probing domain '{}' for support of account info.", domain);
+        probes.increment();
+        final CompletableFuture<Boolean> future;
+        try {
+            future = probe.probe(domain);
+        } catch (RuntimeException e) {
+            Log.debug("Unable to probe domain '{}' for support of account info.", domain, e);
+            failedProbes.increment();
+            return;
+        }
+        future.whenComplete((supported, throwable) -> {
+            if (throwable != null || supported == null) {
+                Log.debug("Unable to determine if domain '{}' supports account info. Will retry after {}.", domain, RETRY_DELAY.getValue(), throwable);
+                failedProbes.increment();
+                probing.put(domain, clock.getAsLong() + RETRY_DELAY.getValue().toNanos());
+                return;
+            }
+            Log.debug("Domain '{}' {} account info.", domain, supported ? "supports" : "does not support");
+            final Cache<String, Boolean> cache = this.cache;
+            if (cache != null) {
+                cache.put(domain, supported);
+            }
+            probing.remove(domain);
+        });
+    }
+
+    /**
+     * Removes domains for which a new probe can be started from {@link #probing}, at most once per retry delay. Without
+     * this, domains of which a probe failed would be retained indefinitely.
+     */
+    private void purgeExpired(final long now)
+    {
+        final long nextPurge = this.nextPurge;
+        if (nextPurge - now > 0) {
+            return;
+        }
+        this.nextPurge = now + RETRY_DELAY.getValue().toNanos();
+        probing.entrySet().removeIf(entry -> entry.getValue() - now <= 0);
+    }
+
+    /**
+     * Returns the amount of domains for which a probe is in progress or recently failed.
+     *
+     * @return an amount of domains.
+     */
+    int getProbingCount()
+    {
+        return probing.size();
+    }
+
+    public int getSize()
+    {
+        final Cache<String, Boolean> cache = this.cache;
+        return cache == null ? 0 : cache.size();
+    }
+
+    public long getProbeCount()
+    {
+        return probes.sum();
+    }
+
+    public long getFailedProbeCount()
+    {
+        return failedProbes.sum();
+    }
+}
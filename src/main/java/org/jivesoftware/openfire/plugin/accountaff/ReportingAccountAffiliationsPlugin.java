@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2023-2025 Ignite Realtime Foundation. All rights reserved.
+ * Copyright (C) 2023-2026 Ignite Realtime Foundation. All rights reserved.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +19,6 @@ import org.jivesoftware.openfire.XMPPServer;
 import org.jivesoftware.openfire.container.Plugin;
 import org.jivesoftware.openfire.container.PluginManager;
 import org.jivesoftware.openfire.disco.ServerFeaturesProvider;
-import org.jivesoftware.openfire.interceptor.InterceptorManager;
 
 import java.io.File;
 import java.util.Collections;
@@ -33,51 +32,65 @@ import java.util.Iterator;
  */
 public class ReportingAccountAffiliationsPlugin implements Plugin
 {
+    /**
+     * The canonical name of this plugin, as used to associate system properties with it.
+     */
+    public static final String CANONICAL_NAME = "accountaff";
+
     private IQInfoQueryHandler handler;
 
-    private EmbedPresenceSubPacketInterceptor embedPresenceSubPacketInterceptor;
-    private EmbedPresenceDirectedPacketInterceptor embedPresenceDirectedPacketInterceptor;
-    private EmbedMessagePacketInterceptor embedMessagePacketInterceptor;
+    private IQBatchInfoQueryHandler batchHandler;
+
+    private EmbedInfoPacketInterceptor embedInfoPacketInterceptor;
 
     @Override
     public void initializePlugin(PluginManager manager, File pluginDirectory)
     {
+        Metrics.getInstance().start();
+        // Started before the cache, so that the index is updated before cached info is invalidated by the same session event.
+        AnonymousSessionIndex.getInstance().start();
+        InfoDAO.start();
+        InfoCache.getInstance().start();
+        AdminSet.getInstance().start();
+        AffiliationRules.getInstance().start();
+        SubscriptionIndex.getInstance().start();
+        TrustEngine.getInstance().start();
+        QueryRateLimiter.getInstance().start();
+        // Started before the handlers, which use it for queries that cannot be answered from cache.
+        LookupExecutor.getInstance().start();
+
         handler = new IQInfoQueryHandler();
         XMPPServer.getInstance().getIQRouter().addHandler(handler);
         XMPPServer.getInstance().getIQDiscoInfoHandler().addServerFeature(Info.NAMESPACE);
 
-        embedPresenceSubPacketInterceptor = new EmbedPresenceSubPacketInterceptor();
-        InterceptorManager.getInstance().addInterceptor(embedPresenceSubPacketInterceptor);
-        XMPPServer.getInstance().getIQDiscoInfoHandler().addServerFeature(EmbedPresenceSubPacketInterceptor.NAMESPACE);
+        batchHandler = new IQBatchInfoQueryHandler();
+        XMPPServer.getInstance().getIQRouter().addHandler(batchHandler);
+        XMPPServer.getInstance().getIQDiscoInfoHandler().addServerFeature(IQBatchInfoQueryHandler.NAMESPACE);
 
-        embedPresenceDirectedPacketInterceptor = new EmbedPresenceDirectedPacketInterceptor();
-        InterceptorManager.getInstance().addInterceptor(embedPresenceDirectedPacketInterceptor);
-        XMPPServer.getInstance().getIQDiscoInfoHandler().addServerFeature(EmbedPresenceDirectedPacketInterceptor.NAMESPACE);
+        RemoteDomainCapabilities.getInstance().start();
+        embedInfoPacketInterceptor = new EmbedInfoPacketInterceptor();
+        embedInfoPacketInterceptor.start();
 
-        embedMessagePacketInterceptor = new EmbedMessagePacketInterceptor();
-        InterceptorManager.getInstance().addInterceptor(embedMessagePacketInterceptor);
-        XMPPServer.getInstance().getIQDiscoInfoHandler().addServerFeature(EmbedMessagePacketInterceptor.NAMESPACE);
+        InfoCacheWarmer.getInstance().start();
+        AffiliationStatistics.getInstance().start();
     }
 
     @Override
     public void destroyPlugin()
     {
-        XMPPServer.getInstance().getIQDiscoInfoHandler().removeServerFeature(EmbedMessagePacketInterceptor.NAMESPACE);
-        if (embedMessagePacketInterceptor != null) {
-            InterceptorManager.getInstance().removeInterceptor(embedMessagePacketInterceptor);
-            embedMessagePacketInterceptor = null;
-        }
+        AffiliationStatistics.getInstance().stop();
+        InfoCacheWarmer.getInstance().stop();
 
-        XMPPServer.getInstance().getIQDiscoInfoHandler().removeServerFeature(EmbedPresenceDirectedPacketInterceptor.NAMESPACE);
-        if (embedPresenceDirectedPacketInterceptor != null) {
-            InterceptorManager.getInstance().removeInterceptor(embedPresenceDirectedPacketInterceptor);
-            embedPresenceDirectedPacketInterceptor = null;
+        if (embedInfoPacketInterceptor != null) {
+            embedInfoPacketInterceptor.stop();
+            embedInfoPacketInterceptor = null;
         }
+        RemoteDomainCapabilities.getInstance().stop();
 
-        XMPPServer.getInstance().getIQDiscoInfoHandler().removeServerFeature(EmbedPresenceSubPacketInterceptor.NAMESPACE);
-        if (embedPresenceSubPacketInterceptor != null) {
-            InterceptorManager.getInstance().removeInterceptor(embedPresenceSubPacketInterceptor);
-            embedPresenceSubPacketInterceptor = null;
+        XMPPServer.getInstance().getIQDiscoInfoHandler().removeServerFeature(IQBatchInfoQueryHandler.NAMESPACE);
+        if (batchHandler != null) {
+            XMPPServer.getInstance().getIQRouter().removeHandler(batchHandler);
+            batchHandler = null;
         }
 
         XMPPServer.getInstance().getIQDiscoInfoHandler().removeServerFeature(Info.NAMESPACE);
@@ -85,5 +98,17 @@ public class ReportingAccountAffiliationsPlugin implements Plugin
             XMPPServer.getInstance().getIQRouter().removeHandler(handler);
             handler = null;
         }
+        // Stopped after the handlers, so that no lookups are submitted while pending lookups complete.
+        LookupExecutor.getInstance().stop();
+
+        QueryRateLimiter.getInstance().stop();
+        TrustEngine.getInstance().stop();
+        SubscriptionIndex.getInstance().stop();
+        AffiliationRules.getInstance().stop();
+        AdminSet.getInstance().stop();
+        InfoCache.getInstance().stop();
+        InfoDAO.stop();
+        AnonymousSessionIndex.getInstance().stop();
+        Metrics.getInstance().stop();
     }
 }
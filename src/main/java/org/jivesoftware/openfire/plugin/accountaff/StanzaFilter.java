@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.XMPPServer;
+import org.jivesoftware.util.SystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.JID;
+import org.xmpp.packet.Message;
+import org.xmpp.packet.Packet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Determines, before any lookups are performed, if account info is to be added to a stanza, based on its type and
+ * recipient.
+ *
+ * The rules are configured through properties. Whenever one of these properties changes, the rules are compiled into
+ * an immutable form that can be evaluated without locking and (except for the check for component recipients) without
+ * allocating objects. For each rule, the amount of stanzas that it excluded is counted.
+ *
+ * By default, no stanza is excluded.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class StanzaFilter
+{
+    private static final Logger Log = LoggerFactory.getLogger(StanzaFilter.class);
+
+    public static final SystemProperty<List<String>> MESSAGE_TYPES = SystemProperty.Builder.ofType(List.class)
+        .setKey("plugin.raa.filter.message-types")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(Arrays.asList("normal", "chat", "groupchat", "headline", "error"))
+        .setDynamic(true)
+        .buildList(String.class);
+
+    public static final SystemProperty<Boolean> LOCAL_RECIPIENTS = SystemProperty.Builder.ofType(Boolean.class)
+        .setKey("plugin.raa.filter.local-recipients")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(true)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Boolean> COMPONENT_RECIPIENTS = SystemProperty.Builder.ofType(Boolean.class)
+        .setKey("plugin.raa.filter.component-recipients")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(true)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<List<String>> ALLOWED_DOMAINS = SystemProperty.Builder.ofType(List.class)
+        .setKey("plugin.raa.filter.domains.allow")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(Collections.emptyList())
+        .setDynamic(true)
+        .buildList(String.class);
+
+    public static final SystemProperty<List<String>> DENIED_DOMAINS = SystemProperty.Builder.ofType(List.class)
+        .setKey("plugin.raa.filter.domains.deny")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(Collections.emptyList())
+        .setDynamic(true)
+        .buildList(String.class);
+
+    /**
+     * The rules that can exclude a stanza, in order of evaluation.
+     */
+    public enum Rule
+    {
+        /**
+         * The message is of a type that is not configured to carry account info.
+         */
+        message_type,
+
+        /**
+         * The recipient is a local entity, which can query account info itself.
+         */
+        local_recipient,
+
+        /**
+         * The domain of the recipient is on the deny list.
+         */
+        domain_denied,
+
+        /**
+         * The allow list is not empty, and does not contain the domain of the recipient.
+         */
+        domain_not_allowed,
+
+        /**
+         * The recipient is a component (such as a multi-user chat service) of this server.
+         */
+        component_recipient,
+
+        /**
+         * The domain of the recipient is known not to support account info (see {@link RemoteDomainCapabilities}).
+         */
+        domain_unsupported
+    }
+
+    private static final StanzaFilter INSTANCE = new StanzaFilter();
+
+    public static StanzaFilter getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final Map<Rule, LongAdder> excluded = new EnumMap<>(Rule.class);
+
+    private final Consumer<Boolean> booleanListener = value -> compile();
+
+    private final Consumer<List<String>> listListener = value -> compile();
+
+    private volatile Rules rules = new Rules(EnumSet.allOf(Message.Type.class), true, true, Collections.emptySet(), Collections.emptySet(), null);
+
+    private StanzaFilter()
+    {
+        for (final Rule rule : Rule.values()) {
+            excluded.put(rule, new LongAdder());
+        }
+    }
+
+    public synchronized void start()
+    {
+        compile();
+        MESSAGE_TYPES.addListener(listListener);
+        LOCAL_RECIPIENTS.addListener(booleanListener);
+        COMPONENT_RECIPIENTS.addListener(booleanListener);
+        ALLOWED_DOMAINS.addListener(listListener);
+        DENIED_DOMAINS.addListener(listListener);
+    }
+
+    public synchronized void stop()
+    {
+        DENIED_DOMAINS.removeListener(listListener);
+        ALLOWED_DOMAINS.removeListener(listListener);
+        COMPONENT_RECIPIENTS.removeListener(booleanListener);
+        LOCAL_RECIPIENTS.removeListener(booleanListener);
+        MESSAGE_TYPES.removeListener(listListener);
+    }
+
+    private synchronized void compile()
+    {
+        final Set<Message.Type> messageTypes = EnumSet.noneOf(Message.Type.class);
+        for (final String value : MESSAGE_TYPES.getValue()) {
+            try {
+                messageTypes.add(Message.Type.valueOf(value.trim()));
+            } catch (IllegalArgumentException e) {
+                Log.warn("Ignoring unrecognized message type '{}' in property '{}'.", value, MESSAGE_TYPES.getKey());
+            }
+        }
+        rules = new Rules(messageTypes, LOCAL_RECIPIENTS.getValue(), COMPONENT_RECIPIENTS.getValue(), toDomains(ALLOWED_DOMAINS.getValue()), toDomains(DENIED_DOMAINS.getValue()), XMPPServer.getInstance().getServerInfo().getXMPPDomain());
+        Log.debug("Compiled stanza filter rules: {}", rules);
+    }
+
+    @Nonnull
+    private static Set<String> toDomains(@Nullable final List<String> values)
+    {
+        final Set<String> result = new HashSet<>();
+        if (values != null) {
+            for (final String value : values) {
+                if (value != null && !value.trim().isEmpty()) {
+                    result.add(value.trim().toLowerCase());
+                }
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Evaluates the rules for a stanza.
+     *
+     * @param stanza the stanza for which to evaluate the rules.
+     * @return the rule that excludes the stanza from having account info added, or null if no rule excludes it.
+     */
+    @Nullable
+    public Rule evaluate(@Nonnull final Packet stanza)
+    {
+        final Rule result = rules.evaluate(stanza);
+        if (result != null) {
+            excluded.get(result).increment();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the amount of stanzas that each of the rules excluded.
+     *
+     * @return amounts of stanzas, keyed by rule.
+     */
+    @Nonnull
+    public Map<String, Long> getExcludedCounts()
+    {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        excluded.forEach((rule, count) -> result.put(rule.name(), count.sum()));
+        return result;
+    }
+
+    public void resetCounts()
+    {
+        excluded.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * An immutable, compiled form of the configured rules.
+     */
+    static final class Rules
+    {
+        private final Set<Message.Type> messageTypes;
+        private final boolean localRecipients;
+        private final boolean componentRecipients;
+        private final Set<String> allowedDomains;
+        private final Set<String> deniedDomains;
+        private final String localDomain;
+
+        Rules(@Nonnull final Set<Message.Type> messageTypes, final boolean localRecipients, final boolean componentRecipients, @Nonnull final Set<String> allowedDomains, @Nonnull final Set<String> deniedDomains, @Nullable final String localDomain)
+        {
+            this.messageTypes = messageTypes;
+            this.localRecipients = localRecipients;
+            this.componentRecipients = componentRecipients;
+            this.allowedDomains = allowedDomains;
+            this.deniedDomains = deniedDomains;
+            this.localDomain = localDomain;
+        }
+
+        @Nullable
+        Rule evaluate(@Nonnull final Packet stanza)
+        {
+            if (stanza instanceof Message && !messageTypes.contains(((Message) stanza).getType())) {
+                return Rule.message_type;
+            }
+
+            final JID recipient = stanza.getTo();
+            if (recipient == null) {
+                // Not addressed to a specific entity. Left to the strategy to handle.
+                return null;
+            }
+
+            final String domain = recipient.getDomain();
+            if (!localRecipients && domain.equals(localDomain)) {
+                return Rule.local_recipient;
+            }
+            if (!deniedDomains.isEmpty() && deniedDomains.contains(domain)) {
+                return Rule.domain_denied;
+            }
+            if (!allowedDomains.isEmpty() && !allowedDomains.contains(domain)) {
+                return Rule.domain_not_allowed;
+            }
+            if (domain.equals(localDomain)) {
+                return null;
+            }
+            final RemoteDomainCapabilities capabilities = RemoteDomainCapabilities.getInstance();
+            if (!componentRecipients || capabilities.isEnabled()) {
+                if (XMPPServer.getInstance().matchesComponent(recipient)) {
+                    return componentRecipients ? null : Rule.component_recipient;
+                }
+                if (capabilities.isKnownUnsupported(domain)) {
+                    return Rule.domain_unsupported;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Rules{" +
+                "messageTypes=" + messageTypes +
+                ", localRecipients=" + localRecipients +
+                ", componentRecipients=" + componentRecipients +
+                ", allowedDomains=" + allowedDomains +
+                ", deniedDomains=" + deniedDomains +
+                ", localDomain='" + localDomain + '\'' +
+                '}';
+        }
+    }
+}
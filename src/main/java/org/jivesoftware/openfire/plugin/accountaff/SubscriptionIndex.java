@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.SessionManager;
+import org.jivesoftware.openfire.event.SessionEventDispatcher;
+import org.jivesoftware.openfire.event.SessionEventListener;
+import org.jivesoftware.openfire.event.UserEventDispatcher;
+import org.jivesoftware.openfire.event.UserEventListener;
+import org.jivesoftware.openfire.roster.Roster;
+import org.jivesoftware.openfire.roster.RosterEventDispatcher;
+import org.jivesoftware.openfire.roster.RosterEventListener;
+import org.jivesoftware.openfire.roster.RosterItem;
+import org.jivesoftware.openfire.session.Session;
+import org.jivesoftware.openfire.user.User;
+import org.jivesoftware.util.SystemProperty;
+import org.jivesoftware.util.TaskEngine;
+import org.jivesoftware.util.cache.Cache;
+import org.jivesoftware.util.cache.CacheFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmpp.packet.JID;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of the entities to which local users have a presence subscription (a subscription state of 'to' or 'both').
+ *
+ * The index is kept current by roster events. Users for which no data is indexed yet are seeded, in the background,
+ * from the roster that Openfire has cached for them, if any. This index never causes a roster to be loaded from the
+ * database: when no data is indexed (yet), the user is considered not to be subscribed to any entity (which causes
+ * account information to be sent, which is harmless). Rosters that are loaded for users that are not online are not
+ * indexed.
+ *
+ * Data for a user is discarded when a session of that user is closed, or when the user is deleted. The amount of
+ * indexed users is bounded: when the bound is reached, arbitrary users are discarded (their data is seeded again when
+ * it is needed). As roster events are dispatched only on the cluster node on which they occur, data is seeded again
+ * from the (clustered) roster cache after a configurable amount of time. Until that completes, the data that was
+ * indexed before is used.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class SubscriptionIndex implements RosterEventListener, SessionEventListener, UserEventListener
+{
+    private static final Logger Log = LoggerFactory.getLogger(SubscriptionIndex.class);
+
+    /**
+     * The name of the cache in which Openfire's RosterManager keeps rosters.
+     */
+    private static final String ROSTER_CACHE_NAME = "Roster";
+
+    public static final SystemProperty<Integer> MAX_USERS = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.subscriptions.max-users")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(100_000)
+        .setMinValue(1)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Duration> MAX_AGE = SystemProperty.Builder.ofType(Duration.class)
+        .setKey("plugin.raa.subscriptions.max-age")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(Duration.ofMinutes(5))
+        .setChronoUnit(ChronoUnit.SECONDS)
+        .setDynamic(true)
+        .build();
+
+    private static final SubscriptionIndex INSTANCE = new SubscriptionIndex();
+
+    public static SubscriptionIndex getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * The entities that a user is subscribed to, keyed by username.
+     */
+    private final Map<String, Entry> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Usernames of the users for which data is being seeded from the roster cache.
+     */
+    private final Set<String> seeding = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Used to prevent more than one thread from discarding users when the bound is reached.
+     */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private volatile Cache<String, Roster> rosterCache;
+
+    /**
+     * The value of {@link #MAX_AGE} in nanoseconds, where zero or less disables expiry.
+     */
+    private volatile long maxAgeNanos;
+
+    private final Consumer<Duration> maxAgeListener = value -> maxAgeNanos = value == null ? 0 : value.toNanos();
+
+    private SubscriptionIndex()
+    {}
+
+    public void start()
+    {
+        maxAgeNanos = MAX_AGE.getValue().toNanos();
+        MAX_AGE.addListener(maxAgeListener);
+        rosterCache = CacheFactory.createCache(ROSTER_CACHE_NAME);
+        RosterEventDispatcher.addListener(this);
+        SessionEventDispatcher.addListener(this);
+        UserEventDispatcher.addListener(this);
+    }
+
+    public void stop()
+    {
+        UserEventDispatcher.removeListener(this);
+        SessionEventDispatcher.removeListener(this);
+        RosterEventDispatcher.removeListener(this);
+        MAX_AGE.removeListener(maxAgeListener);
+        subscriptions.clear();
+        rosterCache = null;
+    }
+
+    /**
+     * Checks if a local user has a presence subscription to an entity.
+     *
+     * @param username the name of the local user
+     * @param recipient the address of the entity (the resource-part, if any, is ignored).
+     * @return true if the user is known to be subscribed to the presence of the entity, otherwise false.
+     */
+    public boolean isSubscribedTo(@Nonnull final String username, @Nonnull final JID recipient)
+    {
+        final Entry entry = subscriptions.get(username);
+        if (entry == null || entry.isExpired(maxAgeNanos)) {
+            seedAsync(username);
+        }
+        if (entry == null) {
+            Log.trace("No subscriptions of user '{}' are indexed (yet). Considering the user not to be subscribed to '{}'.", username, recipient);
+            return false;
+        }
+        return entry.contains(recipient);
+    }
+
+    /**
+     * Returns the amount of users for which subscriptions are indexed.
+     *
+     * @return an amount of users.
+     */
+    public int size()
+    {
+        return subscriptions.size();
+    }
+
+    /**
+     * Seeds the data of a user from the (clustered) roster cache in the background, unless that is already in progress.
+     * Reading from that cache can involve other cluster nodes, which is why this is not done on the thread that
+     * processes a stanza.
+     */
+    private void seedAsync(@Nonnull final String username)
+    {
+        if (!seeding.add(username)) {
+            return;
+        }
+        TaskEngine.getInstance().submit(() -> {
+            try {
+                seedFromRosterCache(username);
+            } finally {
+                seeding.remove(username);
+            }
+        });
+    }
+
+    private void seedFromRosterCache(@Nonnull final String username)
+    {
+        final Cache<String, Roster> rosterCache = this.rosterCache;
+        final Roster roster = rosterCache == null ? null : rosterCache.get(username);
+        if (roster == null) {
+            subscriptions.remove(username);
+            return;
+        }
+        index(roster);
+    }
+
+    private void index(@Nonnull final Roster roster)
+    {
+        final Entry entry = new Entry();
+        for (final RosterItem item : roster.getRosterItems()) {
+            if (isSubscribedTo(item)) {
+                entry.add(item.getJid());
+            }
+        }
+        if (subscriptions.size() >= MAX_USERS.getValue()) {
+            evict();
+        }
+        subscriptions.put(roster.getUsername(), entry);
+    }
+
+    /**
+     * Discards arbitrary users, until the amount of indexed users is (well) below the bound.
+     */
+    private void evict()
+    {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final int target = MAX_USERS.getValue() * 9 / 10;
+            final Iterator<Entry> iterator = subscriptions.values().iterator();
+            int evicted = 0;
+            while (subscriptions.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evicted++;
+            }
+            Log.debug("Discarded the subscriptions of {} users, as the maximum amount of indexed users was reached.", evicted);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private void update(@Nonnull final Roster roster, @Nonnull final RosterItem item)
+    {
+        // Users that are not indexed are seeded from their roster when needed.
+        final Entry entry = subscriptions.get(roster.getUsername());
+        if (entry == null) {
+            return;
+        }
+        if (isSubscribedTo(item)) {
+            entry.add(item.getJid());
+        } else {
+            entry.remove(item.getJid());
+        }
+    }
+
+    private static boolean isSubscribedTo(@Nonnull final RosterItem item)
+    {
+        final RosterItem.SubType subType = item.getSubStatus();
+        return subType == RosterItem.SUB_TO || subType == RosterItem.SUB_BOTH;
+    }
+
+    @Override
+    public void rosterLoaded(final Roster roster)
+    {
+        // Rosters are also loaded for users that are offline (e.g. to process presence probes). Those are not indexed.
+        if (SessionManager.getInstance().getActiveSessionCount(roster.getUsername()) > 0) {
+            index(roster);
+        }
+    }
+
+    @Override
+    public boolean addingContact(final Roster roster, final RosterItem item, final boolean persistent)
+    {
+        // Do not interfere with the decision to persist the contact.
+        return persistent;
+    }
+
+    @Override
+    public void contactAdded(final Roster roster, final RosterItem item)
+    {
+        update(roster, item);
+    }
+
+    @Override
+    public void contactUpdated(final Roster roster, final RosterItem item)
+    {
+        update(roster, item);
+    }
+
+    @Override
+    public void contactDeleted(final Roster roster, final RosterItem item)
+    {
+        final Entry entry = subscriptions.get(roster.getUsername());
+        if (entry != null) {
+            entry.remove(item.getJid());
+        }
+    }
+
+    @Override
+    public void sessionCreated(final Session session)
+    {}
+
+    @Override
+    public void sessionDestroyed(final Session session)
+    {
+        // Other sessions of the same user cause the data to be seeded again from the roster cache, when needed.
+        final JID address = session.getAddress();
+        if (address != null && address.getNode() != null) {
+            subscriptions.remove(address.getNode());
+        }
+    }
+
+    @Override
+    public void anonymousSessionCreated(final Session session)
+    {}
+
+    @Override
+    public void anonymousSessionDestroyed(final Session session)
+    {
+        final JID address = session.getAddress();
+        if (address != null && address.getNode() != null) {
+            subscriptions.remove(address.getNode());
+        }
+    }
+
+    @Override
+    public void resourceBound(final Session session)
+    {}
+
+    @Override
+    public void userCreated(final User user, final Map<String, Object> params)
+    {}
+
+    @Override
+    public void userDeleting(final User user, final Map<String, Object> params)
+    {
+        subscriptions.remove(user.getUsername());
+    }
+
+    @Override
+    public void userModified(final User user, final Map<String, Object> params)
+    {}
+
+    /**
+     * The entities that a user is subscribed to, and the moment at which these were indexed.
+     *
+     * Entities are kept as node-parts grouped by domain-part (an empty node-part represents a domain), so that an address
+     * can be looked up with the values that it already holds, rather than by a bare JID that needs to be created for it.
+     */
+    private static final class Entry
+    {
+        private final Map<String, Set<String>> nodesByDomain = new ConcurrentHashMap<>();
+
+        private final long indexedAt = System.nanoTime();
+
+        boolean contains(@Nonnull final JID address)
+        {
+            final Set<String> nodes = nodesByDomain.get(address.getDomain());
+            return nodes != null && nodes.contains(nodeOf(address));
+        }
+
+        void add(@Nonnull final JID address)
+        {
+            nodesByDomain.compute(address.getDomain(), (domain, nodes) -> {
+                final Set<String> result = nodes == null ? ConcurrentHashMap.newKeySet() : nodes;
+                result.add(nodeOf(address));
+                return result;
+            });
+        }
+
+        void remove(@Nonnull final JID address)
+        {
+            nodesByDomain.computeIfPresent(address.getDomain(), (domain, nodes) -> {
+                nodes.remove(nodeOf(address));
+                return nodes.isEmpty() ? null : nodes;
+            });
+        }
+
+        /**
+         * Checks if the data is older than a maximum age (a zero or negative maximum age disables expiry).
+         */
+        boolean isExpired(final long maxAgeNanos)
+        {
+            return maxAgeNanos > 0 && System.nanoTime() - indexedAt > maxAgeNanos;
+        }
+
+        @Nonnull
+        private static String nodeOf(@Nonnull final JID address)
+        {
+            return address.getNode() == null ? "" : address.getNode();
+        }
+    }
+}
@@ -0,0 +1,686 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.database.DbConnectionManager;
+import org.jivesoftware.openfire.event.UserEventDispatcher;
+import org.jivesoftware.openfire.event.UserEventListener;
+import org.jivesoftware.openfire.roster.Roster;
+import org.jivesoftware.openfire.roster.RosterEventDispatcher;
+import org.jivesoftware.openfire.roster.RosterEventListener;
+import org.jivesoftware.openfire.roster.RosterItem;
+import org.jivesoftware.openfire.user.User;
+import org.jivesoftware.util.SystemProperty;
+import org.jivesoftware.util.TaskEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes a trust score (a value between 0 and 100) for registered users.
+ *
+ * The score is a weighted combination of signals that Openfire already has:
+ * <ul>
+ *     <li>the age of the account;</li>
+ *     <li>the size of the roster of the user;</li>
+ *     <li>the ratio of presence subscription requests of the user that were accepted;</li>
+ *     <li>the amount of messages that the user has sent.</li>
+ * </ul>
+ *
+ * The signals of each user are updated incrementally, by roster events and by the {@link EmbedInfoPacketInterceptor}
+ * (which counts messages). The signals are periodically written to the database, in batches, so that they survive a
+ * restart. Messages are written as the amount of messages counted since the previous write, which is added to the
+ * persisted count. This allows every cluster node to count the messages sent through it, without one node overwriting
+ * the count of another. Roster signals reflect the (shared) roster of a user, and are written as absolute values.
+ *
+ * The signals of a bounded amount of users are kept in memory. When that bound is reached, signals that have been
+ * written to the database are discarded. The signals of a user that are not in memory are read from the database, in
+ * the background, when a score is requested for that user. Until they have been read, no score (or the last score that
+ * was reported) is returned, after which the cached info of the user is invalidated. Requesting a score, or counting
+ * messages, therefore never involves I/O on the thread that does so.
+ *
+ * When a change of signals causes the score of a user to change, the cached info of that user is invalidated.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class TrustEngine implements RosterEventListener, UserEventListener
+{
+    private static final Logger Log = LoggerFactory.getLogger(TrustEngine.class);
+
+    public static final SystemProperty<Boolean> ENABLED = SystemProperty.Builder.ofType(Boolean.class)
+        .setKey("plugin.raa.trust.enabled")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(false)
+        .setDynamic(false)
+        .build();
+
+    public static final SystemProperty<Duration> PERSIST_INTERVAL = SystemProperty.Builder.ofType(Duration.class)
+        .setKey("plugin.raa.trust.persist-interval")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(Duration.ofMinutes(5))
+        .setChronoUnit(ChronoUnit.SECONDS)
+        .setDynamic(false)
+        .build();
+
+    public static final SystemProperty<Integer> MAX_USERS = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.trust.max-users")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(100_000)
+        .setMinValue(1)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> WEIGHT_AGE = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.trust.weight.age")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(40)
+        .setMinValue(0)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> WEIGHT_ROSTER = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.trust.weight.roster")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(20)
+        .setMinValue(0)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> WEIGHT_ACCEPTANCE = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.trust.weight.acceptance")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(25)
+        .setMinValue(0)
+        .setDynamic(true)
+        .build();
+
+    public static final SystemProperty<Integer> WEIGHT_MESSAGES = SystemProperty.Builder.ofType(Integer.class)
+        .setKey("plugin.raa.trust.weight.messages")
+        .setPlugin(ReportingAccountAffiliationsPlugin.CANONICAL_NAME)
+        .setDefaultValue(15)
+        .setMinValue(0)
+        .setDynamic(true)
+        .build();
+
+    /**
+     * The account age at which the age signal reaches its maximum contribution.
+     */
+    private static final long FULL_AGE_MILLIS = Duration.ofDays(365).toMillis();
+
+    /**
+     * The roster size at which the roster signal reaches its maximum contribution.
+     */
+    private static final int FULL_ROSTER_SIZE = 50;
+
+    /**
+     * The amount of sent messages at which the message signal reaches its maximum contribution.
+     */
+    private static final long FULL_MESSAGES = 1000;
+
+    /**
+     * The maximum amount of rows that are written to the database in one batch.
+     */
+    private static final int PERSIST_BATCH_SIZE = 500;
+
+    private static final String LOAD_SIGNALS = "SELECT rosterSize, accepted, pending, messages FROM ofRaaTrust WHERE username=?";
+    private static final String DELETE_SIGNALS = "DELETE FROM ofRaaTrust WHERE username=?";
+    private static final String UPDATE_SIGNALS = "UPDATE ofRaaTrust SET rosterSize=COALESCE(?, rosterSize), accepted=COALESCE(?, accepted), pending=COALESCE(?, pending), messages=messages+?, score=COALESCE(?, score) WHERE username=?";
+    private static final String INSERT_SIGNALS = "INSERT INTO ofRaaTrust (username, rosterSize, accepted, pending, messages, score) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final TrustEngine INSTANCE = new TrustEngine();
+
+    public static TrustEngine getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * The signals of users, keyed by username.
+     */
+    private final Map<String, Signals> signals = new ConcurrentHashMap<>();
+
+    /**
+     * Used to prevent more than one thread from discarding signals when the bound is reached.
+     */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private volatile boolean enabled;
+
+    private TimerTask persistTask;
+
+    private TrustEngine()
+    {}
+
+    public synchronized void start()
+    {
+        enabled = ENABLED.getValue();
+        if (!enabled) {
+            Log.debug("Trust scoring is disabled.");
+            return;
+        }
+
+        RosterEventDispatcher.addListener(this);
+        UserEventDispatcher.addListener(this);
+
+        persistTask = new TimerTask() {
+            @Override
+            public void run() {
+                persist();
+            }
+        };
+        final long interval = PERSIST_INTERVAL.getValue().toMillis();
+        TaskEngine.getInstance().scheduleAtFixedRate(persistTask, interval, interval);
+    }
+
+    public synchronized void stop()
+    {
+        if (!enabled) {
+            return;
+        }
+        enabled = false;
+
+        UserEventDispatcher.removeListener(this);
+        RosterEventDispatcher.removeListener(this);
+        if (persistTask != null) {
+            TaskEngine.getInstance().cancelScheduledTask(persistTask);
+            persistTask = null;
+        }
+        persist();
+        signals.clear();
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Returns the trust score of a registered user.
+     *
+     * When the signals of the user have not been read from the database, they are read in the background, and the last
+     * score that was reported for the user (if any) is returned. Cached info of the user is invalidated when the signals
+     * have been read, so that the score is reported with the next lookup.
+     *
+     * @param user the user for which to return a score.
+     * @return a value between 0 and 100 (inclusive), or null when trust scoring is disabled, or no score is known yet.
+     */
+    @Nullable
+    public Integer getScore(@Nonnull final User user)
+    {
+        if (!enabled) {
+            return null;
+        }
+        final Signals userSignals = getSignals(user.getUsername());
+        if (!userSignals.loaded) {
+            loadAsync(user.getUsername(), userSignals);
+            final int last = userSignals.score;
+            return last < 0 ? null : last;
+        }
+        if (user.getCreationDate() != null) {
+            userSignals.created = user.getCreationDate().getTime();
+        }
+        final int score = computeScore(userSignals);
+        if (userSignals.score != score) {
+            userSignals.score = score;
+            userSignals.dirty = true;
+        }
+        return score;
+    }
+
+    /**
+     * Records that a user sent a message.
+     *
+     * @param username the name of the user that sent a message.
+     */
+    public void recordMessage(@Nonnull final String username)
+    {
+        if (!enabled) {
+            return;
+        }
+        // A message that is counted while the signals of its sender are being discarded may be lost. As the amount of
+        // messages is a heuristic, that is preferred over the cost of coordinating these.
+        final Signals userSignals = getSignals(username);
+        userSignals.unpersistedMessages.incrementAndGet();
+        // The score is re-evaluated when the signals are persisted, to keep this on-stanza path cheap.
+        userSignals.dirty = true;
+    }
+
+    private static int computeScore(@Nonnull final Signals signals)
+    {
+        final int weightAge = WEIGHT_AGE.getValue();
+        final int weightRoster = WEIGHT_ROSTER.getValue();
+        final int weightAcceptance = WEIGHT_ACCEPTANCE.getValue();
+        final int weightMessages = WEIGHT_MESSAGES.getValue();
+        final int totalWeight = weightAge + weightRoster + weightAcceptance + weightMessages;
+        if (totalWeight == 0) {
+            return 0;
+        }
+
+        final double age = signals.created <= 0 ? 0 : Math.min(1, (double) (System.currentTimeMillis() - signals.created) / FULL_AGE_MILLIS);
+        final double roster = Math.min(1, (double) signals.rosterSize / FULL_ROSTER_SIZE);
+        final int requests = signals.accepted + signals.pending;
+        final double acceptance = requests == 0 ? 0 : (double) signals.accepted / requests;
+        final double messages = Math.min(1, Math.log10(signals.getMessages() + 1) / Math.log10(FULL_MESSAGES + 1));
+
+        final double weighted = weightAge * Math.max(0, age) + weightRoster * roster + weightAcceptance * acceptance + weightMessages * messages;
+        return (int) Math.round(100 * weighted / totalWeight);
+    }
+
+    /**
+     * Re-evaluates the score of a user after its signals changed, invalidating cached info when the score changed.
+     */
+    private void rescore(@Nonnull final String username, @Nonnull final Signals userSignals)
+    {
+        if (userSignals.score < 0) {
+            // No score has been reported for this user since it was loaded. There is no cached info that can be stale.
+            return;
+        }
+        final int score = computeScore(userSignals);
+        if (score != userSignals.score) {
+            userSignals.score = score;
+            InfoCache.getInstance().invalidate(username);
+        }
+    }
+
+    private void updateRosterSignals(@Nonnull final Roster roster)
+    {
+        int size = 0;
+        int accepted = 0;
+        int pending = 0;
+        for (final RosterItem item : roster.getRosterItems()) {
+            size++;
+            if (item.getSubStatus() == RosterItem.SUB_TO || item.getSubStatus() == RosterItem.SUB_BOTH) {
+                accepted++;
+            } else if (item.getAskStatus() == RosterItem.ASK_SUBSCRIBE) {
+                pending++;
+            }
+        }
+
+        final Signals userSignals = getSignals(roster.getUsername());
+        if (!userSignals.rosterKnown || userSignals.rosterSize != size || userSignals.accepted != accepted || userSignals.pending != pending) {
+            userSignals.rosterSize = size;
+            userSignals.accepted = accepted;
+            userSignals.pending = pending;
+            userSignals.rosterKnown = true;
+            userSignals.rosterChanged = true;
+            userSignals.dirty = true;
+            rescore(roster.getUsername(), userSignals);
+        }
+    }
+
+    /**
+     * Returns the signals of a user that are kept in memory, creating them if needed.
+     */
+    @Nonnull
+    private Signals getSignals(@Nonnull final String username)
+    {
+        final Signals existing = signals.get(username);
+        if (existing != null) {
+            return existing;
+        }
+        if (signals.size() >= MAX_USERS.getValue()) {
+            evict();
+        }
+        return signals.computeIfAbsent(username, u -> new Signals());
+    }
+
+    /**
+     * Discards signals that have been written to the database, until the amount of users for which signals are kept is
+     * (well) below the bound. Signals that have not been written yet are retained (until after the next write).
+     */
+    private void evict()
+    {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final int target = MAX_USERS.getValue() * 9 / 10;
+            final Iterator<Signals> iterator = signals.values().iterator();
+            int evicted = 0;
+            while (signals.size() > target && iterator.hasNext()) {
+                if (!iterator.next().dirty) {
+                    iterator.remove();
+                    evicted++;
+                }
+            }
+            Log.debug("Discarded the trust signals of {} users, as the maximum amount of users for which signals are kept was reached.", evicted);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Reads the persisted signals of a user into memory in the background, unless that already happened or is in
+     * progress. When the signals have been read, the cached info of the user is invalidated.
+     */
+    private static void loadAsync(@Nonnull final String username, @Nonnull final Signals userSignals)
+    {
+        if (!userSignals.loading.compareAndSet(false, true)) {
+            return;
+        }
+        TaskEngine.getInstance().submit(() -> {
+            try {
+                if (load(username, userSignals)) {
+                    InfoCache.getInstance().invalidate(username);
+                }
+            } finally {
+                userSignals.loading.set(false);
+            }
+        });
+    }
+
+    /**
+     * Reads the persisted signals of a user into memory. Signals that were recorded before, take precedence.
+     *
+     * @return true if the signals were read, false if that failed (in which case it is retried when a score is next requested).
+     */
+    private static boolean load(@Nonnull final String username, @Nonnull final Signals userSignals)
+    {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            con = DbConnectionManager.getConnection();
+            pstmt = con.prepareStatement(LOAD_SIGNALS);
+            pstmt.setString(1, username);
+            rs = pstmt.executeQuery();
+            if (rs.next()) {
+                if (!userSignals.rosterKnown) {
+                    userSignals.rosterSize = rs.getInt(1);
+                    userSignals.accepted = rs.getInt(2);
+                    userSignals.pending = rs.getInt(3);
+                    userSignals.rosterKnown = true;
+                }
+                userSignals.persistedMessages = rs.getLong(4);
+            }
+            userSignals.loaded = true;
+            return true;
+        } catch (SQLException e) {
+            Log.error("Unable to load the trust signals of user '{}'.", username, e);
+            return false;
+        } finally {
+            DbConnectionManager.closeConnection(rs, pstmt, con);
+        }
+    }
+
+    /**
+     * Writes the signals that changed since they were last written to the database.
+     */
+    private void persist()
+    {
+        final List<Map.Entry<String, Signals>> changed = new ArrayList<>();
+        for (final Map.Entry<String, Signals> entry : signals.entrySet()) {
+            if (entry.getValue().dirty) {
+                entry.getValue().dirty = false;
+                changed.add(entry);
+            }
+        }
+        if (!changed.isEmpty()) {
+            for (int offset = 0; offset < changed.size(); offset += PERSIST_BATCH_SIZE) {
+                final List<Map.Entry<String, Signals>> batch = changed.subList(offset, Math.min(offset + PERSIST_BATCH_SIZE, changed.size()));
+                // Messages are counted without re-evaluating the score. Catch up on that now.
+                batch.forEach(entry -> rescore(entry.getKey(), entry.getValue()));
+                persist(batch);
+            }
+            Log.debug("Persisted the trust signals of {} users.", changed.size());
+        }
+        if (signals.size() > MAX_USERS.getValue()) {
+            evict();
+        }
+    }
+
+    /**
+     * Writes a batch of signals to the database. When that fails, the signals are marked to be written again with the
+     * next run.
+     */
+    private static void persist(@Nonnull final List<Map.Entry<String, Signals>> batch)
+    {
+        // Snapshot what is written, so that changes that occur concurrently are written with the next run.
+        final long[] messages = new long[batch.size()];
+        final boolean[] rosterChanged = new boolean[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            final Signals signals = batch.get(i).getValue();
+            messages[i] = signals.unpersistedMessages.get();
+            rosterChanged[i] = signals.rosterChanged;
+            signals.rosterChanged = false;
+        }
+
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        boolean abortTransaction = false;
+        try {
+            con = DbConnectionManager.getTransactionConnection();
+            pstmt = con.prepareStatement(UPDATE_SIGNALS);
+            for (int i = 0; i < batch.size(); i++) {
+                final Signals signals = batch.get(i).getValue();
+                setNullableInt(pstmt, 1, rosterChanged[i] ? signals.rosterSize : null);
+                setNullableInt(pstmt, 2, rosterChanged[i] ? signals.accepted : null);
+                setNullableInt(pstmt, 3, rosterChanged[i] ? signals.pending : null);
+                pstmt.setLong(4, messages[i]);
+                setNullableInt(pstmt, 5, signals.score < 0 ? null : signals.score);
+                pstmt.setString(6, batch.get(i).getKey());
+                pstmt.addBatch();
+            }
+            final int[] updated = pstmt.executeBatch();
+            DbConnectionManager.fastcloseStmt(pstmt);
+
+            // Users without a row in the database. Should another cluster node insert a row for the same user
+            // concurrently, this transaction fails, and is retried (as an update) with the next run.
+            pstmt = con.prepareStatement(INSERT_SIGNALS);
+            boolean inserts = false;
+            for (int i = 0; i < batch.size(); i++) {
+                if (updated[i] != 0) {
+                    continue;
+                }
+                final Signals signals = batch.get(i).getValue();
+                pstmt.setString(1, batch.get(i).getKey());
+                pstmt.setInt(2, signals.rosterSize);
+                pstmt.setInt(3, signals.accepted);
+                pstmt.setInt(4, signals.pending);
+                pstmt.setLong(5, messages[i]);
+                pstmt.setInt(6, Math.max(0, signals.score));
+                pstmt.addBatch();
+                inserts = true;
+            }
+            if (inserts) {
+                pstmt.executeBatch();
+            }
+        } catch (SQLException e) {
+            Log.error("Unable to persist the trust signals of {} users.", batch.size(), e);
+            abortTransaction = true;
+        } finally {
+            DbConnectionManager.closeTransactionConnection(pstmt, con, abortTransaction);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            final Signals signals = batch.get(i).getValue();
+            if (abortTransaction) {
+                signals.rosterChanged |= rosterChanged[i];
+                signals.dirty = true;
+            } else {
+                signals.persistedMessages += messages[i];
+                signals.unpersistedMessages.addAndGet(-messages[i]);
+            }
+        }
+    }
+
+    private static void setNullableInt(@Nonnull final PreparedStatement pstmt, final int index, @Nullable final Integer value) throws SQLException
+    {
+        if (value == null) {
+            pstmt.setNull(index, Types.INTEGER);
+        } else {
+            pstmt.setInt(index, value);
+        }
+    }
+
+    private static void delete(@Nonnull final String username)
+    {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        try {
+            con = DbConnectionManager.getConnection();
+            pstmt = con.prepareStatement(DELETE_SIGNALS);
+            pstmt.setString(1, username);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            Log.error("Unable to delete the trust signals of user '{}'.", username, e);
+        } finally {
+            DbConnectionManager.closeConnection(pstmt, con);
+        }
+    }
+
+    /**
+     * Returns the amount of users for which signals are kept.
+     *
+     * @return an amount of users.
+     */
+    public int size()
+    {
+        return signals.size();
+    }
+
+    @Override
+    public void rosterLoaded(final Roster roster)
+    {
+        updateRosterSignals(roster);
+    }
+
+    @Override
+    public boolean addingContact(final Roster roster, final RosterItem item, final boolean persistent)
+    {
+        // Do not interfere with the decision to persist the contact.
+        return persistent;
+    }
+
+    @Override
+    public void contactAdded(final Roster roster, final RosterItem item)
+    {
+        updateRosterSignals(roster);
+    }
+
+    @Override
+    public void contactUpdated(final Roster roster, final RosterItem item)
+    {
+        updateRosterSignals(roster);
+    }
+
+    @Override
+    public void contactDeleted(final Roster roster, final RosterItem item)
+    {
+        updateRosterSignals(roster);
+    }
+
+    @Override
+    public void userCreated(final User user, final Map<String, Object> params)
+    {}
+
+    @Override
+    public void userDeleting(final User user, final Map<String, Object> params)
+    {
+        signals.remove(user.getUsername());
+        delete(user.getUsername());
+    }
+
+    @Override
+    public void userModified(final User user, final Map<String, Object> params)
+    {}
+
+    /**
+     * The signals of one user. Fields are primitives, so that they are cheap to keep in memory and to read.
+     */
+    private static final class Signals
+    {
+        /**
+         * The creation date of the account, in milliseconds since the epoch, or zero if not (yet) known.
+         */
+        volatile long created;
+
+        volatile int rosterSize;
+
+        /**
+         * The amount of roster items to which the user is subscribed (presence subscription requests that were accepted).
+         */
+        volatile int accepted;
+
+        /**
+         * The amount of roster items with a pending presence subscription request of the user.
+         */
+        volatile int pending;
+
+        /**
+         * Indicates that the roster signals reflect the roster of the user (or the values that were persisted for it).
+         */
+        volatile boolean rosterKnown;
+
+        /**
+         * Indicates that the roster signals changed since they were last written to the database.
+         */
+        volatile boolean rosterChanged;
+
+        /**
+         * The amount of messages sent by the user that was persisted, as read from and written to the database by this
+         * cluster node.
+         */
+        volatile long persistedMessages;
+
+        /**
+         * The amount of messages sent by the user through this cluster node, that were not yet written to the database.
+         */
+        final AtomicLong unpersistedMessages = new AtomicLong();
+
+        /**
+         * Indicates that the persisted signals of the user have been read from the database.
+         */
+        volatile boolean loaded;
+
+        /**
+         * Indicates that the persisted signals of the user are being read from the database.
+         */
+        final AtomicBoolean loading = new AtomicBoolean();
+
+        /**
+         * The last score that was reported for the user, or -1 if no score has been reported since it was loaded.
+         */
+        volatile int score = -1;
+
+        /**
+         * Indicates that the signals changed since they were last written to the database.
+         */
+        volatile boolean dirty;
+
+        long getMessages()
+        {
+            return persistedMessages + unpersistedMessages.get();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.database.DbConnectionManager;
+import org.jivesoftware.openfire.user.User;
+import org.jivesoftware.openfire.user.UserManager;
+import org.jivesoftware.openfire.user.UserNotFoundException;
+import org.jivesoftware.openfire.user.property.DefaultUserPropertyProvider;
+import org.jivesoftware.util.JiveGlobals;
+import org.jivesoftware.util.cache.Cache;
+import org.jivesoftware.util.cache.CacheFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An affiliation provider that obtains affiliations from the 'RAA Affiliation' user property.
+ *
+ * This is the default provider. When Openfire's default user property provider is in use, the property values of many
+ * users are read with one query. Otherwise, the properties are read user by user.
+ *
+ * Similarly, when Openfire's default user property provider is in use, affiliations are configured in bulk in one
+ * transaction, using batched statements, after which the affected users are removed from Openfire's cache of users (so
+ * that their properties are reloaded). As this bypasses the user object, Openfire does not dispatch user events for these
+ * changes. The caller is expected to invalidate cached info and update statistics for the batch as a whole (as
+ * {@link AffiliationImporter} does), rather than per user. Otherwise, the property is set user by user.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class UserPropertyAffiliationProvider implements AffiliationProvider
+{
+    private static final Logger Log = LoggerFactory.getLogger(UserPropertyAffiliationProvider.class);
+
+    /**
+     * The name of the user property that can be used to configure the affiliation of a user.
+     */
+    public static final String AFFILIATION_PROPERTY = "RAA Affiliation";
+
+    /**
+     * The maximum amount of users for which property values are read in one query.
+     */
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private static final String LOAD_PROPERTY_VALUES = "SELECT username, propValue FROM ofUserProp WHERE name=? AND username IN ";
+
+    private static final String DELETE_PROPERTY = "DELETE FROM ofUserProp WHERE username=? AND name=?";
+
+    private static final String INSERT_PROPERTY = "INSERT INTO ofUserProp (username, name, propValue) VALUES (?, ?, ?)";
+
+    /**
+     * The name of the cache in which Openfire's UserManager keeps users (including their properties).
+     */
+    private static final String USER_CACHE_NAME = "User";
+
+    @Nullable
+    @Override
+    public Affiliation getAffiliation(@Nonnull final String username)
+    {
+        try {
+            final String value = UserManager.getInstance().getUser(username).getProperties().get(AFFILIATION_PROPERTY);
+            return InfoDAO.parseConfiguredAffiliation(username, value);
+        } catch (UserNotFoundException e) {
+            return null;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, Affiliation> getAffiliations(@Nonnull final Collection<String> usernames)
+    {
+        final Map<String, Affiliation> result = new HashMap<>();
+        if (usesDefaultUserPropertyProvider()) {
+            final List<String> batch = new ArrayList<>(Math.min(usernames.size(), MAX_BATCH_SIZE));
+            for (final String username : usernames) {
+                batch.add(username);
+                if (batch.size() == MAX_BATCH_SIZE) {
+                    if (!loadBatch(batch, result)) {
+                        break;
+                    }
+                    batch.clear();
+                }
+            }
+            if (batch.isEmpty() || loadBatch(batch, result)) {
+                return result;
+            }
+            result.clear();
+        }
+
+        // Another user property provider is in use (or the bulk query failed): read the properties user by user.
+        for (final String username : usernames) {
+            final Affiliation affiliation = getAffiliation(username);
+            if (affiliation != null) {
+                result.put(username, affiliation);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean setAffiliations(@Nonnull final Map<String, Affiliation> affiliations)
+    {
+        if (affiliations.isEmpty()) {
+            return true;
+        }
+        if (usesDefaultUserPropertyProvider()) {
+            if (!storeBatch(affiliations)) {
+                return false;
+            }
+            final Cache<String, User> userCache = CacheFactory.createCache(USER_CACHE_NAME);
+            affiliations.keySet().forEach(userCache::remove);
+            return true;
+        }
+
+        // Another user property provider is in use: set the property user by user.
+        boolean result = true;
+        for (final Map.Entry<String, Affiliation> entry : affiliations.entrySet()) {
+            try {
+                final Map<String, String> properties = UserManager.getInstance().getUser(entry.getKey()).getProperties();
+                if (entry.getValue() == null) {
+                    properties.remove(AFFILIATION_PROPERTY);
+                } else {
+                    properties.put(AFFILIATION_PROPERTY, entry.getValue().name());
+                }
+            } catch (UserNotFoundException e) {
+                Log.debug("Unable to configure the affiliation of user '{}', as the user does not exist.", entry.getKey());
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    private static boolean usesDefaultUserPropertyProvider()
+    {
+        final String providerClassName = JiveGlobals.getProperty("provider.userproperty.className", DefaultUserPropertyProvider.class.getName());
+        return DefaultUserPropertyProvider.class.getName().equals(providerClassName);
+    }
+
+    /**
+     * Writes the property values of a batch of users to the database of Openfire's default user property provider.
+     *
+     * @return false if the values could not be written.
+     */
+    private static boolean storeBatch(@Nonnull final Map<String, Affiliation> affiliations)
+    {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        boolean abortTransaction = false;
+        try {
+            con = DbConnectionManager.getTransactionConnection();
+            pstmt = con.prepareStatement(DELETE_PROPERTY);
+            for (final String username : affiliations.keySet()) {
+                pstmt.setString(1, username);
+                pstmt.setString(2, AFFILIATION_PROPERTY);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            DbConnectionManager.fastcloseStmt(pstmt);
+
+            pstmt = con.prepareStatement(INSERT_PROPERTY);
+            for (final Map.Entry<String, Affiliation> entry : affiliations.entrySet()) {
+                if (entry.getValue() != null) {
+                    pstmt.setString(1, entry.getKey());
+                    pstmt.setString(2, AFFILIATION_PROPERTY);
+                    pstmt.setString(3, entry.getValue().name());
+                    pstmt.addBatch();
+                }
+            }
+            pstmt.executeBatch();
+            return true;
+        } catch (SQLException e) {
+            Log.error("Unable to store the affiliations of {} users.", affiliations.size(), e);
+            abortTransaction = true;
+            return false;
+        } finally {
+            DbConnectionManager.closeTransactionConnection(pstmt, con, abortTransaction);
+        }
+    }
+
+    /**
+     * Reads the property values of a batch of users from the database of Openfire's default user property provider.
+     *
+     * @return false if the values could not be read.
+     */
+    private static boolean loadBatch(@Nonnull final List<String> usernames, @Nonnull final Map<String, Affiliation> result)
+    {
+        final StringBuilder sql = new StringBuilder(LOAD_PROPERTY_VALUES).append('(');
+        for (int i = 0; i < usernames.size(); i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(')');
+
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            con = DbConnectionManager.getConnection();
+            pstmt = con.prepareStatement(sql.toString());
+            pstmt.setString(1, AFFILIATION_PROPERTY);
+            for (int i = 0; i < usernames.size(); i++) {
+                pstmt.setString(i + 2, usernames.get(i));
+            }
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                final String username = rs.getString(1);
+                final Affiliation affiliation = InfoDAO.parseConfiguredAffiliation(username, rs.getString(2));
+                if (affiliation != null) {
+                    result.put(username, affiliation);
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            Log.warn("Unable to load user property values in bulk. Falling back to loading them individually.", e);
+            return false;
+        } finally {
+            DbConnectionManager.closeConnection(rs, pstmt, con);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests that verify the functionality of {@link AffiliationImporter#parse(String, int, Map)}.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class AffiliationImporterTest
+{
+    /**
+     * Verifies that a line with a username and an affiliation is parsed.
+     */
+    @Test
+    public void testValidLine() throws Exception
+    {
+        // Setup test fixture.
+        final Map<String, Affiliation> changes = new HashMap<>();
+
+        // Execute system under test.
+        final String result = AffiliationImporter.parse("alice,member", 2, changes);
+
+        // Verify results.
+        assertNull(result);
+        assertEquals(Map.of("alice", Affiliation.member), changes);
+    }
+
+    /**
+     * Verifies that whitespace and quotes are removed, and that the username is normalized.
+     */
+    @Test
+    public void testQuotedAndNormalized() throws Exception
+    {
+        // Setup test fixture.
+        final Map<String, Affiliation> changes = new HashMap<>();
+
+        // Execute system under test.
+        final String result = AffiliationImporter.parse("  \"Alice\" , \"registered\" ", 2, changes);
+
+        // Verify results.
+        assertNull(result);
+        assertEquals(Map.of("alice", Affiliation.registered), changes);
+    }
+
+    /**
+     * Verifies that an empty affiliation, or 'none', removes the affiliation of a user.
+     */
+    @Test
+    public void testRemoval() throws Exception
+    {
+        // Setup test fixture.
+        final Map<String, Affiliation> changes = new LinkedHashMap<>();
+
+        // Execute system under test.
+        final String first = AffiliationImporter.parse("alice,", 2, changes);
+        final String second = AffiliationImporter.parse("bob,none", 3, changes);
+        final String third = AffiliationImporter.parse("carol", 4, changes);
+
+        // Verify results.
+        assertNull(first);
+        assertNull(second);
+        assertNull(third);
+        assertEquals(3, changes.size());
+        assertTrue(changes.containsKey("alice") && changes.get("alice") == null);
+        assertTrue(changes.containsKey("bob") && changes.get("bob") == null);
+        assertTrue(changes.containsKey("carol") && changes.get("carol") == null);
+    }
+
+    /**
+     * Verifies that empty lines, comments and a header on the first line are ignored.
+     */
+    @Test
+    public void testIgnoredLines() throws Exception
+    {
+        // Setup test fixture.
+        final Map<String, Affiliation> changes = new HashMap<>();
+
+        // Execute system under test.
+        final String header = AffiliationImporter.parse("username,affiliation", 1, changes);
+        final String empty = AffiliationImporter.parse("   ", 2, changes);
+        final String comment = AffiliationImporter.parse("# alice,member", 3, changes);
+
+        // Verify results.
+        assertNull(header);
+        assertNull(empty);
+        assertNull(comment);
+        assertTrue(changes.isEmpty());
+    }
+
+    /**
+     * Verifies that when a username occurs more than once, the last occurrence is used.
+     */
+    @Test
+    public void testLastOccurrenceWins() throws Exception
+    {
+        // Setup test fixture.
+        final Map<String, Affiliation> changes = new HashMap<>();
+        AffiliationImporter.parse("alice,member", 2, changes);
+
+        // Execute system under test.
+        AffiliationImporter.parse("alice,registered", 3, changes);
+
+        // Verify results.
+        assertEquals(Map.of("alice", Affiliation.registered), changes);
+    }
+
+    /**
+     * Verifies that an affiliation that is not recognized is reported, including the line number.
+     */
+    @Test
+    public void testUnrecognizedAffiliation() throws Exception
+    {
+        // Setup test fixture.
+        final Map<String, Affiliation> changes = new HashMap<>();
+
+        // Execute system under test.
+        final String result = AffiliationImporter.parse("alice,owner", 7, changes);
+
+        // Verify results.
+        assertNotNull(result);
+        assertTrue(result.startsWith("Line 7:"));
+        assertTrue(changes.isEmpty());
+    }
+
+    /**
+     * Verifies that affiliations that cannot be configured (such as 'admin') are reported.
+     */
+    @Test
+    public void testNonConfigurableAffiliation() throws Exception
+    {
+        // Setup test fixture.
+        final Map<String, Affiliation> changes = new HashMap<>();
+
+        // Execute system under test.
+        final String admin = AffiliationImporter.parse("alice,admin", 2, changes);
+        final String anonymous = AffiliationImporter.parse("bob,anonymous", 3, changes);
+
+        // Verify results.
+        assertNotNull(admin);
+        assertNotNull(anonymous);
+        assertTrue(changes.isEmpty());
+    }
+
+    /**
+     * Verifies that an invalid or missing username is reported.
+     */
+    @Test
+    public void testInvalidUsername() throws Exception
+    {
+        // Setup test fixture.
+        final Map<String, Affiliation> changes = new HashMap<>();
+
+        // Execute system under test.
+        final String invalid = AffiliationImporter.parse("alice@example.org,member", 2, changes);
+        final String missing = AffiliationImporter.parse(",member", 3, changes);
+
+        // Verify results.
+        assertNotNull(invalid);
+        assertNotNull(missing);
+        assertTrue(changes.isEmpty());
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.openfire.user.User;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests that verify the functionality of the rule parser and the wildcard matching of {@link AffiliationRules}.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class AffiliationRulesTest
+{
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        TestEnvironment.setUp();
+    }
+
+    @Nonnull
+    private static User user(@Nullable final String email, final long ageDays, @Nonnull final Map<String, String> properties)
+    {
+        final User result = mock(User.class);
+        when(result.getUsername()).thenReturn("alice");
+        when(result.getEmail()).thenReturn(email);
+        when(result.getCreationDate()).thenReturn(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ageDays)));
+        when(result.getProperties()).thenReturn(properties);
+        return result;
+    }
+
+    /**
+     * Verifies that a pattern without wildcards matches only the exact value.
+     */
+    @Test
+    public void testGlobExact() throws Exception
+    {
+        // Execute system under test.
+        final Predicate<String> result = AffiliationRules.glob("staff", false);
+
+        // Verify results.
+        assertTrue(result.test("staff"));
+        assertFalse(result.test("Staff"));
+        assertFalse(result.test("staff2"));
+        assertFalse(result.test(null));
+    }
+
+    /**
+     * Verifies that values can be matched case-insensitively.
+     */
+    @Test
+    public void testGlobIgnoreCase() throws Exception
+    {
+        // Execute system under test.
+        final Predicate<String> exact = AffiliationRules.glob("alice@example.org", true);
+        final Predicate<String> suffix = AffiliationRules.glob("*@example.org", true);
+
+        // Verify results.
+        assertTrue(exact.test("Alice@EXAMPLE.org"));
+        assertTrue(suffix.test("Alice@EXAMPLE.org"));
+        assertFalse(suffix.test("alice@example.com"));
+    }
+
+    /**
+     * Verifies that a single wildcard matches any non-null value, including an empty value.
+     */
+    @Test
+    public void testGlobWildcardOnly() throws Exception
+    {
+        // Execute system under test.
+        final Predicate<String> result = AffiliationRules.glob("*", false);
+
+        // Verify results.
+        assertTrue(result.test(""));
+        assertTrue(result.test("anything"));
+        assertFalse(result.test(null));
+    }
+
+    /**
+     * Verifies that leading and trailing wildcards match suffixes and prefixes.
+     */
+    @Test
+    public void testGlobPrefixAndSuffix() throws Exception
+    {
+        // Execute system under test.
+        final Predicate<String> prefix = AffiliationRules.glob("sales*", false);
+        final Predicate<String> suffix = AffiliationRules.glob("*sales", false);
+
+        // Verify results.
+        assertTrue(prefix.test("sales"));
+        assertTrue(prefix.test("sales-emea"));
+        assertFalse(prefix.test("presales"));
+        assertTrue(suffix.test("presales"));
+        assertFalse(suffix.test("sales-emea"));
+        assertFalse(suffix.test("ales"));
+    }
+
+    /**
+     * Verifies that patterns with multiple wildcards are matched, and that other characters are matched literally.
+     */
+    @Test
+    public void testGlobMultipleWildcards() throws Exception
+    {
+        // Execute system under test.
+        final Predicate<String> result = AffiliationRules.glob("*.example.*", false);
+
+        // Verify results.
+        assertTrue(result.test("mail.example.org"));
+        assertTrue(result.test(".example."));
+        assertFalse(result.test("mailxexample.org"));
+        assertFalse(result.test(null));
+    }
+
+    /**
+     * Verifies that a rule that is not of the expected form is ignored.
+     */
+    @Test
+    public void testRuleInvalidForm() throws Exception
+    {
+        // Execute system under test.
+        final AffiliationRules.Rule result = AffiliationRules.compileRule("member when email=*", new HashMap<>());
+
+        // Verify results.
+        assertNull(result);
+    }
+
+    /**
+     * Verifies that rules for unknown affiliations, or for affiliations that cannot be derived, are ignored.
+     */
+    @Test
+    public void testRuleInvalidAffiliation() throws Exception
+    {
+        // Execute system under test.
+        final AffiliationRules.Rule unknown = AffiliationRules.compileRule("owner if email=*", new HashMap<>());
+        final AffiliationRules.Rule admin = AffiliationRules.compileRule("admin if email=*", new HashMap<>());
+        final AffiliationRules.Rule anonymous = AffiliationRules.compileRule("anonymous if email=*", new HashMap<>());
+
+        // Verify results.
+        assertNull(unknown);
+        assertNull(admin);
+        assertNull(anonymous);
+    }
+
+    /**
+     * Verifies that a rule with an invalid condition is ignored, even if its other conditions are valid.
+     */
+    @Test
+    public void testRuleInvalidCondition() throws Exception
+    {
+        // Execute system under test.
+        final AffiliationRules.Rule unknownInput = AffiliationRules.compileRule("member if colour=red", new HashMap<>());
+        final AffiliationRules.Rule ageOperator = AffiliationRules.compileRule("member if age=30", new HashMap<>());
+        final AffiliationRules.Rule ageValue = AffiliationRules.compileRule("member if email=* and age>=thirty", new HashMap<>());
+        final AffiliationRules.Rule emailOperator = AffiliationRules.compileRule("member if email>=a", new HashMap<>());
+        final AffiliationRules.Rule noOperator = AffiliationRules.compileRule("member if email", new HashMap<>());
+
+        // Verify results.
+        assertNull(unknownInput);
+        assertNull(ageOperator);
+        assertNull(ageValue);
+        assertNull(emailOperator);
+        assertNull(noOperator);
+    }
+
+    /**
+     * Verifies that the affiliation, and the keywords of a rule, are parsed case-insensitively.
+     */
+    @Test
+    public void testRuleCaseInsensitiveKeywords() throws Exception
+    {
+        // Execute system under test.
+        final AffiliationRules.Rule result = AffiliationRules.compileRule("Member IF email=*@example.org AND age>=30", new HashMap<>());
+
+        // Verify results.
+        assertNotNull(result);
+        assertEquals(Affiliation.member, result.affiliation);
+        assertTrue(result.condition.test(user("alice@example.org", 40, Collections.emptyMap())));
+    }
+
+    /**
+     * Verifies that email addresses are matched case-insensitively, and that users without an email address do not match.
+     */
+    @Test
+    public void testRuleEmail() throws Exception
+    {
+        // Setup test fixture.
+        final AffiliationRules.Rule rule = AffiliationRules.compileRule("member if email=*@example.org", new HashMap<>());
+        assertNotNull(rule);
+
+        // Execute system under test.
+        final boolean match = rule.condition.test(user("Alice@Example.ORG", 0, Collections.emptyMap()));
+        final boolean other = rule.condition.test(user("alice@example.com", 0, Collections.emptyMap()));
+        final boolean missing = rule.condition.test(user(null, 0, Collections.emptyMap()));
+
+        // Verify results.
+        assertTrue(match);
+        assertFalse(other);
+        assertFalse(missing);
+    }
+
+    /**
+     * Verifies that a negated condition matches users for which the value does not match, including absent values.
+     */
+    @Test
+    public void testRuleNegated() throws Exception
+    {
+        // Setup test fixture.
+        final AffiliationRules.Rule rule = AffiliationRules.compileRule("registered if email!=*@example.org", new HashMap<>());
+        assertNotNull(rule);
+
+        // Execute system under test.
+        final boolean match = rule.condition.test(user("alice@example.org", 0, Collections.emptyMap()));
+        final boolean other = rule.condition.test(user("alice@example.com", 0, Collections.emptyMap()));
+        final boolean missing = rule.condition.test(user(null, 0, Collections.emptyMap()));
+
+        // Verify results.
+        assertFalse(match);
+        assertTrue(other);
+        assertTrue(missing);
+    }
+
+    /**
+     * Verifies that all conditions of a rule need to be met.
+     */
+    @Test
+    public void testRuleConjunction() throws Exception
+    {
+        // Setup test fixture.
+        final AffiliationRules.Rule rule = AffiliationRules.compileRule("member if property.department=sales* and age>=30", new HashMap<>());
+        assertNotNull(rule);
+
+        // Execute system under test.
+        final boolean both = rule.condition.test(user(null, 40, Map.of("department", "sales-emea")));
+        final boolean tooYoung = rule.condition.test(user(null, 10, Map.of("department", "sales-emea")));
+        final boolean otherDepartment = rule.condition.test(user(null, 40, Map.of("department", "support")));
+        final boolean noDepartment = rule.condition.test(user(null, 40, Collections.emptyMap()));
+
+        // Verify results.
+        assertTrue(both);
+        assertFalse(tooYoung);
+        assertFalse(otherDepartment);
+        assertFalse(noDepartment);
+    }
+
+    /**
+     * Verifies the comparisons of the age of an account.
+     */
+    @Test
+    public void testRuleAge() throws Exception
+    {
+        // Setup test fixture.
+        final AffiliationRules.Rule older = AffiliationRules.compileRule("member if age>30", new HashMap<>());
+        final AffiliationRules.Rule younger = AffiliationRules.compileRule("member if age<30", new HashMap<>());
+        assertNotNull(older);
+        assertNotNull(younger);
+
+        // Execute system under test.
+        final boolean olderMatchesOld = older.condition.test(user(null, 31, Collections.emptyMap()));
+        final boolean olderMatchesNew = older.condition.test(user(null, 29, Collections.emptyMap()));
+        final boolean youngerMatchesOld = younger.condition.test(user(null, 31, Collections.emptyMap()));
+        final boolean youngerMatchesNew = younger.condition.test(user(null, 29, Collections.emptyMap()));
+
+        // Verify results.
+        assertTrue(olderMatchesOld);
+        assertFalse(olderMatchesNew);
+        assertFalse(youngerMatchesOld);
+        assertTrue(youngerMatchesNew);
+    }
+
+    /**
+     * Verifies that the groups that are referenced by a rule are registered, so that their members can be loaded.
+     */
+    @Test
+    public void testRuleGroupReference() throws Exception
+    {
+        // Setup test fixture.
+        final Map<String, AffiliationRules.GroupMembers> groups = new HashMap<>();
+
+        // Execute system under test.
+        final AffiliationRules.Rule result = AffiliationRules.compileRule("member if group=staff and group!=interns", groups);
+
+        // Verify results.
+        assertNotNull(result);
+        assertEquals(2, groups.size());
+        assertTrue(groups.containsKey("staff"));
+        assertTrue(groups.containsKey("interns"));
+    }
+}
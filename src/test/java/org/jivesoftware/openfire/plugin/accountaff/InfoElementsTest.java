@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.dom4j.QName;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Unit tests that verify the functionality of {@link InfoElements#strip(Element)}.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class InfoElementsTest
+{
+    /**
+     * Verifies that a stanza without info elements is left unchanged.
+     */
+    @Test
+    public void testNoInfo() throws Exception
+    {
+        // Setup test fixture.
+        final Element stanza = DocumentHelper.createElement("message");
+        stanza.addElement("body").setText("Hello");
+
+        // Execute system under test.
+        final int result = InfoElements.strip(stanza);
+
+        // Verify results.
+        assertEquals(0, result);
+        assertEquals(1, stanza.elements().size());
+    }
+
+    /**
+     * Verifies that every info element is removed, not just the first one.
+     */
+    @Test
+    public void testAllInfoRemoved() throws Exception
+    {
+        // Setup test fixture.
+        final Element stanza = DocumentHelper.createElement("message");
+        stanza.addElement(QName.get("info", Info.NAMESPACE));
+        stanza.addElement("body").setText("Hello");
+        stanza.addElement(QName.get("info", Info.NAMESPACE));
+        stanza.addElement(QName.get("info", Info.NAMESPACE));
+
+        // Execute system under test.
+        final int result = InfoElements.strip(stanza);
+
+        // Verify results.
+        assertEquals(3, result);
+        assertEquals(1, stanza.elements().size());
+        assertNotNull(stanza.element("body"));
+    }
+
+    /**
+     * Verifies that elements that have the name or the namespace of info elements, but not both, are not removed.
+     */
+    @Test
+    public void testOtherElementsKept() throws Exception
+    {
+        // Setup test fixture.
+        final Element stanza = DocumentHelper.createElement("message");
+        stanza.addElement(QName.get("info", "urn:example:other"));
+        stanza.addElement(QName.get("other", Info.NAMESPACE));
+        stanza.addElement("info");
+
+        // Execute system under test.
+        final int result = InfoElements.strip(stanza);
+
+        // Verify results.
+        assertEquals(0, result);
+        assertEquals(3, stanza.elements().size());
+    }
+
+    /**
+     * Verifies that only info elements that are direct children of the stanza are removed.
+     */
+    @Test
+    public void testNestedInfoKept() throws Exception
+    {
+        // Setup test fixture.
+        final Element stanza = DocumentHelper.createElement("message");
+        final Element forwarded = stanza.addElement(QName.get("forwarded", "urn:xmpp:forward:0"));
+        forwarded.addElement(QName.get("info", Info.NAMESPACE));
+
+        // Execute system under test.
+        final int result = InfoElements.strip(stanza);
+
+        // Verify results.
+        assertEquals(0, result);
+        assertEquals(1, forwarded.elements().size());
+    }
+
+    /**
+     * Verifies that text content of the stanza is not affected.
+     */
+    @Test
+    public void testTextKept() throws Exception
+    {
+        // Setup test fixture.
+        final Element stanza = DocumentHelper.createElement("message");
+        stanza.addText("text");
+        stanza.addElement(QName.get("info", Info.NAMESPACE));
+
+        // Execute system under test.
+        final int result = InfoElements.strip(stanza);
+
+        // Verify results.
+        assertEquals(1, result);
+        assertEquals(1, stanza.nodeCount());
+        assertEquals("text", stanza.getText());
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests that verify the functionality of {@link LatencyHistogram}.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class LatencyHistogramTest
+{
+    /**
+     * Verifies that an empty histogram reports zero durations.
+     */
+    @Test
+    public void testEmpty() throws Exception
+    {
+        // Setup test fixture.
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        // Execute system under test.
+        final Duration result = histogram.getPercentile(99);
+
+        // Verify results.
+        assertEquals(Duration.ZERO, result);
+        assertEquals(0, histogram.getCount());
+        assertEquals(Duration.ZERO, histogram.getMean());
+        assertEquals(Duration.ZERO, histogram.getMax());
+    }
+
+    /**
+     * Verifies that every value falls in a bucket of which the upper bound is at most 1/8 larger than the value, and
+     * that larger values never fall in a lower bucket.
+     */
+    @Test
+    public void testBucketBounds() throws Exception
+    {
+        // Setup test fixture.
+        int previous = -1;
+        for (long value = 0; value < 100_000; value++) {
+            // Execute system under test.
+            final int bucket = LatencyHistogram.bucketOf(value);
+            final long upperBound = LatencyHistogram.upperBoundOf(bucket);
+
+            // Verify results.
+            assertTrue(bucket >= previous);
+            assertTrue(upperBound >= value);
+            assertTrue(upperBound - value <= value / 8);
+            previous = bucket;
+        }
+    }
+
+    /**
+     * Verifies that the largest possible value can be recorded.
+     */
+    @Test
+    public void testLargestValue() throws Exception
+    {
+        // Execute system under test.
+        final int bucket = LatencyHistogram.bucketOf(Long.MAX_VALUE);
+
+        // Verify results.
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(bucket));
+    }
+
+    /**
+     * Verifies that percentiles are reported within the precision of the histogram.
+     */
+    @Test
+    public void testPercentiles() throws Exception
+    {
+        // Setup test fixture.
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        // Execute system under test.
+        final long p0 = histogram.getPercentile(0).toNanos();
+        final long p50 = histogram.getPercentile(50).toNanos();
+        final long p90 = histogram.getPercentile(90).toNanos();
+        final long p100 = histogram.getPercentile(100).toNanos();
+
+        // Verify results.
+        assertEquals(1, p0);
+        assertTrue(p50 >= 500 && p50 <= 500 + 500 / 8);
+        assertTrue(p90 >= 900 && p90 <= 900 + 900 / 8);
+        assertEquals(1000, p100);
+        assertEquals(1000, histogram.getCount());
+        assertEquals(Duration.ofNanos(500), histogram.getMean());
+        assertEquals(Duration.ofNanos(1000), histogram.getMax());
+    }
+
+    /**
+     * Verifies that a percentile is never reported to be larger than the largest recorded value.
+     */
+    @Test
+    public void testPercentileCappedByMax() throws Exception
+    {
+        // Setup test fixture.
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+
+        // Execute system under test.
+        final Duration result = histogram.getPercentile(50);
+
+        // Verify results.
+        assertEquals(Duration.ofNanos(1000), result);
+    }
+
+    /**
+     * Verifies that negative durations are recorded as zero.
+     */
+    @Test
+    public void testNegativeRecordedAsZero() throws Exception
+    {
+        // Setup test fixture.
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        // Execute system under test.
+        histogram.record(-5);
+
+        // Verify results.
+        assertEquals(1, histogram.getCount());
+        assertEquals(Duration.ZERO, histogram.getMax());
+        assertEquals(Duration.ZERO, histogram.getPercentile(100));
+    }
+
+    /**
+     * Verifies that a reset discards all recorded values.
+     */
+    @Test
+    public void testReset() throws Exception
+    {
+        // Setup test fixture.
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+
+        // Execute system under test.
+        histogram.reset();
+
+        // Verify results.
+        assertEquals(0, histogram.getCount());
+        assertEquals(Duration.ZERO, histogram.getMax());
+        assertEquals(Duration.ZERO, histogram.getPercentile(50));
+    }
+
+    /**
+     * Verifies that a summary expresses durations in microseconds.
+     */
+    @Test
+    public void testSummary() throws Exception
+    {
+        // Setup test fixture.
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(2000);
+
+        // Execute system under test.
+        final LatencyHistogram.Summary result = histogram.getSummary();
+
+        // Verify results.
+        assertEquals(1, result.getCount());
+        assertEquals(2.0, result.getMean(), 0.0);
+        assertEquals(2.0, result.getMax(), 0.0);
+        assertEquals(2.0, result.getP99(), 0.0);
+    }
+}
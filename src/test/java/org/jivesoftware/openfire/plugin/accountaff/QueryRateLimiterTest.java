@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests that verify the functionality of the token bucket of {@link QueryRateLimiter}.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class QueryRateLimiterTest
+{
+    /**
+     * The time it takes to add one token to a bucket.
+     */
+    private static final long INTERVAL = 100;
+
+    /**
+     * The time it takes to refill a bucket entirely (a bucket of five tokens).
+     */
+    private static final long CAPACITY = 5 * INTERVAL;
+
+    /**
+     * Verifies that a new bucket allows a burst of as many requests as it has tokens, but not more.
+     */
+    @Test
+    public void testBurst() throws Exception
+    {
+        // Setup test fixture.
+        final QueryRateLimiter.Bucket bucket = new QueryRateLimiter.Bucket(0);
+
+        // Execute system under test & verify results.
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(0, INTERVAL, CAPACITY));
+        }
+        assertFalse(bucket.tryAcquire(0, INTERVAL, CAPACITY));
+    }
+
+    /**
+     * Verifies that tokens are added to an empty bucket over time.
+     */
+    @Test
+    public void testRefill() throws Exception
+    {
+        // Setup test fixture.
+        final QueryRateLimiter.Bucket bucket = new QueryRateLimiter.Bucket(0);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(0, INTERVAL, CAPACITY);
+        }
+
+        // Execute system under test & verify results.
+        assertFalse(bucket.tryAcquire(INTERVAL - 1, INTERVAL, CAPACITY));
+        assertTrue(bucket.tryAcquire(INTERVAL, INTERVAL, CAPACITY));
+        assertFalse(bucket.tryAcquire(INTERVAL, INTERVAL, CAPACITY));
+    }
+
+    /**
+     * Verifies that a request that costs several tokens consumes all of them.
+     */
+    @Test
+    public void testMultipleTokens() throws Exception
+    {
+        // Setup test fixture.
+        final QueryRateLimiter.Bucket bucket = new QueryRateLimiter.Bucket(0);
+
+        // Execute system under test & verify results.
+        assertTrue(bucket.tryAcquire(0, 3 * INTERVAL, CAPACITY));
+        assertFalse(bucket.tryAcquire(0, 3 * INTERVAL, CAPACITY));
+        assertTrue(bucket.tryAcquire(0, 2 * INTERVAL, CAPACITY));
+        assertFalse(bucket.tryAcquire(0, INTERVAL, CAPACITY));
+    }
+
+    /**
+     * Verifies that a request that costs more tokens than fit in a bucket is allowed when the bucket is full, after
+     * which the requester has to wait for all of its tokens to be refilled.
+     */
+    @Test
+    public void testCostExceedingCapacity() throws Exception
+    {
+        // Setup test fixture.
+        final QueryRateLimiter.Bucket bucket = new QueryRateLimiter.Bucket(0);
+
+        // Execute system under test & verify results.
+        assertTrue(bucket.tryAcquire(0, 8 * INTERVAL, CAPACITY));
+        assertFalse(bucket.tryAcquire(3 * INTERVAL, INTERVAL, CAPACITY));
+        assertTrue(bucket.tryAcquire(4 * INTERVAL, INTERVAL, CAPACITY));
+    }
+
+    /**
+     * Verifies that a request that costs more tokens than fit in a bucket is rejected when the bucket is not full.
+     */
+    @Test
+    public void testCostExceedingCapacityWhenNotFull() throws Exception
+    {
+        // Setup test fixture.
+        final QueryRateLimiter.Bucket bucket = new QueryRateLimiter.Bucket(0);
+        bucket.tryAcquire(0, INTERVAL, CAPACITY);
+
+        // Execute system under test.
+        final boolean result = bucket.tryAcquire(0, 8 * INTERVAL, CAPACITY);
+
+        // Verify results.
+        assertFalse(result);
+    }
+
+    /**
+     * Verifies that a bucket is reported to be full only after all of its tokens have been refilled.
+     */
+    @Test
+    public void testIsFull() throws Exception
+    {
+        // Setup test fixture.
+        final QueryRateLimiter.Bucket bucket = new QueryRateLimiter.Bucket(0);
+        bucket.tryAcquire(0, 2 * INTERVAL, CAPACITY);
+
+        // Execute system under test & verify results.
+        assertFalse(bucket.isFull(2 * INTERVAL - 1));
+        assertTrue(bucket.isFull(2 * INTERVAL));
+    }
+
+    /**
+     * Verifies that tokens that are released (after another bucket rejected the request) can be acquired again.
+     */
+    @Test
+    public void testRelease() throws Exception
+    {
+        // Setup test fixture.
+        final QueryRateLimiter.Bucket bucket = new QueryRateLimiter.Bucket(0);
+        assertTrue(bucket.tryAcquire(0, CAPACITY, CAPACITY));
+
+        // Execute system under test.
+        bucket.release(CAPACITY);
+
+        // Verify results.
+        assertTrue(bucket.isFull(0));
+        assertTrue(bucket.tryAcquire(0, CAPACITY, CAPACITY));
+    }
+}
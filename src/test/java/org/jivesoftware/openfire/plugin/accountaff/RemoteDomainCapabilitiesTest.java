@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.util.cache.CacheFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xmpp.packet.IQ;
+import org.xmpp.packet.PacketError;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests that verify the functionality of {@link RemoteDomainCapabilities}, using a stub probe.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class RemoteDomainCapabilitiesTest
+{
+    private static final String DOMAIN = "example.org";
+
+    private final StubProbe probe = new StubProbe();
+
+    private final AtomicLong now = new AtomicLong();
+
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        TestEnvironment.setUpCaches();
+    }
+
+    @Before
+    public void setUp()
+    {
+        final RemoteDomainCapabilities capabilities = RemoteDomainCapabilities.getInstance();
+        capabilities.setProbe(probe);
+        capabilities.setClock(now::get);
+        capabilities.start();
+        capabilities.setEnabled(true);
+        CacheFactory.createCache(RemoteDomainCapabilities.CACHE_NAME).clear();
+    }
+
+    @After
+    public void tearDown()
+    {
+        RemoteDomainCapabilities.getInstance().stop();
+    }
+
+    /**
+     * Verifies that a domain of which support is not known is assumed to support the protocol, and is probed.
+     */
+    @Test
+    public void testUnknownDomainIsProbed() throws Exception
+    {
+        // Execute system under test.
+        final boolean result = RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+
+        // Verify results.
+        assertFalse(result);
+        assertEquals(List.of(DOMAIN), probe.requested);
+        assertNull(RemoteDomainCapabilities.getInstance().getSupport(DOMAIN));
+    }
+
+    /**
+     * Verifies that no new probe is started for a domain while a probe of that domain is in progress.
+     */
+    @Test
+    public void testProbeInFlightIsNotRepeated() throws Exception
+    {
+        // Setup test fixture.
+        RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+
+        // Execute system under test.
+        final boolean result = RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+
+        // Verify results.
+        assertFalse(result);
+        assertEquals(List.of(DOMAIN), probe.requested);
+    }
+
+    /**
+     * Verifies that a domain that was found not to support the protocol is reported as such, without a new probe.
+     */
+    @Test
+    public void testCachedUnsupported() throws Exception
+    {
+        // Setup test fixture.
+        RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+        probe.futures.get(DOMAIN).complete(false);
+
+        // Execute system under test.
+        final boolean result = RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+
+        // Verify results.
+        assertTrue(result);
+        assertEquals(Boolean.FALSE, RemoteDomainCapabilities.getInstance().getSupport(DOMAIN));
+        assertEquals(List.of(DOMAIN), probe.requested);
+    }
+
+    /**
+     * Verifies that a domain that was found to support the protocol is reported as such, without a new probe.
+     */
+    @Test
+    public void testCachedSupported() throws Exception
+    {
+        // Setup test fixture.
+        RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+        probe.futures.get(DOMAIN).complete(true);
+
+        // Execute system under test.
+        final boolean result = RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+
+        // Verify results.
+        assertFalse(result);
+        assertEquals(Boolean.TRUE, RemoteDomainCapabilities.getInstance().getSupport(DOMAIN));
+        assertEquals(List.of(DOMAIN), probe.requested);
+    }
+
+    /**
+     * Verifies that a domain for which a probe failed is not probed again before the retry delay has passed.
+     */
+    @Test
+    public void testFailedProbeIsNotRetriedBeforeDelay() throws Exception
+    {
+        // Setup test fixture.
+        RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+        probe.futures.get(DOMAIN).completeExceptionally(new TimeoutException());
+        now.addAndGet(RemoteDomainCapabilities.RETRY_DELAY.getValue().toNanos() - 1);
+
+        // Execute system under test.
+        final boolean result = RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+
+        // Verify results.
+        assertFalse(result);
+        assertNull(RemoteDomainCapabilities.getInstance().getSupport(DOMAIN));
+        assertEquals(List.of(DOMAIN), probe.requested);
+    }
+
+    /**
+     * Verifies that a domain for which a probe failed is probed again after the retry delay has passed.
+     */
+    @Test
+    public void testFailedProbeIsRetriedAfterDelay() throws Exception
+    {
+        // Setup test fixture.
+        RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+        probe.futures.get(DOMAIN).completeExceptionally(new TimeoutException());
+        now.addAndGet(RemoteDomainCapabilities.RETRY_DELAY.getValue().toNanos());
+
+        // Execute system under test.
+        RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+
+        // Verify results.
+        assertEquals(List.of(DOMAIN, DOMAIN), probe.requested);
+    }
+
+    /**
+     * Verifies that a transient error response (such as a failure to connect to the domain) is not taken to mean that
+     * the domain does not support the protocol, and that the domain is probed again after the retry delay has passed.
+     */
+    @Test
+    public void testTransientErrorIsRetried() throws Exception
+    {
+        // Setup test fixture.
+        RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+        final IQ response = new IQ(IQ.Type.error);
+        response.setError(PacketError.Condition.remote_server_timeout);
+        DiscoCapabilityProbe.complete(probe.futures.get(DOMAIN), DOMAIN, response);
+
+        // Execute system under test.
+        final boolean result = RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+        now.addAndGet(RemoteDomainCapabilities.RETRY_DELAY.getValue().toNanos());
+        RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+
+        // Verify results.
+        assertFalse(result);
+        assertNull(RemoteDomainCapabilities.getInstance().getSupport(DOMAIN));
+        assertEquals(List.of(DOMAIN, DOMAIN), probe.requested);
+    }
+
+    /**
+     * Verifies that a definitive error response is taken to mean that the domain does not support the protocol.
+     */
+    @Test
+    public void testDefinitiveErrorIsCached() throws Exception
+    {
+        // Setup test fixture.
+        RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+        final IQ response = new IQ(IQ.Type.error);
+        response.setError(PacketError.Condition.feature_not_implemented);
+        DiscoCapabilityProbe.complete(probe.futures.get(DOMAIN), DOMAIN, response);
+
+        // Execute system under test.
+        final boolean result = RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+
+        // Verify results.
+        assertTrue(result);
+        assertEquals(Boolean.FALSE, RemoteDomainCapabilities.getInstance().getSupport(DOMAIN));
+    }
+
+    /**
+     * Verifies that domains for which a probe failed are removed from memory once the retry delay has passed.
+     */
+    @Test
+    public void testExpiredProbesArePurged() throws Exception
+    {
+        // Setup test fixture.
+        RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+        probe.futures.get(DOMAIN).completeExceptionally(new TimeoutException());
+        now.addAndGet(RemoteDomainCapabilities.RETRY_DELAY.getValue().toNanos());
+
+        // Execute system under test.
+        RemoteDomainCapabilities.getInstance().isKnownUnsupported("other." + DOMAIN);
+
+        // Verify results.
+        assertEquals(1, RemoteDomainCapabilities.getInstance().getProbingCount());
+    }
+
+    /**
+     * Verifies that no domain is probed, or reported as unsupported, when the functionality is disabled.
+     */
+    @Test
+    public void testDisabled() throws Exception
+    {
+        // Setup test fixture.
+        RemoteDomainCapabilities.getInstance().setEnabled(false);
+
+        // Execute system under test.
+        final boolean result = RemoteDomainCapabilities.getInstance().isKnownUnsupported(DOMAIN);
+
+        // Verify results.
+        assertFalse(result);
+        assertTrue(probe.requested.isEmpty());
+    }
+
+    /**
+     * A probe that records the domains that it is asked to probe, and returns futures that are completed by the test.
+     */
+    private static final class StubProbe implements CapabilityProbe
+    {
+        final List<String> requested = new ArrayList<>();
+
+        final Map<String, CompletableFuture<Boolean>> futures = new HashMap<>();
+
+        @Nonnull
+        @Override
+        public CompletableFuture<Boolean> probe(@Nonnull final String domain)
+        {
+            requested.add(domain);
+            final CompletableFuture<Boolean> future = new CompletableFuture<>();
+            futures.put(domain, future);
+            return future;
+        }
+    }
+}
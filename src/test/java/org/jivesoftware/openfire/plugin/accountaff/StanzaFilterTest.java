@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xmpp.packet.JID;
+import org.xmpp.packet.Message;
+import org.xmpp.packet.Presence;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests that verify the functionality of {@link StanzaFilter.Rules}.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+public class StanzaFilterTest
+{
+    private static final String LOCAL_DOMAIN = "example.org";
+
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        TestEnvironment.setUp();
+    }
+
+    @Before
+    public void setUp()
+    {
+        // Prevents remote domains from being checked for components or capabilities, which requires a running server.
+        RemoteDomainCapabilities.getInstance().setEnabled(false);
+    }
+
+    @Nonnull
+    private static StanzaFilter.Rules rules(@Nonnull final Set<Message.Type> messageTypes, final boolean localRecipients, @Nonnull final Set<String> allowedDomains, @Nonnull final Set<String> deniedDomains)
+    {
+        return new StanzaFilter.Rules(messageTypes, localRecipients, true, allowedDomains, deniedDomains, LOCAL_DOMAIN);
+    }
+
+    @Nonnull
+    private static Message message(@Nonnull final Message.Type type, @Nonnull final String to)
+    {
+        final Message result = new Message();
+        result.setType(type);
+        result.setTo(new JID(to));
+        return result;
+    }
+
+    /**
+     * Verifies that the default rules do not exclude any stanza.
+     */
+    @Test
+    public void testDefaultsExcludeNothing() throws Exception
+    {
+        // Setup test fixture.
+        final StanzaFilter.Rules rules = rules(EnumSet.allOf(Message.Type.class), true, Collections.emptySet(), Collections.emptySet());
+
+        // Execute system under test.
+        final StanzaFilter.Rule local = rules.evaluate(message(Message.Type.chat, "alice@" + LOCAL_DOMAIN));
+        final StanzaFilter.Rule remote = rules.evaluate(message(Message.Type.chat, "bob@example.com"));
+
+        // Verify results.
+        assertNull(local);
+        assertNull(remote);
+    }
+
+    /**
+     * Verifies that messages of a type that is not configured are excluded, while other stanzas are not.
+     */
+    @Test
+    public void testMessageType() throws Exception
+    {
+        // Setup test fixture.
+        final StanzaFilter.Rules rules = rules(EnumSet.of(Message.Type.chat), true, Collections.emptySet(), Collections.emptySet());
+        final Presence presence = new Presence();
+        presence.setTo(new JID("bob@example.com"));
+
+        // Execute system under test.
+        final StanzaFilter.Rule headline = rules.evaluate(message(Message.Type.headline, "bob@example.com"));
+        final StanzaFilter.Rule chat = rules.evaluate(message(Message.Type.chat, "bob@example.com"));
+        final StanzaFilter.Rule other = rules.evaluate(presence);
+
+        // Verify results.
+        assertEquals(StanzaFilter.Rule.message_type, headline);
+        assertNull(chat);
+        assertNull(other);
+    }
+
+    /**
+     * Verifies that a stanza without a recipient is not excluded by any rule that applies to recipients.
+     */
+    @Test
+    public void testNoRecipient() throws Exception
+    {
+        // Setup test fixture.
+        final StanzaFilter.Rules rules = rules(EnumSet.allOf(Message.Type.class), false, Set.of("example.net"), Set.of("example.com"));
+
+        // Execute system under test.
+        final StanzaFilter.Rule result = rules.evaluate(new Presence());
+
+        // Verify results.
+        assertNull(result);
+    }
+
+    /**
+     * Verifies that local recipients are excluded, when configured to be.
+     */
+    @Test
+    public void testLocalRecipient() throws Exception
+    {
+        // Setup test fixture.
+        final StanzaFilter.Rules rules = rules(EnumSet.allOf(Message.Type.class), false, Collections.emptySet(), Collections.emptySet());
+
+        // Execute system under test.
+        final StanzaFilter.Rule local = rules.evaluate(message(Message.Type.chat, "alice@" + LOCAL_DOMAIN));
+        final StanzaFilter.Rule remote = rules.evaluate(message(Message.Type.chat, "bob@example.com"));
+
+        // Verify results.
+        assertEquals(StanzaFilter.Rule.local_recipient, local);
+        assertNull(remote);
+    }
+
+    /**
+     * Verifies that recipients in a denied domain are excluded, irrespective of the case in which the domain is addressed.
+     */
+    @Test
+    public void testDeniedDomain() throws Exception
+    {
+        // Setup test fixture.
+        final StanzaFilter.Rules rules = rules(EnumSet.allOf(Message.Type.class), true, Collections.emptySet(), Set.of("example.com"));
+
+        // Execute system under test.
+        final StanzaFilter.Rule denied = rules.evaluate(message(Message.Type.chat, "bob@Example.COM"));
+        final StanzaFilter.Rule other = rules.evaluate(message(Message.Type.chat, "bob@example.net"));
+
+        // Verify results.
+        assertEquals(StanzaFilter.Rule.domain_denied, denied);
+        assertNull(other);
+    }
+
+    /**
+     * Verifies that, when domains are allowed, recipients in other domains are excluded.
+     */
+    @Test
+    public void testAllowedDomains() throws Exception
+    {
+        // Setup test fixture.
+        final StanzaFilter.Rules rules = rules(EnumSet.allOf(Message.Type.class), true, Set.of("example.net"), Collections.emptySet());
+
+        // Execute system under test.
+        final StanzaFilter.Rule allowed = rules.evaluate(message(Message.Type.chat, "bob@example.net"));
+        final StanzaFilter.Rule other = rules.evaluate(message(Message.Type.chat, "bob@example.com"));
+
+        // Verify results.
+        assertNull(allowed);
+        assertEquals(StanzaFilter.Rule.domain_not_allowed, other);
+    }
+
+    /**
+     * Verifies that the deny list takes precedence over the allow list.
+     */
+    @Test
+    public void testDenyBeforeAllow() throws Exception
+    {
+        // Setup test fixture.
+        final StanzaFilter.Rules rules = rules(EnumSet.allOf(Message.Type.class), true, Set.of("example.com"), Set.of("example.com"));
+
+        // Execute system under test.
+        final StanzaFilter.Rule result = rules.evaluate(message(Message.Type.chat, "bob@example.com"));
+
+        // Verify results.
+        assertEquals(StanzaFilter.Rule.domain_denied, result);
+    }
+
+    /**
+     * Verifies that the message type is checked before the recipient.
+     */
+    @Test
+    public void testMessageTypeBeforeRecipient() throws Exception
+    {
+        // Setup test fixture.
+        final StanzaFilter.Rules rules = rules(EnumSet.of(Message.Type.chat), true, Collections.emptySet(), Set.of("example.com"));
+
+        // Execute system under test.
+        final StanzaFilter.Rule result = rules.evaluate(message(Message.Type.groupchat, "room@example.com"));
+
+        // Verify results.
+        assertEquals(StanzaFilter.Rule.message_type, result);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.openfire.plugin.accountaff;
+
+import org.jivesoftware.util.JiveGlobals;
+import org.jivesoftware.util.cache.CacheFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Prepares the parts of Openfire that unit tests depend on, without a running server or a database.
+ *
+ * Tests share a JVM, so every part is prepared only once.
+ *
+ * @author Guus der Kinderen, guus@goodbytes.nl
+ */
+final class TestEnvironment
+{
+    private static boolean homeDirectoryCreated;
+
+    private static boolean cachesInitialized;
+
+    private TestEnvironment()
+    {}
+
+    /**
+     * Creates a temporary Openfire home directory, which allows system properties to be used. Without a database,
+     * properties are kept in memory.
+     */
+    static synchronized void setUp() throws Exception
+    {
+        if (homeDirectoryCreated) {
+            return;
+        }
+        final Path home = Files.createTempDirectory("raa-test");
+        Files.createDirectories(home.resolve("conf"));
+        Files.writeString(home.resolve("conf").resolve("openfire.xml"), "<jive><setup>true</setup></jive>");
+        Files.writeString(home.resolve("conf").resolve("security.xml"), "<security/>");
+        JiveGlobals.setHomeDirectory(home.toString());
+        homeDirectoryCreated = true;
+    }
+
+    /**
+     * Does what {@link #setUp()} does, and also initializes the (local) caches.
+     */
+    static synchronized void setUpCaches() throws Exception
+    {
+        setUp();
+        if (cachesInitialized) {
+            return;
+        }
+        CacheFactory.initialize();
+        cachesInitialized = true;
+    }
+}
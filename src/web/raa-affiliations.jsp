@@ -0,0 +1,158 @@
+<%--
+  - Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+  -
+  - Licensed under the Apache License, Version 2.0 (the "License");
+  - you may not use this file except in compliance with the License.
+  - You may obtain a copy of the License at
+  -
+  -     http://www.apache.org/licenses/LICENSE-2.0
+  -
+  - Unless required by applicable law or agreed to in writing, software
+  - distributed under the License is distributed on an "AS IS" BASIS,
+  - WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  - See the License for the specific language governing permissions and
+  - limitations under the License.
+--%>
+<%@ page contentType="text/html; charset=UTF-8" %>
+<%@ page import="org.apache.commons.fileupload.FileItem" %>
+<%@ page import="org.apache.commons.fileupload.FileUploadException" %>
+<%@ page import="org.apache.commons.fileupload.disk.DiskFileItemFactory" %>
+<%@ page import="org.apache.commons.fileupload.servlet.ServletFileUpload" %>
+<%@ page import="org.jivesoftware.openfire.plugin.accountaff.AffiliationImporter" %>
+<%@ page import="org.jivesoftware.openfire.plugin.accountaff.InfoDAO" %>
+<%@ page import="org.jivesoftware.util.CookieUtils" %>
+<%@ page import="org.jivesoftware.util.StringUtils" %>
+<%@ page import="java.io.InputStreamReader" %>
+<%@ page import="java.nio.charset.StandardCharsets" %>
+<%@ page import="java.util.List" %>
+<%@ taglib uri="admin" prefix="admin" %>
+<%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c" %>
+<%@ taglib uri="http://java.sun.com/jsp/jstl/fmt" prefix="fmt" %>
+<jsp:useBean id="webManager" class="org.jivesoftware.util.WebManager"/>
+<% webManager.init(request, response, session, application, out ); %>
+<%
+    final AffiliationImporter importer = AffiliationImporter.getInstance();
+
+    if ("POST".equals(request.getMethod()) && ServletFileUpload.isMultipartContent(request)) {
+        final Cookie csrfCookie = CookieUtils.getCookie(request, "csrf");
+        String csrfParam = null;
+        FileItem csv = null;
+        try {
+            final List<FileItem> items = new ServletFileUpload(new DiskFileItemFactory()).parseRequest(request);
+            for (final FileItem item : items) {
+                if (item.isFormField() && "csrf".equals(item.getFieldName())) {
+                    csrfParam = item.getString();
+                } else if (!item.isFormField() && "csv".equals(item.getFieldName())) {
+                    csv = item;
+                }
+            }
+        } catch (FileUploadException e) {
+            pageContext.setAttribute("uploadError", true);
+        }
+
+        if (csrfCookie == null || csrfParam == null || !csrfCookie.getValue().equals(csrfParam)) {
+            pageContext.setAttribute("csrfError", true);
+        } else if (csv == null || csv.getSize() == 0) {
+            pageContext.setAttribute("uploadError", true);
+        } else {
+            try {
+                if (importer.start(new InputStreamReader(csv.getInputStream(), StandardCharsets.UTF_8))) {
+                    webManager.logEvent("Started an import of affiliations for the Reporting Account Affiliations plugin.", importer.getTotal() + " users, file: " + csv.getName());
+                    response.sendRedirect("raa-affiliations.jsp?importStarted=true");
+                    return;
+                }
+                pageContext.setAttribute("importInProgress", true);
+            } catch (UnsupportedOperationException e) {
+                pageContext.setAttribute("readOnly", true);
+            } finally {
+                csv.delete();
+            }
+        }
+    }
+
+    final String csrfParam = StringUtils.randomString(15);
+    CookieUtils.setCookie(request, response, "csrf", csrfParam, -1);
+    pageContext.setAttribute("csrf", csrfParam);
+
+    pageContext.setAttribute("importer", importer);
+    pageContext.setAttribute("provider", InfoDAO.getAffiliationProvider().getClass().getName());
+    pageContext.setAttribute("providerReadOnly", InfoDAO.getAffiliationProvider().isReadOnly());
+%>
+<html>
+<head>
+    <title><fmt:message key="raa.affiliations.title"/></title>
+    <meta name="pageID" content="raa-affiliations"/>
+    <c:if test="${importer.running}">
+        <meta http-equiv="refresh" content="2; url=raa-affiliations.jsp">
+    </c:if>
+</head>
+<body>
+
+<c:choose>
+    <c:when test="${csrfError}">
+        <admin:infobox type="error"><fmt:message key="global.csrf.failed"/></admin:infobox>
+    </c:when>
+    <c:when test="${uploadError}">
+        <admin:infobox type="error"><fmt:message key="raa.affiliations.upload.error"/></admin:infobox>
+    </c:when>
+    <c:when test="${importInProgress}">
+        <admin:infobox type="error"><fmt:message key="raa.affiliations.in-progress"/></admin:infobox>
+    </c:when>
+    <c:when test="${readOnly}">
+        <admin:infobox type="error"><fmt:message key="raa.affiliations.read-only"/></admin:infobox>
+    </c:when>
+    <c:when test="${param.importStarted}">
+        <admin:infobox type="success"><fmt:message key="raa.affiliations.started"/></admin:infobox>
+    </c:when>
+</c:choose>
+
+<p><fmt:message key="raa.affiliations.description"/></p>
+
+<fmt:message key="raa.affiliations.upload.title" var="uploadTitle"/>
+<admin:contentBox title="${uploadTitle}">
+    <p><fmt:message key="raa.affiliations.provider"/> <code><c:out value="${provider}"/></code></p>
+    <c:choose>
+        <c:when test="${providerReadOnly}">
+            <p><fmt:message key="raa.affiliations.read-only"/></p>
+        </c:when>
+        <c:otherwise>
+            <p><fmt:message key="raa.affiliations.format"/></p>
+            <pre>username,affiliation
+jane,member
+john,registered
+jack,</pre>
+            <form action="raa-affiliations.jsp" method="post" enctype="multipart/form-data">
+                <input type="hidden" name="csrf" value="${csrf}">
+                <input type="file" name="csv" accept=".csv,text/csv,text/plain">
+                <input type="submit" value="<fmt:message key="raa.affiliations.upload.submit"/>" <c:if test="${importer.running}">disabled</c:if>>
+            </form>
+        </c:otherwise>
+    </c:choose>
+</admin:contentBox>
+
+<c:if test="${not empty importer.started}">
+    <fmt:message key="raa.affiliations.status.title" var="statusTitle"/>
+    <admin:contentBox title="${statusTitle}">
+        <p>
+            <fmt:message key="raa.affiliations.status.started"/> <c:out value="${importer.started}"/>
+            <c:if test="${not empty importer.finished}">,
+                <fmt:message key="raa.affiliations.status.finished"/> <c:out value="${importer.finished}"/>
+            </c:if>
+        </p>
+        <p>
+            <fmt:message key="raa.affiliations.status.processed"/> <fmt:formatNumber value="${importer.processed}"/> / <fmt:formatNumber value="${importer.total}"/>,
+            <fmt:message key="raa.affiliations.status.failed"/> <fmt:formatNumber value="${importer.failed}"/>,
+            <fmt:message key="raa.affiliations.status.invalid"/> <fmt:formatNumber value="${importer.invalid}"/>
+        </p>
+        <c:if test="${not empty importer.errors}">
+            <ul>
+                <c:forEach items="${importer.errors}" var="error">
+                    <li><c:out value="${error}"/></li>
+                </c:forEach>
+            </ul>
+        </c:if>
+    </admin:contentBox>
+</c:if>
+
+</body>
+</html>
@@ -0,0 +1,206 @@
+<%--
+  - Copyright (C) 2026 Ignite Realtime Foundation. All rights reserved.
+  -
+  - Licensed under the Apache License, Version 2.0 (the "License");
+  - you may not use this file except in compliance with the License.
+  - You may obtain a copy of the License at
+  -
+  -     http://www.apache.org/licenses/LICENSE-2.0
+  -
+  - Unless required by applicable law or agreed to in writing, software
+  - distributed under the License is distributed on an "AS IS" BASIS,
+  - WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  - See the License for the specific language governing permissions and
+  - limitations under the License.
+--%>
+<%@ page contentType="text/html; charset=UTF-8" %>
+<%@ page import="org.jivesoftware.openfire.plugin.accountaff.AdminSet" %>
+<%@ page import="org.jivesoftware.openfire.plugin.accountaff.AffiliationStatistics" %>
+<%@ page import="org.jivesoftware.openfire.plugin.accountaff.InfoCache" %>
+<%@ page import="org.jivesoftware.openfire.plugin.accountaff.LookupExecutor" %>
+<%@ page import="org.jivesoftware.openfire.plugin.accountaff.Metrics" %>
+<%@ page import="org.jivesoftware.util.CookieUtils" %>
+<%@ page import="org.jivesoftware.util.ParamUtils" %>
+<%@ page import="org.jivesoftware.util.StringUtils" %>
+<%@ taglib uri="admin" prefix="admin" %>
+<%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c" %>
+<%@ taglib uri="http://java.sun.com/jsp/jstl/fmt" prefix="fmt" %>
+<jsp:useBean id="webManager" class="org.jivesoftware.util.WebManager"/>
+<% webManager.init(request, response, session, application, out ); %>
+<%
+    final boolean reset = request.getParameter("reset") != null;
+
+    final Cookie csrfCookie = CookieUtils.getCookie(request, "csrf");
+    String csrfParam = ParamUtils.getParameter(request, "csrf");
+
+    if (reset) {
+        if (csrfCookie == null || csrfParam == null || !csrfCookie.getValue().equals(csrfParam)) {
+            pageContext.setAttribute("csrfError", true);
+        } else {
+            Metrics.getInstance().reset();
+            webManager.logEvent("Reset the metrics of the Reporting Account Affiliations plugin.", null);
+            response.sendRedirect("raa-metrics.jsp?resetSuccess=true");
+            return;
+        }
+    }
+
+    csrfParam = StringUtils.randomString(15);
+    CookieUtils.setCookie(request, response, "csrf", csrfParam, -1);
+    pageContext.setAttribute("csrf", csrfParam);
+
+    pageContext.setAttribute("metrics", Metrics.getInstance());
+    pageContext.setAttribute("metricsEnabled", Metrics.ENABLED.getValue());
+    pageContext.setAttribute("cache", InfoCache.getInstance());
+    pageContext.setAttribute("executor", LookupExecutor.getInstance());
+    pageContext.setAttribute("admins", AdminSet.getInstance());
+    pageContext.setAttribute("statistics", AffiliationStatistics.getInstance());
+    pageContext.setAttribute("refreshSeconds", Metrics.RATE_INTERVAL.getSeconds());
+%>
+<html>
+<head>
+    <title><fmt:message key="raa.metrics.title"/></title>
+    <c:if test="${param.autoRefresh}">
+        <meta http-equiv="refresh" content="${refreshSeconds}; url=raa-metrics.jsp?autoRefresh=true">
+    </c:if>
+    <meta name="pageID" content="raa-metrics"/>
+</head>
+<body>
+
+<c:choose>
+    <c:when test="${csrfError}">
+        <admin:infobox type="error"><fmt:message key="global.csrf.failed"/></admin:infobox>
+    </c:when>
+    <c:when test="${param.resetSuccess}">
+        <admin:infobox type="success"><fmt:message key="raa.metrics.reset.success"/></admin:infobox>
+    </c:when>
+</c:choose>
+
+<c:if test="${not metricsEnabled}">
+    <admin:infobox type="warning"><fmt:message key="raa.metrics.disabled"/></admin:infobox>
+</c:if>
+
+<p><fmt:message key="raa.metrics.description"/></p>
+
+<p>
+    <c:choose>
+        <c:when test="${param.autoRefresh}">
+            <a href="raa-metrics.jsp"><fmt:message key="raa.metrics.auto-refresh.disable"/></a>
+        </c:when>
+        <c:otherwise>
+            <a href="raa-metrics.jsp?autoRefresh=true"><fmt:message key="raa.metrics.auto-refresh.enable"><fmt:param value="${refreshSeconds}"/></fmt:message></a>
+        </c:otherwise>
+    </c:choose>
+</p>
+
+<fmt:message key="raa.metrics.decorated.title" var="decoratedTitle"/>
+<admin:contentBox title="${decoratedTitle}">
+    <table class="jive-table" cellpadding="0" cellspacing="0" border="0" width="100%">
+        <thead>
+        <tr>
+            <th>&nbsp;</th>
+            <th><fmt:message key="raa.metrics.column.count"/></th>
+            <th><fmt:message key="raa.metrics.column.rate"/></th>
+        </tr>
+        </thead>
+        <tbody>
+        <c:set var="rates" value="${metrics.decoratedStanzaRates}"/>
+        <c:forEach items="${metrics.decoratedStanzas}" var="entry">
+            <tr>
+                <td><c:out value="${entry.key}"/></td>
+                <td><fmt:formatNumber value="${entry.value}"/></td>
+                <td><fmt:formatNumber value="${rates[entry.key]}" maxFractionDigits="1"/></td>
+            </tr>
+        </c:forEach>
+        </tbody>
+    </table>
+</admin:contentBox>
+
+<fmt:message key="raa.metrics.affiliations.title" var="affiliationsTitle"/>
+<admin:contentBox title="${affiliationsTitle}">
+    <c:choose>
+        <c:when test="${empty statistics.lastRefresh}">
+            <p><fmt:message key="raa.metrics.affiliations.pending"/></p>
+        </c:when>
+        <c:otherwise>
+            <p>
+                <c:forEach items="${statistics.counts}" var="entry" varStatus="status">
+                    <c:out value="${entry.key}"/>: <fmt:formatNumber value="${entry.value}"/><c:if test="${not status.last}">, </c:if>
+                </c:forEach>
+            </p>
+            <p><fmt:message key="raa.metrics.affiliations.last-refresh"/> <c:out value="${statistics.lastRefresh}"/></p>
+        </c:otherwise>
+    </c:choose>
+</admin:contentBox>
+
+<fmt:message key="raa.metrics.intercept.title" var="interceptTitle"/>
+<admin:contentBox title="${interceptTitle}">
+    <c:set var="latencies" value="${metrics.interceptLatencies}"/>
+    <%@ include file="raa-metrics-latency-table.jspf" %>
+    <p><fmt:message key="raa.metrics.intercept.spoofed"/> <fmt:formatNumber value="${metrics.spoofedInfoStripped}"/></p>
+    <p>
+        <fmt:message key="raa.metrics.intercept.filtered"/>
+        <c:forEach items="${metrics.filteredStanzas}" var="entry" varStatus="status">
+            <c:out value="${entry.key}"/>: <fmt:formatNumber value="${entry.value}"/><c:if test="${not status.last}">, </c:if>
+        </c:forEach>
+    </p>
+</admin:contentBox>
+
+<fmt:message key="raa.metrics.lookup.title" var="lookupTitle"/>
+<admin:contentBox title="${lookupTitle}">
+    <c:set var="latencies" value="${metrics.lookupLatencies}"/>
+    <%@ include file="raa-metrics-latency-table.jspf" %>
+</admin:contentBox>
+
+<fmt:message key="raa.metrics.query.title" var="queryTitle"/>
+<admin:contentBox title="${queryTitle}">
+    <jsp:useBean id="queries" class="java.util.LinkedHashMap"/>
+    <c:set target="${queries}" property="query" value="${metrics.queryLatency}"/>
+    <c:set target="${queries}" property="batch" value="${metrics.batchQueryLatency}"/>
+    <c:set var="latencies" value="${queries}"/>
+    <%@ include file="raa-metrics-latency-table.jspf" %>
+    <p>
+        <fmt:message key="raa.metrics.query.pending"/> <fmt:formatNumber value="${executor.pendingCount}"/> / <fmt:formatNumber value="${executor.maxPending}"/>,
+        <fmt:message key="raa.metrics.query.rejected"/> <fmt:formatNumber value="${executor.rejectedCount}"/>,
+        <fmt:message key="raa.metrics.query.timed-out"/> <fmt:formatNumber value="${executor.timedOutCount}"/>
+    </p>
+    <p>
+        <fmt:message key="raa.metrics.query.rate-limited"/>
+        <c:forEach items="${metrics.rateLimitedQueries}" var="entry" varStatus="status">
+            <c:out value="${entry.key}"/>: <fmt:formatNumber value="${entry.value}"/><c:if test="${not status.last}">, </c:if>
+        </c:forEach>
+    </p>
+</admin:contentBox>
+
+<fmt:message key="raa.metrics.cache.title" var="cacheTitle"/>
+<admin:contentBox title="${cacheTitle}">
+    <p>
+        <fmt:message key="raa.metrics.cache.size"/> <fmt:formatNumber value="${cache.size}"/>,
+        <fmt:message key="raa.metrics.cache.hits"/> <fmt:formatNumber value="${cache.hits}"/>,
+        <fmt:message key="raa.metrics.cache.misses"/> <fmt:formatNumber value="${cache.misses}"/>,
+        <fmt:message key="raa.metrics.cache.invalidations"/> <fmt:formatNumber value="${cache.invalidations}"/>,
+        <fmt:message key="raa.metrics.cache.evictions"/> <fmt:formatNumber value="${cache.evictions}"/>,
+        <fmt:message key="raa.metrics.cache.hit-ratio"/> <fmt:formatNumber value="${cache.hitRatio}" type="percent" maxFractionDigits="1"/>
+    </p>
+    <p>
+        <fmt:message key="raa.metrics.cache.unknown-size"/> <fmt:formatNumber value="${cache.unknownSize}"/>,
+        <fmt:message key="raa.metrics.cache.unknown-hits"/> <fmt:formatNumber value="${cache.unknownHits}"/>
+    </p>
+</admin:contentBox>
+
+<fmt:message key="raa.metrics.admins.title" var="adminsTitle"/>
+<admin:contentBox title="${adminsTitle}">
+    <p>
+        <fmt:message key="raa.metrics.admins.size"/> <fmt:formatNumber value="${admins.size}"/>,
+        <fmt:message key="raa.metrics.admins.refreshes"/> <fmt:formatNumber value="${admins.refreshCount}"/>,
+        <fmt:message key="raa.metrics.admins.last-refresh"/> <c:out value="${admins.lastRefresh}"/>
+        (<fmt:formatNumber value="${admins.lastRefreshDuration.toMillis()}"/> ms)
+    </p>
+</admin:contentBox>
+
+<form action="raa-metrics.jsp" method="post">
+    <input type="hidden" name="csrf" value="${csrf}">
+    <input type="submit" name="reset" value="<fmt:message key="raa.metrics.reset"/>">
+</form>
+
+</body>
+</html>